@@ -0,0 +1,139 @@
+package com.badas.util;
+
+import com.badas.model.Severity;
+import com.badas.service.SymptomDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Times KeywordMatcher against the per-keyword String.contains() loops
+ * SymptomAnalyzer used before it, on long free-text narratives.
+ *
+ * Both sides use the built-in keyword lists. Each narrative is filler
+ * prose with, optionally, one keyword near the end — the worst place for
+ * the old loops, which scan the whole text once per keyword. Every case is
+ * first checked for equal results, then warmed up, then timed over several
+ * rounds; the median round is reported.
+ *
+ * Not part of the application. See README.md, "Benchmarks", for how to run it.
+ */
+public final class KeywordMatcherBenchmark {
+
+    private static final int    WARMUP_ROUNDS   = 5;
+    private static final int    MEASURED_ROUNDS = 9;
+    private static final long   ROUND_NANOS     = 200_000_000L;
+    private static final int[]  LENGTHS         = {500, 5_000, 50_000};
+    private static final String[] FILLER = {
+        "patient", "reports", "that", "since", "this", "morning", "the", "pain", "in", "left",
+        "arm", "came", "and", "went", "after", "walking", "up", "stairs", "no", "history",
+        "of", "similar", "episodes", "family", "says", "he", "was", "alert", "at", "breakfast",
+        "took", "usual", "medication", "neighbour", "called", "when", "found", "sitting", "outside"
+    };
+
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    /** Keeps the JIT from discarding results. */
+    private static long sink;
+
+    private KeywordMatcherBenchmark() {}
+
+    public static void main(String[] args) {
+        SymptomDictionary dict = SymptomDictionary.builtIn();
+        KeywordMatcher matcher = dict.getMatcher();
+        LegacyAnalyzer legacy = new LegacyAnalyzer(dict);
+        Random random = new Random(42);
+
+        System.out.printf("%-8s %-20s %14s %14s %14s %9s%n",
+                          "chars", "keyword", "contains ns", "bestTag ns", "findAll ns", "speed-up");
+        for (int length : LENGTHS) {
+            for (String keyword : new String[] {null, "sprain", "difficulty breathing"}) {
+                String text = narrative(random, length, keyword);
+                check(text, legacy, matcher);
+
+                double old  = time(() -> sink += legacy.analyze(text).ordinal());
+                double best = time(() -> sink += matcher.bestTag(text, Severity.CRITICAL.ordinal()));
+                double all  = time(() -> sink += matcher.findAll(text).size());
+                System.out.printf("%-8d %-20s %14.0f %14.0f %14.0f %8.1fx%n",
+                                  text.length(), keyword == null ? "(none)" : keyword, old, best, all, old / best);
+            }
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    /** Filler prose of about {@code length} chars, mixed case, with {@code keyword} near the end if not null. */
+    private static String narrative(Random random, int length, String keyword) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        while (sb.length() < length) {
+            String word = FILLER[random.nextInt(FILLER.length)];
+            if (sb.length() == 0 || random.nextInt(12) == 0) {
+                if (sb.length() > 0) sb.append(". ");
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            } else {
+                sb.append(' ');
+            }
+            sb.append(word);
+        }
+        if (keyword != null) sb.insert(sb.length() - 40, " " + keyword.toUpperCase() + " ");
+        return sb.append('.').toString();
+    }
+
+    private static void check(String text, LegacyAnalyzer legacy, KeywordMatcher matcher) {
+        int tag = matcher.bestTag(text, Severity.CRITICAL.ordinal());
+        Severity fast = tag < 0 ? Severity.UNKNOWN : SEVERITIES[tag];
+        Severity old  = legacy.analyze(text);
+        if (fast != old) throw new AssertionError("contains() says " + old + ", KeywordMatcher says " + fast);
+    }
+
+    /** Median nanoseconds per call over the measured rounds, after warm-up. */
+    private static double time(Runnable op) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) round(op);
+        double[] rounds = new double[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) rounds[i] = round(op);
+        Arrays.sort(rounds);
+        return rounds[MEASURED_ROUNDS / 2];
+    }
+
+    /** Runs {@code op} for about ROUND_NANOS and returns nanoseconds per call. */
+    private static double round(Runnable op) {
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 16; i++) op.run();
+            calls += 16;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return elapsed / (double) calls;
+    }
+
+    // ─────────────────────────────────────────────
+    //  The implementation KeywordMatcher replaced
+    // ─────────────────────────────────────────────
+
+    /** SymptomAnalyzer.analyze() as it was: lower-case the text, then contains() per keyword. */
+    private static final class LegacyAnalyzer {
+        private final List<Set<String>> bySeverity = new ArrayList<>();
+
+        LegacyAnalyzer(SymptomDictionary dict) {
+            for (Severity sev : List.of(Severity.CRITICAL, Severity.MODERATE, Severity.MINOR)) {
+                bySeverity.add(new HashSet<>(dict.getKeywords(sev)));
+            }
+        }
+
+        Severity analyze(String symptomText) {
+            if (symptomText == null || symptomText.isBlank()) return Severity.UNKNOWN;
+            String lower = symptomText.toLowerCase();
+            for (int i = 0; i < bySeverity.size(); i++) {
+                for (String kw : bySeverity.get(i)) {
+                    if (lower.contains(kw)) return SEVERITIES[i];
+                }
+            }
+            return Severity.UNKNOWN;
+        }
+    }
+}
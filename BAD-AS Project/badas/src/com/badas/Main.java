@@ -1,6 +1,10 @@
 package com.badas;
 
 import com.badas.dao.DatabaseManager;
+import com.badas.service.DispatchScheduler;
+import com.badas.service.HospitalAssignmentEngine;
+import com.badas.service.SymptomDictionaryService;
+import com.badas.service.TravelTimeService;
 import com.badas.ui.auth.LoginFrame;
 import com.badas.ui.common.ThemeManager;
 
@@ -12,7 +16,11 @@ import javax.swing.*;
  * Startup sequence:
  *   1. Apply saved theme (FlatLaf if available, else Nimbus fallback)
  *   2. Initialise SQLite database — creates badas.db and seeds default data
- *   3. Launch the login window on the Event Dispatch Thread
+ *   3. Load the symptom keyword dictionary and start watching it for edits
+ *      and index hospitals by location for dispatch assignment; load the
+ *      road graph for travel times in the background; load the
+ *      pending-dispatch queue
+ *   4. Launch the login window on the Event Dispatch Thread
  */
 public class Main {
 
@@ -31,8 +39,22 @@ public class Main {
                 JOptionPane.ERROR_MESSAGE);
             System.exit(1);
         }
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(DatabaseManager.getInstance()::shutdown, "badas-db-shutdown"));
 
-        // 3. Open login window
+        // 3. Symptom keywords — config/symptom-keywords.txt is hot-reloaded on save
+        SymptomDictionaryService.getInstance().start();
+
+        // Location index for suggesting destination hospitals, kept current by HospitalChanged
+        HospitalAssignmentEngine.getInstance().start();
+
+        // Road graph and hospital travel-time matrix, loaded on a background thread
+        TravelTimeService.getInstance().start();
+
+        // Pending dispatches by severity and wait, kept current by DispatchChanged
+        DispatchScheduler.getInstance().start();
+
+        // 4. Open login window
         SwingUtilities.invokeLater(() -> new LoginFrame().setVisible(true));
     }
 }
@@ -0,0 +1,232 @@
+package com.badas.dao;
+
+import com.badas.event.EventBus;
+import com.badas.event.FeedResync;
+import com.badas.event.HospitalChanged;
+import com.badas.event.ChangeOp;
+import com.badas.model.DispatchStatus;
+import com.badas.util.Timestamps;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ambulance availability per hospital.
+ *
+ * hospitals.available_ambulances is the ledger. A unit is only taken by a
+ * conditional UPDATE (... WHERE available_ambulances >= n) that runs in
+ * the same write task as the dispatch insert or status change needing it.
+ * Two dispatchers — in this process or on another workstation sharing
+ * badas.db — can therefore never take the same last unit, and a dispatch
+ * that fails to save never holds one. A dispatch with a hospital_id holds
+ * one unit while it is Pending or Dispatched; cancelling, completing or
+ * deleting it gives the unit back.
+ *
+ * The in-memory counters are a read cache for the dashboards (the wizard's
+ * hospital picker, the statistics cards) and never decide a reservation.
+ * They are set from committed writes and HospitalChanged events, and a
+ * reconciliation pass re-reads the table every minute, logging and fixing
+ * any counter that has drifted.
+ */
+public class AmbulanceLedger {
+
+    /** Snapshot of ledger counters for diagnostics. */
+    public record Stats(long reserved, long released, long rejected, long reconciliations, long drifted) {}
+
+    /** A hospital had fewer units left than a write needed; the whole write is rolled back. */
+    public static class NoAmbulanceAvailableException extends SQLException {
+        private final int hospitalId;
+
+        NoAmbulanceAvailableException(int hospitalId) {
+            super("No ambulance available at hospital " + hospitalId);
+            this.hospitalId = hospitalId;
+        }
+
+        public int getHospitalId() { return hospitalId; }
+    }
+
+    private static final long RECONCILE_SECONDS = 60;
+
+    private static AmbulanceLedger instance;
+
+    private final DatabaseManager db = DatabaseManager.getInstance();
+    private final ConcurrentHashMap<Integer, Integer> available = new ConcurrentHashMap<>();
+    private ScheduledExecutorService timer;
+
+    private final LongAdder reserved        = new LongAdder();
+    private final LongAdder released        = new LongAdder();
+    private final LongAdder rejected        = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private final LongAdder drifted         = new LongAdder();
+
+    private AmbulanceLedger() {}
+
+    public static synchronized AmbulanceLedger getInstance() {
+        if (instance == null) instance = new AmbulanceLedger();
+        return instance;
+    }
+
+    /** Whether a dispatch in this status keeps its hospital's unit. */
+    public static boolean holdsUnit(DispatchStatus status) {
+        return status == DispatchStatus.PENDING || status == DispatchStatus.DISPATCHED;
+    }
+
+    /** Loads the counters, follows hospital changes and starts the reconciliation timer. */
+    synchronized void start() {
+        if (timer != null) return;
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(HospitalChanged.class, e -> {
+            if (e.op() == ChangeOp.DELETE) available.remove(e.id());
+            else available.put(e.id(), e.row().getAvailableAmbulances());
+        });
+        bus.subscribe(FeedResync.class, e -> {
+            try {
+                timer.execute(this::reconcile);
+            } catch (RejectedExecutionException ignored) {
+                // shutting down
+            }
+        });
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "badas-ambulance-ledger");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::reconcile, 0, RECONCILE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    synchronized void shutdown() {
+        if (timer != null) timer.shutdownNow();
+    }
+
+    // ─── Fast reads ─────────────────────────────────────────────────────────
+
+    /** Units left at the hospital as last seen; 0 if it is unknown. */
+    public int available(int hospitalId) {
+        return available.getOrDefault(hospitalId, 0);
+    }
+
+    public int totalAvailable() {
+        int total = 0;
+        for (int n : available.values()) total += n;
+        return total;
+    }
+
+    public Stats stats() {
+        return new Stats(reserved.sum(), released.sum(), rejected.sum(), reconciliations.sum(), drifted.sum());
+    }
+
+    // ─── Inside a write ─────────────────────────────────────────────────────
+
+    /**
+     * Applies {@code delta} (hospital id → units, negative to reserve) on the
+     * writer's connection. A reservation that would take a hospital below
+     * zero throws NoAmbulanceAvailableException, which rolls back the
+     * write task it runs in. Releases never exceed ambulance_count and are
+     * skipped for hospitals that no longer exist. Returns the units left
+     * at each hospital that changed, for committed().
+     */
+    Map<Integer, Integer> apply(Connection conn, Map<Integer, Integer> delta) throws SQLException {
+        Map<Integer, Integer> after = new HashMap<>();
+        if (delta.isEmpty()) return after;
+        String reserve = """
+            UPDATE hospitals SET available_ambulances = available_ambulances - ?, updated_at = ?
+            WHERE id = ? AND available_ambulances >= ?
+            RETURNING available_ambulances
+            """;
+        String release = """
+            UPDATE hospitals SET available_ambulances = MIN(ambulance_count, available_ambulances + ?), updated_at = ?
+            WHERE id = ?
+            RETURNING available_ambulances
+            """;
+        long now = Timestamps.now();
+        // Id order, so concurrent multi-hospital writes touch rows in the same sequence
+        for (Map.Entry<Integer, Integer> e : new TreeMap<>(delta).entrySet()) {
+            int hospitalId = e.getKey();
+            int units = e.getValue();
+            if (units == 0) continue;
+            try (PreparedStatement ps = conn.prepareStatement(units < 0 ? reserve : release)) {
+                ps.setInt(1, Math.abs(units));
+                ps.setLong(2, now);
+                ps.setInt(3, hospitalId);
+                if (units < 0) ps.setInt(4, -units);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        after.put(hospitalId, rs.getInt(1));
+                    } else if (units < 0) {
+                        rejected.increment();
+                        throw new NoAmbulanceAvailableException(hospitalId);
+                    }
+                }
+            }
+        }
+        return after;
+    }
+
+    /**
+     * Called once the write that ran apply() has committed: updates the
+     * counters and drops the changed hospitals from HospitalDAO's cache.
+     */
+    void committed(Map<Integer, Integer> delta, Map<Integer, Integer> after) {
+        for (int units : delta.values()) {
+            if (units < 0) reserved.add(-units);
+            else released.add(units);
+        }
+        after.forEach((hospitalId, left) -> {
+            available.put(hospitalId, left);
+            HospitalDAO.invalidate(hospitalId);
+        });
+    }
+
+    // ─── Reconciliation ─────────────────────────────────────────────────────
+
+    /**
+     * Re-reads every hospital and corrects counters that disagree with the
+     * table. A counter that changed while the table was being read is left
+     * alone — it already holds something newer than this read.
+     */
+    void reconcile() {
+        Map<Integer, Integer> seen = new HashMap<>(available);
+        Map<Integer, Integer> actual = new HashMap<>();
+        String sql = "SELECT id, available_ambulances, ambulance_count FROM hospitals";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                int id = rs.getInt(1), left = rs.getInt(2), total = rs.getInt(3);
+                actual.put(id, left);
+                if (left < 0 || left > total) {
+                    System.err.println("AmbulanceLedger.reconcile: hospital " + id + " has "
+                            + left + " of " + total + " ambulances available");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("AmbulanceLedger.reconcile: " + e.getMessage());
+            return;
+        }
+        reconciliations.increment();
+
+        actual.forEach((id, left) -> {
+            Integer counted = seen.get(id);
+            if (left.equals(counted)) return;
+            boolean fixed = counted == null ? available.putIfAbsent(id, left) == null
+                                            : available.replace(id, counted, left);
+            // A counter seen for the first time (startup, new hospital) is a load, not drift
+            if (fixed && counted != null) {
+                drifted.increment();
+                System.err.println("AmbulanceLedger.reconcile: hospital " + id + " counter was "
+                        + counted + ", table has " + left);
+            }
+        });
+        seen.forEach((id, counted) -> {
+            if (!actual.containsKey(id)) available.remove(id, counted);
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package com.badas.dao;
+
+import java.util.List;
+
+/**
+ * Outcome of a saveAll / updateStatusAll call: the ids written (for
+ * saveAll, the generated keys in the order the rows were passed in) and
+ * how long the call took, including its wait in the write queue and the
+ * commit.
+ */
+public record BulkResult(List<Integer> ids, long elapsedNanos) {
+
+    public int rows() {
+        return ids.size();
+    }
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : ids.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %.1f ms (%.0f rows/s)", rows(), elapsedNanos / 1_000_000.0, rowsPerSecond());
+    }
+}
@@ -0,0 +1,106 @@
+package com.badas.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-row statements for the DAOs' saveAll / updateStatusAll. Rows are
+ * written with as few statements as SQLite's parameter limit allows, all
+ * on the connection of the one write task that calls these, so a bulk call
+ * commits (or rolls back) as a whole with a single fsync.
+ *
+ * Every full chunk uses the same SQL text, so after the first chunk the
+ * statement comes out of the connection's StatementCache.
+ */
+final class BulkWrites {
+
+    /** Bound parameters per statement: SQLITE_MAX_VARIABLE_NUMBER on builds before 3.32. */
+    static final int MAX_PARAMS = 999;
+
+    /** Binds one row's parameters, starting at index {@code first}. */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        void bind(PreparedStatement ps, int first, T row) throws SQLException;
+    }
+
+    private BulkWrites() {}
+
+    /**
+     * Inserts {@code rows} with {@code insertInto VALUES rowValues, rowValues, ... RETURNING id}
+     * and returns the new ids in the order of {@code rows}.
+     *
+     * @param rowValues    one row's placeholder tuple, e.g. "(?, ?, ?)"
+     * @param paramsPerRow number of ? in rowValues
+     */
+    static <T> List<Integer> insert(Connection conn, String insertInto, String rowValues, int paramsPerRow,
+                                    List<T> rows, RowBinder<? super T> binder) throws SQLException {
+        List<Integer> ids = new ArrayList<>(rows.size());
+        int perStatement = MAX_PARAMS / paramsPerRow;
+        for (int from = 0; from < rows.size(); from += perStatement) {
+            List<T> chunk = rows.subList(from, Math.min(rows.size(), from + perStatement));
+            String sql = insertInto + " VALUES " + repeat(rowValues, chunk.size()) + " RETURNING id";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int first = 1;
+                for (T row : chunk) {
+                    binder.bind(ps, first, row);
+                    first += paramsPerRow;
+                }
+                List<Integer> chunkIds = new ArrayList<>(chunk.size());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) chunkIds.add(rs.getInt(1));
+                }
+                // RETURNING order is unspecified, but rowids are handed out in VALUES order
+                Collections.sort(chunkIds);
+                ids.addAll(chunkIds);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Runs {@code update} (which ends in {@code WHERE id IN (%s)}) once per
+     * chunk of {@code ids}, after binding {@code leading} to the parameters
+     * before the id list. Returns the ids of the rows that were updated.
+     */
+    static List<Integer> updateByIds(Connection conn, String update, List<Integer> ids, Object... leading)
+            throws SQLException {
+        List<Integer> updated = new ArrayList<>(ids.size());
+        int perStatement = MAX_PARAMS - leading.length;
+        for (int from = 0; from < ids.size(); from += perStatement) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + perStatement));
+            String sql = update.formatted("?,".repeat(chunk.size() - 1) + "?") + " RETURNING id";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Object value : leading) ps.setObject(i++, value);
+                for (int id : chunk) ps.setInt(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) updated.add(rs.getInt(1));
+                }
+            }
+        }
+        return updated;
+    }
+
+    /** Ids grouped by the (non-null) value they are being set to, so each value is one IN-list update. */
+    static <V> Map<V, List<Integer>> byValue(Map<Integer, V> changes) {
+        return changes.entrySet().stream().collect(Collectors.groupingBy(
+                Map.Entry::getValue,
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+    }
+
+    private static String repeat(String tuple, int count) {
+        StringBuilder sb = new StringBuilder(count * (tuple.length() + 2));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(tuple);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,239 @@
+package com.badas.dao;
+
+import com.badas.event.CaseChanged;
+import com.badas.event.ChangeOp;
+import com.badas.event.DispatchChanged;
+import com.badas.event.EventBus;
+import com.badas.event.FeedResync;
+import com.badas.event.HospitalChanged;
+import com.badas.event.PatientChanged;
+import com.badas.event.UserChanged;
+import com.badas.model.DispatchRequest;
+import com.badas.model.EmergencyCase;
+import com.badas.model.Hospital;
+import com.badas.model.Patient;
+import com.badas.model.User;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Tails change_log and publishes typed change events on the EventBus.
+ *
+ * A daemon thread holds one dedicated connection and polls
+ * {@code PRAGMA data_version}, which changes whenever any other connection
+ * (this process's writer, or another workstation sharing badas.db) commits.
+ * Only then is change_log read. Entries are coalesced per row, the current
+ * rows are fetched in bulk, and one DispatchChanged / CaseChanged /
+ * PatientChanged / HospitalChanged / UserChanged event is published per
+ * changed row. Hospital and user changes first invalidate the DAOs'
+ * read-through caches, so a listener that re-reads sees the new row.
+ *
+ * Polling rather than sqlite3_update_hook: the hook only sees writes made
+ * through the same connection in the same process, and would tie this code
+ * to the driver's native API.
+ */
+public class ChangeFeed {
+
+    private static final long POLL_MILLIS  = 250;
+    private static final int  MAX_ENTRIES  = 5_000;      // change_log rows read per poll
+    private static final int  FETCH_CHUNK  = 500;        // ids per IN (...) lookup
+    private static final long RETENTION_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long PRUNE_EVERY_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ConnectionPool  source;
+    private final DatabaseManager db;
+    private final EventBus        bus = EventBus.getInstance();
+    private final Thread          thread;
+
+    // Created in start(): a DAO looks up DatabaseManager.getInstance(), which is
+    // still being constructed when this feed is
+    private DispatchDAO  dispatchDAO;
+    private EmergencyDAO emergencyDAO;
+    private PatientDAO   patientDAO;
+    private HospitalDAO  hospitalDAO;
+    private UserDAO      userDAO;
+
+    private volatile boolean running = true;
+    private long lastSeq;
+    private long lastDataVersion = -1;
+    private long lastPrune;
+
+    ChangeFeed(ConnectionPool source, DatabaseManager db) {
+        this.source = source;
+        this.db     = db;
+        this.thread = new Thread(this::loop, "badas-change-feed");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        dispatchDAO  = new DispatchDAO();
+        emergencyDAO = new EmergencyDAO();
+        patientDAO   = new PatientDAO();
+        hospitalDAO  = new HospitalDAO();
+        userDAO      = new UserDAO();
+        thread.start();
+    }
+
+    void shutdown() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Poll loop
+    // ─────────────────────────────────────────────
+
+    private void loop() {
+        try (Connection conn = source.borrow()) {
+            lastSeq = currentSeq(conn);
+            while (running) {
+                try {
+                    poll(conn);
+                } catch (SQLException e) {
+                    System.err.println("ChangeFeed.poll: " + e.getMessage());
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            // shutdown
+        } catch (SQLException e) {
+            System.err.println("ChangeFeed: could not open feed connection: " + e.getMessage());
+        }
+    }
+
+    private void poll(Connection conn) throws SQLException {
+        long version = dataVersion(conn);
+        if (version != lastDataVersion) {
+            lastDataVersion = version;
+            // Drain: a burst larger than MAX_ENTRIES is read over several queries
+            while (readEntries(conn)) { /* keep reading */ }
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastPrune > PRUNE_EVERY_MS) {
+            lastPrune = now;
+            prune(now - RETENTION_MS);
+        }
+    }
+
+    /** Reads and publishes the next batch; returns true if there may be more. */
+    private boolean readEntries(Connection conn) throws SQLException {
+        String sql = "SELECT seq, table_name, row_id, op FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+        // table -> (row id -> last op), in first-seen order
+        Map<String, LinkedHashMap<Integer, ChangeOp>> changes = new HashMap<>();
+        long firstSeq = -1;
+        int  count = 0;
+        long seq = lastSeq;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, lastSeq);
+            ps.setInt(2, MAX_ENTRIES);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    seq = rs.getLong(1);
+                    if (firstSeq < 0) firstSeq = seq;
+                    ChangeOp op = ChangeOp.fromCode(rs.getString(4));
+                    changes.computeIfAbsent(rs.getString(2), t -> new LinkedHashMap<>())
+                           .merge(rs.getInt(3), op, ChangeFeed::coalesce);
+                    count++;
+                }
+            }
+        }
+        if (count == 0) return false;
+
+        // seq is contiguous (one writer, AUTOINCREMENT), so a gap means pruned entries were missed
+        boolean missed = firstSeq > lastSeq + 1;
+        lastSeq = seq;
+        if (missed) {
+            HospitalDAO.invalidateAll();
+            UserDAO.invalidateAll();
+            bus.publish(new FeedResync());
+        } else {
+            publish(changes.get("dispatch_requests"), dispatchDAO::findByIds, DispatchRequest::getId,
+                    (op, id, row) -> new DispatchChanged(op, id, row));
+            publish(changes.get("emergency_cases"), emergencyDAO::findByIds, EmergencyCase::getId,
+                    (op, id, row) -> new CaseChanged(op, id, row));
+            publish(changes.get("patients"), patientDAO::findByIds, Patient::getId,
+                    (op, id, row) -> new PatientChanged(op, id, row));
+
+            LinkedHashMap<Integer, ChangeOp> hospitals = changes.get("hospitals");
+            if (hospitals != null) hospitals.keySet().forEach(HospitalDAO::invalidate);
+            publish(hospitals, hospitalDAO::findByIds, Hospital::getId,
+                    (op, id, row) -> new HospitalChanged(op, id, row));
+            if (changes.containsKey("users")) UserDAO.invalidateAll();
+            publish(changes.get("users"), userDAO::findByIds, User::getId,
+                    (op, id, row) -> new UserChanged(op, id, row));
+        }
+        return count == MAX_ENTRIES;
+    }
+
+    @FunctionalInterface
+    private interface EventFactory<T> {
+        Object create(ChangeOp op, int id, T row);
+    }
+
+    /** Fetches the current version of every changed row and publishes one event per row. */
+    private <T> void publish(LinkedHashMap<Integer, ChangeOp> ops,
+                             Function<List<Integer>, List<T>> fetch,
+                             Function<T, Integer> idOf,
+                             EventFactory<T> factory) {
+        if (ops == null) return;
+        List<Integer> live = new ArrayList<>();
+        ops.forEach((id, op) -> { if (op != ChangeOp.DELETE) live.add(id); });
+
+        Map<Integer, T> rows = new HashMap<>();
+        for (int i = 0; i < live.size(); i += FETCH_CHUNK) {
+            for (T row : fetch.apply(live.subList(i, Math.min(i + FETCH_CHUNK, live.size())))) {
+                rows.put(idOf.apply(row), row);
+            }
+        }
+        ops.forEach((id, op) -> {
+            T row = rows.get(id);
+            // A row inserted/updated and then deleted before we read it is a delete
+            bus.publish(factory.create(row == null ? ChangeOp.DELETE : op, id, row));
+        });
+    }
+
+    /** Net effect of two successive ops on the same row. */
+    private static ChangeOp coalesce(ChangeOp earlier, ChangeOp later) {
+        if (earlier == ChangeOp.INSERT && later == ChangeOp.UPDATE) return ChangeOp.INSERT;
+        return later;
+    }
+
+    private void prune(long olderThan) {
+        db.writeAsync(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM change_log WHERE changed_at < ?")) {
+                ps.setLong(1, olderThan);
+                return ps.executeUpdate();
+            }
+        }).exceptionally(e -> {
+            System.err.println("ChangeFeed.prune: " + e.getMessage());
+            return 0;
+        });
+    }
+
+    private static long dataVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA data_version")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /** Last seq ever assigned (survives pruning, unlike MAX(seq)); 0 if nothing was logged yet. */
+    private static long currentSeq(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT seq FROM sqlite_sequence WHERE name = 'change_log'")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
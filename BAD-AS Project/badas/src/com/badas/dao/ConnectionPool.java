@@ -0,0 +1,339 @@
+package com.badas.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of physical SQLite connections.
+ *
+ * Borrowed connections are thin proxies: calling close() hands the physical
+ * connection back to the pool instead of closing the database file, so the
+ * DAOs keep their usual try-with-resources pattern unchanged.
+ *
+ * Each physical connection gets its PRAGMAs applied exactly once, when it is
+ * opened. Idle connections are validated before reuse if they have been
+ * sitting in the pool for a while.
+ *
+ * Each physical connection also keeps a StatementCache: prepareStatement()
+ * on a borrowed connection hands out a cached statement for the same SQL
+ * when there is one, and closing that statement puts it back rather than
+ * finalizing it. Statements still open when the connection is closed are
+ * put back at that point.
+ */
+public class ConnectionPool {
+
+    /** Snapshot of pool counters for diagnostics. */
+    public record PoolStats(String name, int maxSize, int active, int idle, int opened,
+                            long borrows, double avgWaitMillis, double maxWaitMillis,
+                            long validationFailures,
+                            long statementHits, long statementMisses, long statementEvictions) {
+
+        /** Share of prepareStatement() calls served from the cache, 0..1. */
+        public double statementHitRatio() {
+            long total = statementHits + statementMisses;
+            return total == 0 ? 0 : statementHits / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s pool: active=%d idle=%d opened=%d/%d borrows=%d avgWait=%.3fms maxWait=%.3fms invalid=%d"
+                    + " stmtCache: hits=%d misses=%d (%.1f%%) evicted=%d",
+                    name, active, idle, opened, maxSize, borrows, avgWaitMillis, maxWaitMillis, validationFailures,
+                    statementHits, statementMisses, statementHitRatio() * 100, statementEvictions);
+        }
+    }
+
+    private static final long VALIDATE_AFTER_IDLE_MS = 5_000;
+    private static final int  VALIDATION_TIMEOUT_SEC = 2;
+
+    private final String       name;
+    private final String       url;
+    private final int          maxSize;
+    private final long         borrowTimeoutMs;
+    private final List<String> pragmas;
+    private final int          statementCacheSize;
+
+    private final LinkedBlockingDeque<IdleEntry> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder     borrows = new LongAdder();
+    private final LongAdder     totalWaitNanos = new LongAdder();
+    private final AtomicLong    maxWaitNanos = new AtomicLong();
+    private final LongAdder     validationFailures = new LongAdder();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private volatile boolean closed;
+
+    /** A physical connection and the statements prepared on it. */
+    private record Physical(Connection conn, StatementCache statements) {}
+
+    private record IdleEntry(Physical physical, long returnedAt) {}
+
+    /**
+     * @param statementCacheSize prepared statements kept open per connection; 0 disables the cache
+     */
+    public ConnectionPool(String name, String url, int maxSize, long borrowTimeoutMs, List<String> pragmas,
+                          int statementCacheSize) {
+        this.name = name;
+        this.url = url;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.pragmas = List.copyOf(pragmas);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection, blocking up to the borrow timeout if all
+     * connections are in use. Caller must close it to return it.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool '" + name + "' is shut down");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMs
+                        + " ms waiting for a connection from pool '" + name + "'");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            Physical physical = takeIdle();
+            if (physical == null) physical = open();
+            recordWait(System.nanoTime() - start);
+            active.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats stats() {
+        long count = borrows.sum();
+        double avg = count == 0 ? 0 : totalWaitNanos.sum() / (double) count / 1_000_000.0;
+        return new PoolStats(name, maxSize, active.get(), idle.size(), opened.get(),
+                count, avg, maxWaitNanos.get() / 1_000_000.0, validationFailures.sum(),
+                statementCounters.hits().sum(), statementCounters.misses().sum(),
+                statementCounters.evictions().sum());
+    }
+
+    /** Closes every idle connection; borrowed ones are closed as they come back. */
+    public void shutdown() {
+        closed = true;
+        IdleEntry e;
+        while ((e = idle.poll()) != null) closePhysical(e.physical());
+    }
+
+    // ─────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────
+
+    private Physical takeIdle() {
+        IdleEntry e;
+        while ((e = idle.pollFirst()) != null) {
+            if (isUsable(e)) return e.physical();
+            validationFailures.increment();
+            discard(e.physical());
+        }
+        return null;
+    }
+
+    private boolean isUsable(IdleEntry e) {
+        try {
+            Connection conn = e.physical().conn();
+            if (conn.isClosed()) return false;
+            if (System.currentTimeMillis() - e.returnedAt() < VALIDATE_AFTER_IDLE_MS) return true;
+            return conn.isValid(VALIDATION_TIMEOUT_SEC);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private Physical open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : pragmas) stmt.execute(pragma);
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+        opened.incrementAndGet();
+        return new Physical(conn, new StatementCache(conn, statementCacheSize, statementCounters));
+    }
+
+    private void release(Physical physical) {
+        active.decrementAndGet();
+        try {
+            Connection conn = physical.conn();
+            if (closed || conn.isClosed()) {
+                discard(physical);
+                return;
+            }
+            if (!conn.getAutoCommit()) {
+                // Never hand out a connection with a half-finished transaction
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            // LIFO reuse keeps the hottest connections (and their page caches) busy
+            idle.offerFirst(new IdleEntry(physical, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Physical physical) {
+        opened.decrementAndGet();
+        closePhysical(physical);
+    }
+
+    private static void closePhysical(Physical physical) {
+        physical.statements().closeAll();
+        closeQuietly(physical.conn());
+    }
+
+    private void recordWait(long nanos) {
+        borrows.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection c) {
+        try { c.close(); } catch (SQLException ignored) { }
+    }
+
+    private Connection wrap(Physical physical) {
+        PooledConnectionHandler handler = new PooledConnectionHandler(physical);
+        handler.proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{ Connection.class },
+                handler);
+        return handler.proxy;
+    }
+
+    /**
+     * Routes close() back to the pool, serves prepareStatement() from the
+     * connection's statement cache and blocks use after logical close.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Physical physical;
+        private final List<CachedStatementHandler> checkedOut = new ArrayList<>();
+        private Connection proxy;
+        private boolean released;
+
+        PooledConnectionHandler(Physical physical) { this.physical = physical; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!released) {
+                        // Statements the caller left open go back before the connection does
+                        for (CachedStatementHandler s : List.copyOf(checkedOut)) s.giveBack();
+                        released = true;
+                        release(physical);
+                    }
+                    return null;
+                }
+                case "isClosed" -> { return released || physical.conn().isClosed(); }
+                case "equals"   -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return "Pooled[" + name + "]" + physical.conn(); }
+                default -> {
+                    if (released) throw new SQLException("Connection has already been returned to the pool");
+                }
+            }
+            if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                if (args.length == 1) return checkOut(new StatementCache.Key(sql, Statement.NO_GENERATED_KEYS));
+                if (args.length == 2 && args[1] instanceof Integer keys) return checkOut(new StatementCache.Key(sql, keys));
+            }
+            try {
+                return method.invoke(physical.conn(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private PreparedStatement checkOut(StatementCache.Key key) throws SQLException {
+            CachedStatementHandler handler = new CachedStatementHandler(this, key, physical.statements().take(key));
+            checkedOut.add(handler);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{ PreparedStatement.class },
+                    handler);
+        }
+    }
+
+    /**
+     * A statement lent out of the cache. close() closes any result set it
+     * produced and puts the statement back instead of finalizing it.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+        private final PooledConnectionHandler owner;
+        private final StatementCache.Key key;
+        private final PreparedStatement statement;
+        private ResultSet lastResult;
+        private boolean returned;
+
+        CachedStatementHandler(PooledConnectionHandler owner, StatementCache.Key key, PreparedStatement statement) {
+            this.owner = owner;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    giveBack();
+                    return null;
+                }
+                case "isClosed"      -> { return returned || statement.isClosed(); }
+                case "getConnection" -> { return owner.proxy; }
+                case "equals"        -> { return proxy == args[0]; }
+                case "hashCode"      -> { return System.identityHashCode(proxy); }
+                case "toString"      -> { return "Cached[" + key.sql() + "]"; }
+                default -> {
+                    if (returned) throw new SQLException("Statement has already been closed");
+                }
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet rs) lastResult = rs;
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void giveBack() {
+            if (returned) return;
+            returned = true;
+            owner.checkedOut.remove(this);
+            if (lastResult != null) {
+                // Resets the statement, so an idle read connection holds no snapshot open
+                try { lastResult.close(); } catch (SQLException ignored) { }
+            }
+            owner.physical.statements().giveBack(key, statement);
+        }
+    }
+}
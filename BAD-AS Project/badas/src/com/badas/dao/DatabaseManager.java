@@ -4,21 +4,63 @@ import com.badas.util.SecurityUtils;
 
 import java.io.File;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Singleton that manages the SQLite connection, schema creation, and seed data.
+ * Singleton that manages SQLite access, schema creation, and seed data.
  * Database file: badas.db in the project root (user.dir).
+ *
+ * Access model:
+ *   - reads  → getReadConnection(), a pool of query_only connections
+ *   - writes → write(work), serialized and group-committed on one writer thread
+ *   - getConnection() remains for setup work (schema, seeding)
+ *   - committed changes to dispatches, cases and patients are published as
+ *     events by the ChangeFeed (see com.badas.event)
  */
 public class DatabaseManager {
 
     private static DatabaseManager instance;
 
+    private static final int  POOL_SIZE         = 2;
+    private static final int  READ_POOL_SIZE    = 8;
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+    /** Prepared statements kept per connection — more than the distinct SQL of a typical session. */
+    private static final int  STATEMENT_CACHE_SIZE = 64;
+
+    /** Applied once to every physical connection when the pool opens it. */
+    private static final List<String> CONNECTION_PRAGMAS = List.of(
+        "PRAGMA journal_mode = WAL",
+        "PRAGMA synchronous = NORMAL",
+        "PRAGMA busy_timeout = 5000",
+        "PRAGMA temp_store = MEMORY",
+        "PRAGMA cache_size = -8000"
+    );
+
     private final String dbPath;
     private final String dbUrl;
+    private final ConnectionPool pool;
+    private final ConnectionPool readPool;
+    private final ConnectionPool writerPool;
+    private final WriteExecutor  writer;
+    private final WriteBehindQueue writeBehind;
+    private final ConnectionPool feedPool;
+    private final ChangeFeed     changeFeed;
 
     private DatabaseManager() {
         dbPath = System.getProperty("user.dir") + File.separator + "badas.db";
         dbUrl  = "jdbc:sqlite:" + dbPath;
+        pool   = new ConnectionPool("main", dbUrl, POOL_SIZE, BORROW_TIMEOUT_MS, CONNECTION_PRAGMAS, STATEMENT_CACHE_SIZE);
+
+        List<String> readPragmas = new ArrayList<>(CONNECTION_PRAGMAS);
+        readPragmas.add("PRAGMA query_only = ON");
+        readPool   = new ConnectionPool("read", dbUrl, READ_POOL_SIZE, BORROW_TIMEOUT_MS, readPragmas, STATEMENT_CACHE_SIZE);
+        writerPool = new ConnectionPool("writer", dbUrl, 1, BORROW_TIMEOUT_MS, CONNECTION_PRAGMAS, STATEMENT_CACHE_SIZE);
+        writer     = new WriteExecutor(writerPool);
+        writeBehind = new WriteBehindQueue(writer);
+        feedPool   = new ConnectionPool("feed", dbUrl, 1, BORROW_TIMEOUT_MS, readPragmas, STATEMENT_CACHE_SIZE);
+        changeFeed = new ChangeFeed(feedPool, this);
     }
 
     public static synchronized DatabaseManager getInstance() {
@@ -28,12 +70,86 @@ public class DatabaseManager {
         return instance;
     }
 
-    /** Returns a fresh JDBC connection. Caller must close it. */
+    /**
+     * Borrows a pooled JDBC connection. Caller must close it, which returns
+     * it to the pool rather than closing the database file.
+     */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(dbUrl);
+        return pool.borrow();
+    }
+
+    /** Borrows a read-only pooled connection for queries. Caller must close it. */
+    public Connection getReadConnection() throws SQLException {
+        return readPool.borrow();
+    }
+
+    /**
+     * Runs a mutation on the single writer thread and waits until the
+     * group commit containing it has finished. Returns the work's result.
+     */
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        return writer.execute(work);
     }
 
-    /** Creates all tables (if not exist) and seeds default data. */
+    /**
+     * Queues a mutation without waiting. The future completes once its group
+     * commit has finished, or exceptionally if the work or the commit failed.
+     */
+    public <T> CompletableFuture<T> writeAsync(SqlWork<T> work) {
+        return writer.submit(work);
+    }
+
+    /**
+     * Queues a write nobody needs to wait for (last-login times and the
+     * like) under {@code key}. A later write under the same key replaces it
+     * if it has not been flushed yet; pending writes are committed within a
+     * couple of seconds and at shutdown.
+     */
+    public void writeBehind(String key, SqlWork<?> work) {
+        writeBehind.put(key, work);
+    }
+
+    /** Current pool counters (borrow wait time, active/idle counts, statement cache hits) for every pool. */
+    public List<ConnectionPool.PoolStats> getPoolStats() {
+        return List.of(pool.stats(), readPool.stats(), writerPool.stats(), feedPool.stats());
+    }
+
+    /** Writer queue and group-commit counters. */
+    public WriteExecutor.Stats getWriterStats() {
+        return writer.stats();
+    }
+
+    /** Read-through cache counters (hit ratio, average load time) for hospitals, users and geocodes. */
+    public List<ReadThroughCache.Stats> getCacheStats() {
+        List<ReadThroughCache.Stats> stats = new ArrayList<>(HospitalDAO.cacheStats());
+        stats.addAll(UserDAO.cacheStats());
+        stats.addAll(GeocodeDAO.cacheStats());
+        return stats;
+    }
+
+    /** Ambulance ledger counters (reservations, releases, rejections, reconciliation drift). */
+    public AmbulanceLedger.Stats getLedgerStats() {
+        return AmbulanceLedger.getInstance().stats();
+    }
+
+    /** Write-behind queue counters (queued, coalesced, flushed). */
+    public WriteBehindQueue.Stats getWriteBehindStats() {
+        return writeBehind.stats();
+    }
+
+    /** Drains pending writes, then closes all pooled connections. Called once on exit. */
+    public void shutdown() {
+        AmbulanceLedger.getInstance().shutdown();
+        changeFeed.shutdown();
+        feedPool.shutdown();
+        writeBehind.shutdown();
+        writer.shutdown();
+        writerPool.shutdown();
+        readPool.shutdown();
+        pool.shutdown();
+    }
+
+    /** Migrates the schema to the latest version and seeds default data. */
     public void initialize() {
         try {
             // Ensure the SQLite JDBC driver is loaded
@@ -46,6 +162,8 @@ public class DatabaseManager {
 
         createTables();
         seedData();
+        changeFeed.start();
+        AmbulanceLedger.getInstance().start();
     }
 
     // ─────────────────────────────────────────────
@@ -53,87 +171,8 @@ public class DatabaseManager {
     // ─────────────────────────────────────────────
 
     private void createTables() {
-        String[] ddl = {
-            // Users
-            """
-            CREATE TABLE IF NOT EXISTS users (
-                id            INTEGER PRIMARY KEY AUTOINCREMENT,
-                username      TEXT NOT NULL UNIQUE,
-                password_hash TEXT NOT NULL,
-                role          TEXT NOT NULL,
-                created_at    TEXT DEFAULT (datetime('now', 'localtime')),
-                last_login    TEXT
-            )
-            """,
-            // Patients
-            """
-            CREATE TABLE IF NOT EXISTS patients (
-                id            INTEGER PRIMARY KEY AUTOINCREMENT,
-                name          TEXT NOT NULL,
-                age           INTEGER NOT NULL CHECK(age >= 0 AND age <= 150),
-                contact       TEXT,
-                symptoms      TEXT,
-                diagnosis     TEXT DEFAULT 'Pending',
-                prescription  TEXT DEFAULT '',
-                status        TEXT DEFAULT 'Registered',
-                registered_by TEXT,
-                registered_at TEXT DEFAULT (datetime('now', 'localtime')),
-                updated_at    TEXT DEFAULT (datetime('now', 'localtime'))
-            )
-            """,
-            // Hospitals
-            """
-            CREATE TABLE IF NOT EXISTS hospitals (
-                id                   INTEGER PRIMARY KEY AUTOINCREMENT,
-                name                 TEXT NOT NULL,
-                location             TEXT NOT NULL,
-                ambulance_count      INTEGER DEFAULT 0 CHECK(ambulance_count >= 0),
-                available_ambulances INTEGER DEFAULT 0,
-                contact              TEXT DEFAULT '',
-                created_at           TEXT DEFAULT (datetime('now', 'localtime')),
-                updated_at           TEXT DEFAULT (datetime('now', 'localtime'))
-            )
-            """,
-            // Dispatch requests
-            """
-            CREATE TABLE IF NOT EXISTS dispatch_requests (
-                id                INTEGER PRIMARY KEY AUTOINCREMENT,
-                patient_name      TEXT NOT NULL,
-                patient_id        INTEGER,
-                location          TEXT NOT NULL,
-                symptoms          TEXT,
-                ambulance_type    TEXT,
-                severity          TEXT,
-                hospital_assigned TEXT DEFAULT '',
-                status            TEXT DEFAULT 'Pending',
-                dispatched_by     TEXT,
-                created_at        TEXT DEFAULT (datetime('now', 'localtime')),
-                updated_at        TEXT DEFAULT (datetime('now', 'localtime')),
-                FOREIGN KEY (patient_id) REFERENCES patients(id)
-            )
-            """,
-            // Emergency cases
-            """
-            CREATE TABLE IF NOT EXISTS emergency_cases (
-                id                INTEGER PRIMARY KEY AUTOINCREMENT,
-                patient_name      TEXT NOT NULL,
-                location          TEXT NOT NULL,
-                symptoms          TEXT,
-                emergency_level   TEXT NOT NULL,
-                status            TEXT DEFAULT 'Active',
-                assigned_resources TEXT DEFAULT '',
-                coordinator       TEXT,
-                created_at        TEXT DEFAULT (datetime('now', 'localtime')),
-                updated_at        TEXT DEFAULT (datetime('now', 'localtime'))
-            )
-            """
-        };
-
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            for (String sql : ddl) {
-                stmt.execute(sql);
-            }
+        try (Connection conn = getConnection()) {
+            new SchemaMigrator(Migrations.all()).migrate(conn);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create database tables: " + e.getMessage(), e);
         }
@@ -264,7 +303,10 @@ public class DatabaseManager {
             {"Darshan Patil", "25", "617-555-0106", "Bleeding",                "Pending", "Registered"}
         };
 
-        String sql = "INSERT INTO patients (name, age, contact, symptoms, diagnosis, status) VALUES (?, ?, ?, ?, ?, ?)";
+        String sql = """
+            INSERT INTO patients (name, age, contact, symptoms, diagnosis, status_id)
+            VALUES (?, ?, ?, ?, ?, (SELECT id FROM patient_statuses WHERE label = ?))
+            """;
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             for (String[] p : patients) {
@@ -300,7 +342,10 @@ public class DatabaseManager {
             {"Charlie White", "654 Maple Dr",  "Severe Headache",        "Severe",   "Active"}
         };
 
-        String sql = "INSERT INTO emergency_cases (patient_name, location, symptoms, emergency_level, status) VALUES (?, ?, ?, ?, ?)";
+        String sql = """
+            INSERT INTO emergency_cases (patient_name, location, symptoms, emergency_level_id, status)
+            VALUES (?, ?, ?, (SELECT id FROM emergency_levels WHERE label = ?), ?)
+            """;
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             for (String[] c : cases) {
@@ -1,21 +1,49 @@
 package com.badas.dao;
 
+import com.badas.model.AmbulanceType;
 import com.badas.model.DispatchRequest;
+import com.badas.model.DispatchStatus;
+import com.badas.model.Severity;
+import com.badas.util.Timestamps;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class DispatchDAO {
 
+    /** Every column, in the order fill() reads them by position. */
+    private static final String COLUMNS =
+        "id, patient_name, patient_id, location, symptoms, ambulance_type_id, severity_id,"
+        + " hospital_assigned, status_id, dispatched_by, created_at, updated_at, hospital_id, latitude, longitude";
+
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM dispatch_requests ORDER BY created_at DESC";
+
+    /** INSERT shared by save() and saveAll(); bindInsert() fills one row's INSERT_PARAMS values. */
+    private static final String INSERT_INTO = """
+        INSERT INTO dispatch_requests
+          (patient_name, patient_id, location, symptoms, ambulance_type_id, severity_id, hospital_assigned,
+           status_id, dispatched_by, hospital_id, latitude, longitude)""";
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int    INSERT_PARAMS = 12;
+
+    /** A write's result plus the ambulance units it moved, for AmbulanceLedger.committed(). */
+    private record Ledgered<T>(T result, Map<Integer, Integer> units, Map<Integer, Integer> left) {}
+
     private final DatabaseManager db = DatabaseManager.getInstance();
+    private final AmbulanceLedger ledger = AmbulanceLedger.getInstance();
+    private final RowCursor<DispatchRequest> cursor = new RowCursor<>(db, SELECT_ALL, DispatchRequest::new, this::fill);
 
     public List<DispatchRequest> findAll() {
         List<DispatchRequest> list = new ArrayList<>();
-        String sql = "SELECT * FROM dispatch_requests ORDER BY created_at DESC";
-        try (Connection conn = db.getConnection();
+        try (Connection conn = db.getReadConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next()) list.add(mapRow(rs));
         } catch (SQLException e) {
             System.err.println("DispatchDAO.findAll: " + e.getMessage());
@@ -23,9 +51,117 @@ public class DispatchDAO {
         return list;
     }
 
+    /**
+     * Calls {@code action} for every dispatch in findAll() order, reading
+     * through one open cursor instead of building a list. Returns false if
+     * the read failed part-way (the error is logged).
+     */
+    public boolean forEach(Consumer<? super DispatchRequest> action) {
+        return forEach(RowCursor.DEFAULT_FETCH_SIZE, false, action);
+    }
+
+    /**
+     * As forEach(action), with an explicit driver fetch size. With
+     * {@code reuseRow} a single DispatchRequest is refilled for every row; the action
+     * must not keep a reference to it.
+     */
+    public boolean forEach(int fetchSize, boolean reuseRow, Consumer<? super DispatchRequest> action) {
+        try {
+            cursor.forEach(fetchSize, reuseRow, action);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.forEach: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Lazy stream in findAll() order. Close it (try-with-resources) to give the connection back. */
+    public Stream<DispatchRequest> stream() {
+        return stream(RowCursor.DEFAULT_FETCH_SIZE);
+    }
+
+    public Stream<DispatchRequest> stream(int fetchSize) {
+        try {
+            return cursor.stream(fetchSize);
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.stream: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Keyset page in findAll() order (newest first). Pass null / 0 for the
+     * first page, then the createdAt and id of the last row already shown.
+     */
+    public List<DispatchRequest> findPage(Long afterCreatedAt, int afterId, int limit) {
+        List<DispatchRequest> list = new ArrayList<>(limit);
+        String sql = afterCreatedAt == null
+            ? "SELECT " + COLUMNS + " FROM dispatch_requests ORDER BY created_at DESC, id DESC LIMIT ?"
+            : "SELECT " + COLUMNS + " FROM dispatch_requests WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCreatedAt != null) {
+                ps.setLong(i++, afterCreatedAt);
+                ps.setInt(i++, afterId);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.findPage: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Keyset page of every dispatch that is no longer Pending, newest first
+     * — the part of the Active Dispatches view below the pending queue.
+     */
+    public List<DispatchRequest> findHistoryPage(Long afterCreatedAt, int afterId, int limit) {
+        List<DispatchRequest> list = new ArrayList<>(limit);
+        String sql = afterCreatedAt == null
+            ? "SELECT " + COLUMNS + " FROM dispatch_requests WHERE status_id <> ? ORDER BY created_at DESC, id DESC LIMIT ?"
+            : "SELECT " + COLUMNS + " FROM dispatch_requests WHERE status_id <> ? AND (created_at, id) < (?, ?)"
+              + " ORDER BY created_at DESC, id DESC LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            ps.setInt(i++, DispatchStatus.PENDING.code());
+            if (afterCreatedAt != null) {
+                ps.setLong(i++, afterCreatedAt);
+                ps.setInt(i++, afterId);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.findHistoryPage: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /** Every Pending dispatch, oldest first; null if the read failed. */
+    public List<DispatchRequest> findPending() {
+        List<DispatchRequest> list = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM dispatch_requests WHERE status_id = "
+                   + DispatchStatus.PENDING.code() + " ORDER BY created_at, id";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) list.add(mapRow(rs));
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.findPending: " + e.getMessage());
+            return null;
+        }
+        return list;
+    }
+
     public DispatchRequest findById(int id) {
-        String sql = "SELECT * FROM dispatch_requests WHERE id = ?";
-        try (Connection conn = db.getConnection();
+        String sql = "SELECT " + COLUMNS + " FROM dispatch_requests WHERE id = ?";
+        try (Connection conn = db.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -37,78 +173,284 @@ public class DispatchDAO {
         return null;
     }
 
-    public int save(DispatchRequest req) {
-        String sql = """
-            INSERT INTO dispatch_requests
-              (patient_name, patient_id, location, symptoms, ambulance_type, severity, hospital_assigned, status, dispatched_by)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, req.getPatientName());
-            if (req.getPatientId() != null) ps.setInt(2, req.getPatientId());
-            else ps.setNull(2, Types.INTEGER);
-            ps.setString(3, req.getLocation());
-            ps.setString(4, req.getSymptoms());
-            ps.setString(5, req.getAmbulanceType());
-            ps.setString(6, req.getSeverity());
-            ps.setString(7, req.getHospitalAssigned() == null ? "" : req.getHospitalAssigned());
-            ps.setString(8, req.getStatus() == null ? "Pending" : req.getStatus());
-            ps.setString(9, req.getDispatchedBy());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getInt(1);
+    /** Rows with the given ids (in no particular order); missing ids are skipped. */
+    public List<DispatchRequest> findByIds(Collection<Integer> ids) {
+        List<DispatchRequest> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) return list;
+        String sql = "SELECT " + COLUMNS + " FROM dispatch_requests WHERE id IN (" + "?,".repeat(ids.size() - 1) + "?)";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (int id : ids) ps.setInt(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
             }
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.findByIds: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Rows inserted or updated after (sinceUpdatedAt, afterId), oldest change
+     * first. Pass the updated_at and id of the last row already merged to
+     * continue; 0 starts from the beginning. Deletes are not
+     * visible here.
+     */
+    public List<DispatchRequest> findChangedSince(long sinceUpdatedAt, int afterId, int limit) {
+        List<DispatchRequest> list = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM dispatch_requests WHERE (updated_at, id) > (?, ?) ORDER BY updated_at, id LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, sinceUpdatedAt);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.findChangedSince: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /** Newest updated_at in the table, or 0 if it is empty. */
+    public long latestUpdatedAt() {
+        String sql = "SELECT MAX(updated_at) FROM dispatch_requests";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) return rs.getLong(1);
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.latestUpdatedAt: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Inserts the request and returns its id, or -1 if it was not saved. A
+     * Pending or Dispatched request with a hospital id takes one of that
+     * hospital's ambulances in the same write; if none is left nothing is
+     * saved and -1 is returned.
+     */
+    public int save(DispatchRequest req) {
+        String sql = INSERT_INTO + " VALUES " + INSERT_VALUES;
+        try {
+            Ledgered<Integer> done = db.write(conn -> {
+                Map<Integer, Integer> units = reservations(List.of(req));
+                Map<Integer, Integer> left = ledger.apply(conn, units);
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsert(ps, 1, req);
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        return new Ledgered<>(rs.next() ? rs.getInt(1) : -1, units, left);
+                    }
+                }
+            });
+            return committed(done);
         } catch (SQLException e) {
             System.err.println("DispatchDAO.save: " + e.getMessage());
         }
         return -1;
     }
 
-    public boolean updateStatus(int id, String status) {
+    /**
+     * Saves all the requests in one write — one transaction and one commit
+     * — using multi-row INSERTs. Returns the new ids in list order, or null
+     * if the write failed, in which case none of them was saved. Ambulances
+     * are reserved as in save(); if any hospital runs out, the whole batch
+     * fails.
+     */
+    public BulkResult saveAll(List<DispatchRequest> requests) {
+        long start = System.nanoTime();
+        try {
+            Ledgered<List<Integer>> done = db.write(conn -> {
+                Map<Integer, Integer> units = reservations(requests);
+                Map<Integer, Integer> left = ledger.apply(conn, units);
+                List<Integer> ids = BulkWrites.insert(conn, INSERT_INTO, INSERT_VALUES, INSERT_PARAMS,
+                                                      requests, this::bindInsert);
+                return new Ledgered<>(ids, units, left);
+            });
+            return new BulkResult(committed(done), System.nanoTime() - start);
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.saveAll: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sets the status and returns the updated row, or null if it no longer
+     * exists or the write failed. Moving a dispatch with a hospital id out of
+     * Pending/Dispatched gives its ambulance back; moving it back in takes
+     * one again, and fails if the hospital has none left.
+     */
+    public DispatchRequest updateStatus(int id, DispatchStatus status) {
         String sql = """
             UPDATE dispatch_requests
-            SET status = ?, updated_at = datetime('now','localtime')
+            SET status_id = ?, updated_at = ?
             WHERE id = ?
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, id);
-            return ps.executeUpdate() > 0;
+            RETURNING %s
+            """.formatted(COLUMNS);
+        try {
+            Ledgered<DispatchRequest> done = db.write(conn -> {
+                Map<Integer, Integer> units = unitsMoved(conn, List.of(id), status);
+                Map<Integer, Integer> left = ledger.apply(conn, units);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, status.code());
+                    ps.setLong(2, Timestamps.now());
+                    ps.setInt(3, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return new Ledgered<>(rs.next() ? mapRow(rs) : null, units, left);
+                    }
+                }
+            });
+            return committed(done);
         } catch (SQLException e) {
             System.err.println("DispatchDAO.updateStatus: " + e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Sets the status of every dispatch in the map (id → non-null status) in
+     * one write, with one UPDATE per distinct status. Returns the ids that
+     * were updated, or null if the write failed and nothing changed.
+     * Ambulances are taken and given back as in updateStatus().
+     */
+    public BulkResult updateStatusAll(Map<Integer, DispatchStatus> statuses) {
+        String sql = """
+            UPDATE dispatch_requests
+            SET status_id = ?, updated_at = ?
+            WHERE id IN (%s)""";
+        long start = System.nanoTime();
+        try {
+            Ledgered<List<Integer>> done = db.write(conn -> {
+                long now = Timestamps.now();
+                Map<DispatchStatus, List<Integer>> groups = BulkWrites.byValue(statuses);
+                Map<Integer, Integer> units = new HashMap<>();
+                for (Map.Entry<DispatchStatus, List<Integer>> group : groups.entrySet()) {
+                    unitsMoved(conn, group.getValue(), group.getKey()).forEach((h, n) -> units.merge(h, n, Integer::sum));
+                }
+                Map<Integer, Integer> left = ledger.apply(conn, units);
+                List<Integer> updated = new ArrayList<>(statuses.size());
+                for (Map.Entry<DispatchStatus, List<Integer>> group : groups.entrySet()) {
+                    updated.addAll(BulkWrites.updateByIds(conn, sql, group.getValue(), group.getKey().code(), now));
+                }
+                return new Ledgered<>(updated, units, left);
+            });
+            return new BulkResult(committed(done), System.nanoTime() - start);
+        } catch (SQLException e) {
+            System.err.println("DispatchDAO.updateStatusAll: " + e.getMessage());
+            return null;
         }
     }
 
+    /** Deletes the dispatch, giving back the ambulance it held, if any. */
     public boolean delete(int id) {
         String sql = "DELETE FROM dispatch_requests WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            Ledgered<Boolean> done = db.write(conn -> {
+                Map<Integer, Integer> units = unitsMoved(conn, List.of(id), null);
+                Map<Integer, Integer> left = ledger.apply(conn, units);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    return new Ledgered<>(ps.executeUpdate() > 0, units, left);
+                }
+            });
+            return committed(done);
         } catch (SQLException e) {
             System.err.println("DispatchDAO.delete: " + e.getMessage());
             return false;
         }
     }
 
+    // ─── Ambulance ledger ───────────────────────────────────────────────────
+
+    /** Units the new rows take: one per Pending/Dispatched request with a hospital id. */
+    private static Map<Integer, Integer> reservations(List<DispatchRequest> rows) {
+        Map<Integer, Integer> units = new HashMap<>();
+        for (DispatchRequest req : rows) {
+            DispatchStatus status = req.getStatus() == null ? DispatchStatus.PENDING : req.getStatus();
+            if (req.getHospitalId() != null && AmbulanceLedger.holdsUnit(status)) {
+                units.merge(req.getHospitalId(), -1, Integer::sum);
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Units that move when the given dispatches go to {@code target} (null
+     * when they are being deleted): +1 per hospital for each one that stops
+     * holding a unit, -1 for each one that starts. Read on the writer's
+     * connection, so it sees the rows exactly as the update will.
+     */
+    private static Map<Integer, Integer> unitsMoved(Connection conn, List<Integer> ids, DispatchStatus target)
+            throws SQLException {
+        Map<Integer, Integer> units = new HashMap<>();
+        boolean holdsAfter = target != null && AmbulanceLedger.holdsUnit(target);
+        for (int from = 0; from < ids.size(); from += BulkWrites.MAX_PARAMS) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + BulkWrites.MAX_PARAMS));
+            String sql = "SELECT status_id, hospital_id FROM dispatch_requests"
+                       + " WHERE hospital_id IS NOT NULL AND id IN (" + "?,".repeat(chunk.size() - 1) + "?)";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (int id : chunk) ps.setInt(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        boolean holds = AmbulanceLedger.holdsUnit(DispatchStatus.fromCode(rs.getInt(1)));
+                        if (holds != holdsAfter) units.merge(rs.getInt(2), holds ? 1 : -1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return units;
+    }
+
+    /** Publishes a committed write's ledger changes and returns its result. */
+    private <T> T committed(Ledgered<T> done) {
+        ledger.committed(done.units(), done.left());
+        return done.result();
+    }
+
+    private void bindInsert(PreparedStatement ps, int first, DispatchRequest req) throws SQLException {
+        ps.setString(first, req.getPatientName());
+        if (req.getPatientId() != null) ps.setInt(first + 1, req.getPatientId());
+        else ps.setNull(first + 1, Types.INTEGER);
+        ps.setString(first + 2, req.getLocation());
+        ps.setString(first + 3, req.getSymptoms());
+        Lookups.bind(ps, first + 4, req.getAmbulanceType());
+        Lookups.bind(ps, first + 5, req.getSeverity());
+        ps.setString(first + 6, req.getHospitalAssigned() == null ? "" : req.getHospitalAssigned());
+        Lookups.bind(ps, first + 7, req.getStatus() == null ? DispatchStatus.PENDING : req.getStatus());
+        ps.setString(first + 8, req.getDispatchedBy());
+        if (req.getHospitalId() != null) ps.setInt(first + 9, req.getHospitalId());
+        else ps.setNull(first + 9, Types.INTEGER);
+        HospitalDAO.bindPosition(ps, first + 10, req.getPosition());
+    }
+
     private DispatchRequest mapRow(ResultSet rs) throws SQLException {
         DispatchRequest req = new DispatchRequest();
-        req.setId(rs.getInt("id"));
-        req.setPatientName(rs.getString("patient_name"));
-        int pid = rs.getInt("patient_id");
-        if (!rs.wasNull()) req.setPatientId(pid);
-        req.setLocation(rs.getString("location"));
-        req.setSymptoms(rs.getString("symptoms"));
-        req.setAmbulanceType(rs.getString("ambulance_type"));
-        req.setSeverity(rs.getString("severity"));
-        req.setHospitalAssigned(rs.getString("hospital_assigned"));
-        req.setStatus(rs.getString("status"));
-        req.setDispatchedBy(rs.getString("dispatched_by"));
-        req.setCreatedAt(rs.getString("created_at"));
-        req.setUpdatedAt(rs.getString("updated_at"));
+        fill(rs, req);
         return req;
     }
+
+    /** Sets every field from the current row, so a reused object carries nothing over. */
+    private void fill(ResultSet rs, DispatchRequest req) throws SQLException {
+        req.setId(rs.getInt(1));
+        req.setPatientName(rs.getString(2));
+        int pid = rs.getInt(3);
+        req.setPatientId(rs.wasNull() ? null : pid);
+        req.setLocation(rs.getString(4));
+        req.setSymptoms(rs.getString(5));
+        req.setAmbulanceType(Lookups.read(rs, 6, AmbulanceType::fromCode));
+        req.setSeverity(Lookups.read(rs, 7, Severity::fromCode));
+        req.setHospitalAssigned(rs.getString(8));
+        req.setStatus(Lookups.read(rs, 9, DispatchStatus::fromCode));
+        req.setDispatchedBy(rs.getString(10));
+        req.setCreatedAt(rs.getLong(11));
+        req.setUpdatedAt(rs.getLong(12));
+        int hid = rs.getInt(13);
+        req.setHospitalId(rs.wasNull() ? null : hid);
+        req.setPosition(HospitalDAO.readPosition(rs, 14));
+    }
 }
@@ -1,21 +1,41 @@
 package com.badas.dao;
 
 import com.badas.model.EmergencyCase;
+import com.badas.model.EmergencyLevel;
+import com.badas.util.Timestamps;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class EmergencyDAO {
 
+    /** Every column, in the order fill() reads them by position. */
+    private static final String COLUMNS =
+        "id, patient_name, location, symptoms, emergency_level_id, status, assigned_resources,"
+        + " coordinator, created_at, updated_at";
+
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM emergency_cases ORDER BY created_at DESC";
+
+    /** INSERT shared by save() and saveAll(); bindInsert() fills one row's INSERT_PARAMS values. */
+    private static final String INSERT_INTO = """
+        INSERT INTO emergency_cases
+          (patient_name, location, symptoms, emergency_level_id, status, assigned_resources, coordinator)""";
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final int    INSERT_PARAMS = 7;
+
     private final DatabaseManager db = DatabaseManager.getInstance();
+    private final RowCursor<EmergencyCase> cursor = new RowCursor<>(db, SELECT_ALL, EmergencyCase::new, this::fill);
 
     public List<EmergencyCase> findAll() {
         List<EmergencyCase> list = new ArrayList<>();
-        String sql = "SELECT * FROM emergency_cases ORDER BY created_at DESC";
-        try (Connection conn = db.getConnection();
+        try (Connection conn = db.getReadConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next()) list.add(mapRow(rs));
         } catch (SQLException e) {
             System.err.println("EmergencyDAO.findAll: " + e.getMessage());
@@ -23,9 +43,73 @@ public class EmergencyDAO {
         return list;
     }
 
+    /**
+     * Calls {@code action} for every emergency case in findAll() order, reading
+     * through one open cursor instead of building a list. Returns false if
+     * the read failed part-way (the error is logged).
+     */
+    public boolean forEach(Consumer<? super EmergencyCase> action) {
+        return forEach(RowCursor.DEFAULT_FETCH_SIZE, false, action);
+    }
+
+    /**
+     * As forEach(action), with an explicit driver fetch size. With
+     * {@code reuseRow} a single EmergencyCase is refilled for every row; the action
+     * must not keep a reference to it.
+     */
+    public boolean forEach(int fetchSize, boolean reuseRow, Consumer<? super EmergencyCase> action) {
+        try {
+            cursor.forEach(fetchSize, reuseRow, action);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.forEach: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Lazy stream in findAll() order. Close it (try-with-resources) to give the connection back. */
+    public Stream<EmergencyCase> stream() {
+        return stream(RowCursor.DEFAULT_FETCH_SIZE);
+    }
+
+    public Stream<EmergencyCase> stream(int fetchSize) {
+        try {
+            return cursor.stream(fetchSize);
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.stream: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Keyset page in findAll() order (newest first). Pass null / 0 for the
+     * first page, then the createdAt and id of the last row already shown.
+     */
+    public List<EmergencyCase> findPage(Long afterCreatedAt, int afterId, int limit) {
+        List<EmergencyCase> list = new ArrayList<>(limit);
+        String sql = afterCreatedAt == null
+            ? "SELECT " + COLUMNS + " FROM emergency_cases ORDER BY created_at DESC, id DESC LIMIT ?"
+            : "SELECT " + COLUMNS + " FROM emergency_cases WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCreatedAt != null) {
+                ps.setLong(i++, afterCreatedAt);
+                ps.setInt(i++, afterId);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.findPage: " + e.getMessage());
+        }
+        return list;
+    }
+
     public EmergencyCase findById(int id) {
-        String sql = "SELECT * FROM emergency_cases WHERE id = ?";
-        try (Connection conn = db.getConnection();
+        String sql = "SELECT " + COLUMNS + " FROM emergency_cases WHERE id = ?";
+        try (Connection conn = db.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -37,90 +121,215 @@ public class EmergencyDAO {
         return null;
     }
 
-    public int save(EmergencyCase ec) {
-        String sql = """
-            INSERT INTO emergency_cases
-              (patient_name, location, symptoms, emergency_level, status, assigned_resources, coordinator)
-            VALUES (?, ?, ?, ?, ?, ?, ?)
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, ec.getPatientName());
-            ps.setString(2, ec.getLocation());
-            ps.setString(3, ec.getSymptoms());
-            ps.setString(4, ec.getEmergencyLevel());
-            ps.setString(5, ec.getStatus() == null ? "Active" : ec.getStatus());
-            ps.setString(6, ec.getAssignedResources() == null ? "" : ec.getAssignedResources());
-            ps.setString(7, ec.getCoordinator());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getInt(1);
+    /** Rows with the given ids (in no particular order); missing ids are skipped. */
+    public List<EmergencyCase> findByIds(Collection<Integer> ids) {
+        List<EmergencyCase> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) return list;
+        String sql = "SELECT " + COLUMNS + " FROM emergency_cases WHERE id IN (" + "?,".repeat(ids.size() - 1) + "?)";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (int id : ids) ps.setInt(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
             }
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.findByIds: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Rows inserted or updated after (sinceUpdatedAt, afterId), oldest change
+     * first. Pass the updated_at and id of the last row already merged to
+     * continue; 0 starts from the beginning. Deletes are not
+     * visible here.
+     */
+    public List<EmergencyCase> findChangedSince(long sinceUpdatedAt, int afterId, int limit) {
+        List<EmergencyCase> list = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM emergency_cases WHERE (updated_at, id) > (?, ?) ORDER BY updated_at, id LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, sinceUpdatedAt);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.findChangedSince: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /** Newest updated_at in the table, or 0 if it is empty. */
+    public long latestUpdatedAt() {
+        String sql = "SELECT MAX(updated_at) FROM emergency_cases";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) return rs.getLong(1);
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.latestUpdatedAt: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    public int save(EmergencyCase ec) {
+        String sql = INSERT_INTO + " VALUES " + INSERT_VALUES;
+        try {
+            return db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsert(ps, 1, ec);
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        return rs.next() ? rs.getInt(1) : -1;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("EmergencyDAO.save: " + e.getMessage());
         }
         return -1;
     }
 
-    public boolean updateStatus(int id, String status) {
+    /**
+     * Saves all the cases in one write — one transaction and one commit —
+     * using multi-row INSERTs. Returns the new ids in list order, or null if
+     * the write failed, in which case none of them was saved.
+     */
+    public BulkResult saveAll(List<EmergencyCase> cases) {
+        long start = System.nanoTime();
+        try {
+            List<Integer> ids = db.write(conn ->
+                BulkWrites.insert(conn, INSERT_INTO, INSERT_VALUES, INSERT_PARAMS, cases, this::bindInsert));
+            return new BulkResult(ids, System.nanoTime() - start);
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.saveAll: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Sets the status and returns the updated row, or null if it no longer exists or the write failed. */
+    public EmergencyCase updateStatus(int id, String status) {
         String sql = """
             UPDATE emergency_cases
-            SET status = ?, updated_at = datetime('now','localtime')
+            SET status = ?, updated_at = ?
             WHERE id = ?
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, id);
-            return ps.executeUpdate() > 0;
+            RETURNING %s
+            """.formatted(COLUMNS);
+        try {
+            return db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, status);
+                    ps.setLong(2, Timestamps.now());
+                    ps.setInt(3, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next() ? mapRow(rs) : null;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("EmergencyDAO.updateStatus: " + e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Sets the status of every case in the map (id → non-null status) in one
+     * write, with one UPDATE per distinct status. Returns the ids that were
+     * updated, or null if the write failed and nothing changed.
+     */
+    public BulkResult updateStatusAll(Map<Integer, String> statuses) {
+        String sql = """
+            UPDATE emergency_cases
+            SET status = ?, updated_at = ?
+            WHERE id IN (%s)""";
+        long start = System.nanoTime();
+        try {
+            List<Integer> ids = db.write(conn -> {
+                long now = Timestamps.now();
+                List<Integer> updated = new ArrayList<>(statuses.size());
+                for (Map.Entry<String, List<Integer>> group : BulkWrites.byValue(statuses).entrySet()) {
+                    updated.addAll(BulkWrites.updateByIds(conn, sql, group.getValue(), group.getKey(), now));
+                }
+                return updated;
+            });
+            return new BulkResult(ids, System.nanoTime() - start);
+        } catch (SQLException e) {
+            System.err.println("EmergencyDAO.updateStatusAll: " + e.getMessage());
+            return null;
         }
     }
 
-    public boolean assignResources(int id, String resources) {
+    /** Records assigned resources and returns the updated row, or null on failure. */
+    public EmergencyCase assignResources(int id, String resources) {
         String sql = """
             UPDATE emergency_cases
             SET assigned_resources = ?, status = 'Resources Assigned',
-                updated_at = datetime('now','localtime')
+                updated_at = ?
             WHERE id = ?
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, resources);
-            ps.setInt(2, id);
-            return ps.executeUpdate() > 0;
+            RETURNING %s
+            """.formatted(COLUMNS);
+        try {
+            return db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, resources);
+                    ps.setLong(2, Timestamps.now());
+                    ps.setInt(3, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next() ? mapRow(rs) : null;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("EmergencyDAO.assignResources: " + e.getMessage());
-            return false;
+            return null;
         }
     }
 
     public boolean delete(int id) {
         String sql = "DELETE FROM emergency_cases WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            return db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    return ps.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             System.err.println("EmergencyDAO.delete: " + e.getMessage());
             return false;
         }
     }
 
+    private void bindInsert(PreparedStatement ps, int first, EmergencyCase ec) throws SQLException {
+        ps.setString(first,     ec.getPatientName());
+        ps.setString(first + 1, ec.getLocation());
+        ps.setString(first + 2, ec.getSymptoms());
+        Lookups.bind(ps, first + 3, ec.getEmergencyLevel());
+        ps.setString(first + 4, ec.getStatus() == null ? "Active" : ec.getStatus());
+        ps.setString(first + 5, ec.getAssignedResources() == null ? "" : ec.getAssignedResources());
+        ps.setString(first + 6, ec.getCoordinator());
+    }
+
     private EmergencyCase mapRow(ResultSet rs) throws SQLException {
         EmergencyCase ec = new EmergencyCase();
-        ec.setId(rs.getInt("id"));
-        ec.setPatientName(rs.getString("patient_name"));
-        ec.setLocation(rs.getString("location"));
-        ec.setSymptoms(rs.getString("symptoms"));
-        ec.setEmergencyLevel(rs.getString("emergency_level"));
-        ec.setStatus(rs.getString("status"));
-        ec.setAssignedResources(rs.getString("assigned_resources"));
-        ec.setCoordinator(rs.getString("coordinator"));
-        ec.setCreatedAt(rs.getString("created_at"));
-        ec.setUpdatedAt(rs.getString("updated_at"));
+        fill(rs, ec);
         return ec;
     }
+
+    /** Sets every field from the current row, so a reused object carries nothing over. */
+    private void fill(ResultSet rs, EmergencyCase ec) throws SQLException {
+        ec.setId(rs.getInt(1));
+        ec.setPatientName(rs.getString(2));
+        ec.setLocation(rs.getString(3));
+        ec.setSymptoms(rs.getString(4));
+        ec.setEmergencyLevel(Lookups.read(rs, 5, EmergencyLevel::fromCode));
+        ec.setStatus(rs.getString(6));
+        ec.setAssignedResources(rs.getString(7));
+        ec.setCoordinator(rs.getString(8));
+        ec.setCreatedAt(rs.getLong(9));
+        ec.setUpdatedAt(rs.getLong(10));
+    }
 }
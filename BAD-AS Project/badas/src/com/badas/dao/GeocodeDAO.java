@@ -0,0 +1,70 @@
+package com.badas.dao;
+
+import com.badas.model.GeoPoint;
+
+import java.sql.*;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The geocode_cache table: place names already resolved to a position.
+ *
+ * Lookups go through a process-wide ReadThroughCache that also remembers
+ * misses (an empty Optional), so an address the gazetteer cannot place is
+ * read from the table once, not on every dispatch. Rows are only ever
+ * added, never changed by the application, so nothing needs invalidating
+ * except through {@link #save}, which caches its own result.
+ */
+public class GeocodeDAO {
+
+    private static final ReadThroughCache<String, Optional<GeoPoint>> CACHE = new ReadThroughCache<>("geocodes", 4_096);
+
+    private final DatabaseManager db = DatabaseManager.getInstance();
+
+    /**
+     * The stored position for a normalised query: a present Optional if one
+     * is stored, an empty one if not, and null if the read failed.
+     */
+    public Optional<GeoPoint> find(String query) {
+        return CACHE.get(query, this::load);
+    }
+
+    private Optional<GeoPoint> load(String query) {
+        String sql = "SELECT latitude, longitude FROM geocode_cache WHERE query = ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, query);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(new GeoPoint(rs.getDouble(1), rs.getDouble(2))) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            System.err.println("GeocodeDAO.find: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Records a resolved position as a write-behind; nothing waits on it.
+     * An existing row for the query (e.g. a manual correction) is kept.
+     */
+    public void save(String query, GeoPoint point, String source) {
+        String sql = """
+            INSERT INTO geocode_cache (query, latitude, longitude, source) VALUES (?, ?, ?, ?)
+            ON CONFLICT(query) DO NOTHING
+            """;
+        CACHE.put(query, Optional.of(point));
+        db.writeBehind("geocode:" + query, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, query);
+                ps.setDouble(2, point.lat());
+                ps.setDouble(3, point.lon());
+                ps.setString(4, source);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    public static List<ReadThroughCache.Stats> cacheStats() {
+        return List.of(CACHE.stats());
+    }
+}
@@ -1,31 +1,102 @@
 package com.badas.dao;
 
+import com.badas.model.GeoPoint;
 import com.badas.model.Hospital;
+import com.badas.util.Timestamps;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class HospitalDAO {
 
+    /** Every column, in the order fill() reads them by position. */
+    private static final String COLUMNS =
+        "id, name, location, ambulance_count, available_ambulances, contact, created_at, updated_at,"
+        + " latitude, longitude";
+
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM hospitals ORDER BY name";
+
+    /** findById() rows and the findAll() list, shared by every HospitalDAO in the process. */
+    private static final ReadThroughCache<Integer, Hospital>      ROWS  = new ReadThroughCache<>("hospitals", 1_024);
+    private static final ReadThroughCache<String, List<Hospital>> LISTS = new ReadThroughCache<>("hospital lists", 4);
+    private static final String ALL = "findAll";
+
     private final DatabaseManager db = DatabaseManager.getInstance();
+    private final RowCursor<Hospital> cursor = new RowCursor<>(db, SELECT_ALL, Hospital::new, this::fill);
 
+    /** Every hospital by name, read through the cache. The caller gets its own copies to edit. */
     public List<Hospital> findAll() {
+        List<Hospital> cached = LISTS.get(ALL, key -> loadAll());
+        List<Hospital> list = new ArrayList<>(cached == null ? 0 : cached.size());
+        if (cached != null) for (Hospital h : cached) list.add(new Hospital(h));
+        return list;
+    }
+
+    /** Null if the read failed, so the failure is not cached as an empty table. */
+    private List<Hospital> loadAll() {
         List<Hospital> list = new ArrayList<>();
-        String sql = "SELECT * FROM hospitals ORDER BY name";
-        try (Connection conn = db.getConnection();
+        try (Connection conn = db.getReadConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next()) list.add(mapRow(rs));
         } catch (SQLException e) {
             System.err.println("HospitalDAO.findAll: " + e.getMessage());
+            return null;
         }
-        return list;
+        return List.copyOf(list);
+    }
+
+    /**
+     * Calls {@code action} for every hospital in findAll() order, reading
+     * through one open cursor instead of building a list. Returns false if
+     * the read failed part-way (the error is logged).
+     */
+    public boolean forEach(Consumer<? super Hospital> action) {
+        return forEach(RowCursor.DEFAULT_FETCH_SIZE, false, action);
+    }
+
+    /**
+     * As forEach(action), with an explicit driver fetch size. With
+     * {@code reuseRow} a single Hospital is refilled for every row; the action
+     * must not keep a reference to it.
+     */
+    public boolean forEach(int fetchSize, boolean reuseRow, Consumer<? super Hospital> action) {
+        try {
+            cursor.forEach(fetchSize, reuseRow, action);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("HospitalDAO.forEach: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Lazy stream in findAll() order. Close it (try-with-resources) to give the connection back. */
+    public Stream<Hospital> stream() {
+        return stream(RowCursor.DEFAULT_FETCH_SIZE);
     }
 
+    public Stream<Hospital> stream(int fetchSize) {
+        try {
+            return cursor.stream(fetchSize);
+        } catch (SQLException e) {
+            System.err.println("HospitalDAO.stream: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /** Read through the cache; the caller gets its own copy. */
     public Hospital findById(int id) {
-        String sql = "SELECT * FROM hospitals WHERE id = ?";
-        try (Connection conn = db.getConnection();
+        Hospital cached = ROWS.get(id, this::loadById);
+        return cached == null ? null : new Hospital(cached);
+    }
+
+    private Hospital loadById(int id) {
+        String sql = "SELECT " + COLUMNS + " FROM hospitals WHERE id = ?";
+        try (Connection conn = db.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -37,72 +108,219 @@ public class HospitalDAO {
         return null;
     }
 
+    /** Rows with the given ids (in no particular order), straight from the table; missing ids are skipped. */
+    public List<Hospital> findByIds(Collection<Integer> ids) {
+        List<Hospital> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) return list;
+        String sql = "SELECT " + COLUMNS + " FROM hospitals WHERE id IN (" + "?,".repeat(ids.size() - 1) + "?)";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (int id : ids) ps.setInt(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("HospitalDAO.findByIds: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Rows inserted or updated after (sinceUpdatedAt, afterId), oldest change
+     * first. Pass the updated_at and id of the last row already merged to
+     * continue; 0 starts from the beginning. Deletes are not
+     * visible here.
+     */
+    public List<Hospital> findChangedSince(long sinceUpdatedAt, int afterId, int limit) {
+        List<Hospital> list = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM hospitals WHERE (updated_at, id) > (?, ?) ORDER BY updated_at, id LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, sinceUpdatedAt);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("HospitalDAO.findChangedSince: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /** Newest updated_at in the table, or 0 if it is empty. */
+    public long latestUpdatedAt() {
+        String sql = "SELECT MAX(updated_at) FROM hospitals";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) return rs.getLong(1);
+        } catch (SQLException e) {
+            System.err.println("HospitalDAO.latestUpdatedAt: " + e.getMessage());
+        }
+        return 0;
+    }
+
     public int save(Hospital h) {
         String sql = """
-            INSERT INTO hospitals (name, location, ambulance_count, available_ambulances, contact)
-            VALUES (?, ?, ?, ?, ?)
+            INSERT INTO hospitals (name, location, ambulance_count, available_ambulances, contact,
+                                   latitude, longitude)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
             """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, h.getName());
-            ps.setString(2, h.getLocation());
-            ps.setInt(3, h.getAmbulanceCount());
-            ps.setInt(4, h.getAvailableAmbulances());
-            ps.setString(5, h.getContact() == null ? "" : h.getContact());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getInt(1);
-            }
+        try {
+            int id = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, h.getName());
+                    ps.setString(2, h.getLocation());
+                    ps.setInt(3, h.getAmbulanceCount());
+                    ps.setInt(4, h.getAvailableAmbulances());
+                    ps.setString(5, h.getContact() == null ? "" : h.getContact());
+                    bindPosition(ps, 6, h.getPosition());
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        return rs.next() ? rs.getInt(1) : -1;
+                    }
+                }
+            });
+            LISTS.invalidateAll();
+            return id;
         } catch (SQLException e) {
             System.err.println("HospitalDAO.save: " + e.getMessage());
         }
         return -1;
     }
 
-    public boolean update(Hospital h) {
+    /**
+     * Saves an admin edit. The ledger owns available_ambulances, and units
+     * may have been taken or given back since the form was read, so the two
+     * counts are applied as changes against the values the form showed
+     * ({@code countRead}, {@code availableRead}) rather than written over
+     * the row. Availability is kept within [0, ambulance_count]. Runs on
+     * the writer, in order with the ledger's own updates.
+     */
+    public boolean update(Hospital h, int countRead, int availableRead) {
         String sql = """
             UPDATE hospitals
-            SET name = ?, location = ?, ambulance_count = ?, available_ambulances = ?, contact = ?,
-                updated_at = datetime('now','localtime')
+            SET name = ?, location = ?,
+                ambulance_count = MAX(0, ambulance_count + ?),
+                available_ambulances = MAX(0, MIN(MAX(0, ambulance_count + ?), available_ambulances + ?)),
+                contact = ?, latitude = ?, longitude = ?, updated_at = ?
             WHERE id = ?
             """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, h.getName());
-            ps.setString(2, h.getLocation());
-            ps.setInt(3, h.getAmbulanceCount());
-            ps.setInt(4, h.getAvailableAmbulances());
-            ps.setString(5, h.getContact() == null ? "" : h.getContact());
-            ps.setInt(6, h.getId());
-            return ps.executeUpdate() > 0;
+        int countDelta     = h.getAmbulanceCount() - countRead;
+        int availableDelta = h.getAvailableAmbulances() - availableRead;
+        try {
+            boolean updated = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, h.getName());
+                    ps.setString(2, h.getLocation());
+                    ps.setInt(3, countDelta);
+                    ps.setInt(4, countDelta);
+                    ps.setInt(5, availableDelta);
+                    ps.setString(6, h.getContact() == null ? "" : h.getContact());
+                    bindPosition(ps, 7, h.getPosition());
+                    ps.setLong(9, Timestamps.now());
+                    ps.setInt(10, h.getId());
+                    return ps.executeUpdate() > 0;
+                }
+            });
+            invalidate(h.getId());
+            return updated;
         } catch (SQLException e) {
             System.err.println("HospitalDAO.update: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Stores a geocoded position for a hospital that has none, as a
+     * write-behind (nothing waits on it). A position set in the meantime,
+     * e.g. by an admin edit, is not overwritten. The ChangeFeed sees the
+     * change and refreshes the cache and the hospital indexes.
+     */
+    public void fillPosition(int id, GeoPoint p) {
+        String sql = "UPDATE hospitals SET latitude = ?, longitude = ?, updated_at = ? WHERE id = ? AND latitude IS NULL";
+        long now = Timestamps.now();
+        db.writeBehind("hospitals.position:" + id, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                bindPosition(ps, 1, p);
+                ps.setLong(3, now);
+                ps.setInt(4, id);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
     public boolean delete(int id) {
         String sql = "DELETE FROM hospitals WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean deleted = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+            invalidate(id);
+            return deleted;
         } catch (SQLException e) {
             System.err.println("HospitalDAO.delete: " + e.getMessage());
             return false;
         }
     }
 
+    // ─── Cache ──────────────────────────────────────────────────────────────
+
+    /** Drops one hospital and every cached list; called after a write to that row has committed. */
+    static void invalidate(int id) {
+        ROWS.invalidate(id);
+        LISTS.invalidateAll();
+    }
+
+    static void invalidateAll() {
+        ROWS.invalidateAll();
+        LISTS.invalidateAll();
+    }
+
+    public static List<ReadThroughCache.Stats> cacheStats() {
+        return List.of(ROWS.stats(), LISTS.stats());
+    }
+
+    /** Binds latitude and longitude at {@code first} and {@code first + 1}, or NULLs. */
+    static void bindPosition(PreparedStatement ps, int first, GeoPoint p) throws SQLException {
+        if (p != null) {
+            ps.setDouble(first, p.lat());
+            ps.setDouble(first + 1, p.lon());
+        } else {
+            ps.setNull(first, Types.REAL);
+            ps.setNull(first + 1, Types.REAL);
+        }
+    }
+
+    /** The position in columns {@code first} and {@code first + 1}, or null if either is NULL. */
+    static GeoPoint readPosition(ResultSet rs, int first) throws SQLException {
+        double lat = rs.getDouble(first);
+        if (rs.wasNull()) return null;
+        double lon = rs.getDouble(first + 1);
+        return rs.wasNull() ? null : new GeoPoint(lat, lon);
+    }
+
     private Hospital mapRow(ResultSet rs) throws SQLException {
         Hospital h = new Hospital();
-        h.setId(rs.getInt("id"));
-        h.setName(rs.getString("name"));
-        h.setLocation(rs.getString("location"));
-        h.setAmbulanceCount(rs.getInt("ambulance_count"));
-        h.setAvailableAmbulances(rs.getInt("available_ambulances"));
-        h.setContact(rs.getString("contact"));
-        h.setCreatedAt(rs.getString("created_at"));
-        h.setUpdatedAt(rs.getString("updated_at"));
+        fill(rs, h);
         return h;
     }
+
+    /** Sets every field from the current row, so a reused object carries nothing over. */
+    private void fill(ResultSet rs, Hospital h) throws SQLException {
+        h.setId(rs.getInt(1));
+        h.setName(rs.getString(2));
+        h.setLocation(rs.getString(3));
+        h.setAmbulanceCount(rs.getInt(4));
+        h.setAvailableAmbulances(rs.getInt(5));
+        h.setContact(rs.getString(6));
+        h.setCreatedAt(rs.getLong(7));
+        h.setUpdatedAt(rs.getLong(8));
+        h.setPosition(readPosition(rs, 9));
+    }
 }
@@ -0,0 +1,54 @@
+package com.badas.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of an open lookup table (id INTEGER PRIMARY KEY, label TEXT
+ * UNIQUE) whose set of labels grows at run time, such as patient_statuses.
+ *
+ * Rows store only the id. Each label is read from the database once and the
+ * same String is handed to every row that uses it. Ids are never reused or
+ * deleted, so a cached entry never goes stale; an id written by another
+ * workstation is simply fetched the first time it is seen.
+ */
+final class LabelDictionary {
+
+    private final String table;
+    private final ConcurrentHashMap<Integer, String> labels = new ConcurrentHashMap<>();
+
+    LabelDictionary(String table) {
+        this.table = table;
+    }
+
+    /** The label for {@code id}, or null if there is no such row. */
+    String label(Connection conn, int id) throws SQLException {
+        String label = labels.get(id);
+        if (label != null) return label;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT label FROM " + table + " WHERE id = ?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                label = rs.getString(1);
+            }
+        }
+        String previous = labels.putIfAbsent(id, label);
+        return previous != null ? previous : label;
+    }
+
+    /**
+     * Adds {@code label} if the table does not have it yet. Call inside the
+     * write that references it and resolve the id in that write's own SQL
+     * ({@code (SELECT id FROM <table> WHERE label = ?)}); nothing is cached
+     * here, so a write that rolls back leaves no stale id behind.
+     */
+    void ensure(Connection conn, String label) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT OR IGNORE INTO " + table + " (label) VALUES (?)")) {
+            ps.setString(1, label);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.badas.dao;
+
+import com.badas.model.Coded;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.function.IntFunction;
+
+/**
+ * Binding and reading the small-integer lookup columns (status_id,
+ * severity_id, ...). A row maps to a shared enum constant; no label text is
+ * read or allocated.
+ */
+final class Lookups {
+
+    private Lookups() {}
+
+    /** Binds the constant's code, or NULL. */
+    static void bind(PreparedStatement ps, int index, Coded value) throws SQLException {
+        if (value != null) ps.setInt(index, value.code());
+        else ps.setNull(index, Types.INTEGER);
+    }
+
+    /** The constant for the column's code; null if the column is NULL or the code is unknown. */
+    static <E extends Coded> E read(ResultSet rs, int column, IntFunction<E> fromCode) throws SQLException {
+        int code = rs.getInt(column);
+        return rs.wasNull() ? null : fromCode.apply(code);
+    }
+}
@@ -0,0 +1,14 @@
+package com.badas.dao;
+
+import java.util.List;
+
+/**
+ * One versioned schema change. Statements run in order inside the
+ * migrator's transaction; versions must be unique and increasing.
+ */
+public record Migration(int version, String description, List<String> statements) {
+
+    public static Migration of(int version, String description, String... statements) {
+        return new Migration(version, description, List.of(statements));
+    }
+}
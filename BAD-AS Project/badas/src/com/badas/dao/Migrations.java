@@ -0,0 +1,778 @@
+package com.badas.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ordered list of schema migrations for badas.db.
+ *
+ * Never edit a migration that has shipped — existing databases have already
+ * recorded it as applied. Append a new version instead.
+ */
+final class Migrations {
+
+    private Migrations() {}
+
+    static List<Migration> all() {
+        return List.of(
+            baseline(),
+            hotQueryIndexes(),
+            keysetIndexes(),
+            patientFullTextIndex(),
+            retriageSupport(),
+            changeLog(),
+            deltaIndexes(),
+            epochMillisTimestamps(),
+            lookupTables(),
+            cachedTableChangeLog(),
+            dispatchHospitalLedger(),
+            pendingDispatchIndex(),
+            geoCoordinates(),
+            retriageFingerprint()
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v1 — original tables
+    // ─────────────────────────────────────────────
+
+    /**
+     * The tables as they existed before versioning. IF NOT EXISTS makes this
+     * a no-op on databases created by earlier releases.
+     */
+    private static Migration baseline() {
+        return Migration.of(1, "Baseline tables",
+            // Users
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                id            INTEGER PRIMARY KEY AUTOINCREMENT,
+                username      TEXT NOT NULL UNIQUE,
+                password_hash TEXT NOT NULL,
+                role          TEXT NOT NULL,
+                created_at    TEXT DEFAULT (datetime('now', 'localtime')),
+                last_login    TEXT
+            )
+            """,
+            // Patients
+            """
+            CREATE TABLE IF NOT EXISTS patients (
+                id            INTEGER PRIMARY KEY AUTOINCREMENT,
+                name          TEXT NOT NULL,
+                age           INTEGER NOT NULL CHECK(age >= 0 AND age <= 150),
+                contact       TEXT,
+                symptoms      TEXT,
+                diagnosis     TEXT DEFAULT 'Pending',
+                prescription  TEXT DEFAULT '',
+                status        TEXT DEFAULT 'Registered',
+                registered_by TEXT,
+                registered_at TEXT DEFAULT (datetime('now', 'localtime')),
+                updated_at    TEXT DEFAULT (datetime('now', 'localtime'))
+            )
+            """,
+            // Hospitals
+            """
+            CREATE TABLE IF NOT EXISTS hospitals (
+                id                   INTEGER PRIMARY KEY AUTOINCREMENT,
+                name                 TEXT NOT NULL,
+                location             TEXT NOT NULL,
+                ambulance_count      INTEGER DEFAULT 0 CHECK(ambulance_count >= 0),
+                available_ambulances INTEGER DEFAULT 0,
+                contact              TEXT DEFAULT '',
+                created_at           TEXT DEFAULT (datetime('now', 'localtime')),
+                updated_at           TEXT DEFAULT (datetime('now', 'localtime'))
+            )
+            """,
+            // Dispatch requests
+            """
+            CREATE TABLE IF NOT EXISTS dispatch_requests (
+                id                INTEGER PRIMARY KEY AUTOINCREMENT,
+                patient_name      TEXT NOT NULL,
+                patient_id        INTEGER,
+                location          TEXT NOT NULL,
+                symptoms          TEXT,
+                ambulance_type    TEXT,
+                severity          TEXT,
+                hospital_assigned TEXT DEFAULT '',
+                status            TEXT DEFAULT 'Pending',
+                dispatched_by     TEXT,
+                created_at        TEXT DEFAULT (datetime('now', 'localtime')),
+                updated_at        TEXT DEFAULT (datetime('now', 'localtime')),
+                FOREIGN KEY (patient_id) REFERENCES patients(id)
+            )
+            """,
+            // Emergency cases
+            """
+            CREATE TABLE IF NOT EXISTS emergency_cases (
+                id                INTEGER PRIMARY KEY AUTOINCREMENT,
+                patient_name      TEXT NOT NULL,
+                location          TEXT NOT NULL,
+                symptoms          TEXT,
+                emergency_level   TEXT NOT NULL,
+                status            TEXT DEFAULT 'Active',
+                assigned_resources TEXT DEFAULT '',
+                coordinator       TEXT,
+                created_at        TEXT DEFAULT (datetime('now', 'localtime')),
+                updated_at        TEXT DEFAULT (datetime('now', 'localtime'))
+            )
+            """
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v2 — indexes for the dashboard queries
+    // ─────────────────────────────────────────────
+
+    private static Migration hotQueryIndexes() {
+        return Migration.of(2, "Indexes for hot dashboard queries",
+            // DispatcherDashboard: ORDER BY created_at DESC
+            "CREATE INDEX IF NOT EXISTS idx_dispatch_created ON dispatch_requests(created_at DESC)",
+            // CoordinatorDashboard: filter by status, newest first
+            "CREATE INDEX IF NOT EXISTS idx_cases_status_created ON emergency_cases(status, created_at)",
+            // Patient lists: ORDER BY name
+            "CREATE INDEX IF NOT EXISTS idx_patients_name ON patients(name)",
+            // Hospital lookups by city
+            "CREATE INDEX IF NOT EXISTS idx_hospitals_location ON hospitals(location)"
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v3 — composite indexes for keyset pagination
+    // ─────────────────────────────────────────────
+
+    /**
+     * findPage() seeks on (created_at, id) descending. SQLite appends the
+     * rowid to every index in ascending order, so the id tie-breaker has to
+     * be declared explicitly to get a DESC, DESC scan. patients(name) already
+     * serves (name, id) ascending and is left alone.
+     */
+    private static Migration keysetIndexes() {
+        return Migration.of(3, "Composite indexes for keyset pagination",
+            "CREATE INDEX IF NOT EXISTS idx_dispatch_created_id ON dispatch_requests(created_at DESC, id DESC)",
+            "DROP INDEX IF EXISTS idx_dispatch_created",
+            "CREATE INDEX IF NOT EXISTS idx_cases_created_id ON emergency_cases(created_at DESC, id DESC)"
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v4 — FTS5 index for patient search
+    // ─────────────────────────────────────────────
+
+    /**
+     * External-content FTS5 table over patients, so the text is not stored
+     * twice. Triggers keep it in sync; the update trigger only fires for the
+     * indexed columns, so status changes never touch the index. prefix='2 3'
+     * builds prefix indexes so "che*" style queries are index lookups.
+     */
+    private static Migration patientFullTextIndex() {
+        List<String> sql = new ArrayList<>();
+        sql.add("""
+            CREATE VIRTUAL TABLE IF NOT EXISTS patients_fts USING fts5(
+                name, symptoms, diagnosis,
+                content = 'patients',
+                content_rowid = 'id',
+                tokenize = 'unicode61 remove_diacritics 2',
+                prefix = '2 3'
+            )
+            """);
+        sql.addAll(patientFtsTriggers());
+        // Index the rows that already exist
+        sql.add("INSERT INTO patients_fts (patients_fts) VALUES ('rebuild')");
+        // Persist column weights so queries can ORDER BY rank (name > symptoms > diagnosis)
+        sql.add("INSERT INTO patients_fts (patients_fts, rank) VALUES ('rank', 'bm25(10.0, 4.0, 2.0)')");
+        return new Migration(4, "FTS5 index over patient name, symptoms and diagnosis", List.copyOf(sql));
+    }
+
+    /** Triggers that keep patients_fts in sync (also used when patients is rebuilt). */
+    static List<String> patientFtsTriggers() {
+        return List.of(
+            """
+            CREATE TRIGGER IF NOT EXISTS patients_fts_ai AFTER INSERT ON patients BEGIN
+                INSERT INTO patients_fts (rowid, name, symptoms, diagnosis)
+                VALUES (new.id, new.name, new.symptoms, new.diagnosis);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS patients_fts_ad AFTER DELETE ON patients BEGIN
+                INSERT INTO patients_fts (patients_fts, rowid, name, symptoms, diagnosis)
+                VALUES ('delete', old.id, old.name, old.symptoms, old.diagnosis);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS patients_fts_au AFTER UPDATE OF name, symptoms, diagnosis ON patients BEGIN
+                INSERT INTO patients_fts (patients_fts, rowid, name, symptoms, diagnosis)
+                VALUES ('delete', old.id, old.name, old.symptoms, old.diagnosis);
+                INSERT INTO patients_fts (rowid, name, symptoms, diagnosis)
+                VALUES (new.id, new.name, new.symptoms, new.diagnosis);
+            END
+            """
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v5 — batch re-triage
+    // ─────────────────────────────────────────────
+
+    /**
+     * Patients get their own keyword severity (dispatches already have one).
+     * retriage_checkpoints records how far a RetriageJob got through each
+     * table and with which dictionary version, so an interrupted run resumes
+     * where it stopped. The checkpoint is written in the same transaction as
+     * the rows it covers.
+     */
+    private static Migration retriageSupport() {
+        return Migration.of(5, "Patient triage severity and re-triage checkpoints",
+            "ALTER TABLE patients ADD COLUMN triage_severity TEXT",
+            """
+            CREATE TABLE IF NOT EXISTS retriage_checkpoints (
+                job                TEXT NOT NULL,
+                table_name         TEXT NOT NULL,
+                dictionary_version TEXT NOT NULL,
+                last_id            INTEGER NOT NULL DEFAULT 0,
+                processed          INTEGER NOT NULL DEFAULT 0,
+                changed            INTEGER NOT NULL DEFAULT 0,
+                completed          INTEGER NOT NULL DEFAULT 0,
+                updated_at         TEXT DEFAULT (datetime('now', 'localtime')),
+                PRIMARY KEY (job, table_name)
+            )
+            """
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v6 — change log for the live change feed
+    // ─────────────────────────────────────────────
+
+    /** Tables whose changes are pushed to open dashboards by ChangeFeed. */
+    static final List<String> FEED_TABLES = List.of("dispatch_requests", "emergency_cases", "patients");
+
+    /**
+     * Every insert/update/delete on a feed table appends (table, row id, op)
+     * to change_log in the same transaction, so the log is exactly as
+     * durable as the change itself. ChangeFeed tails it by seq and prunes
+     * entries older than its retention window. changed_at is epoch millis.
+     */
+    private static Migration changeLog() {
+        List<String> sql = new ArrayList<>();
+        sql.add("""
+            CREATE TABLE IF NOT EXISTS change_log (
+                seq        INTEGER PRIMARY KEY AUTOINCREMENT,
+                table_name TEXT    NOT NULL,
+                row_id     INTEGER NOT NULL,
+                op         TEXT    NOT NULL CHECK (op IN ('I', 'U', 'D')),
+                changed_at INTEGER NOT NULL DEFAULT (CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER))
+            )
+            """);
+        sql.add("CREATE INDEX IF NOT EXISTS idx_change_log_changed ON change_log(changed_at)");
+        for (String table : FEED_TABLES) sql.addAll(changeLogTriggers(table));
+        return new Migration(6, "Change log with triggers on dispatches, cases and patients", List.copyOf(sql));
+    }
+
+    // ─────────────────────────────────────────────
+    //  v7 — delta queries by updated_at
+    // ─────────────────────────────────────────────
+
+    /** Keyset indexes for the findChangedSince(updatedAt, id) queries behind incremental refresh. */
+    private static Migration deltaIndexes() {
+        return Migration.of(7, "Indexes for changed-since queries",
+            "CREATE INDEX IF NOT EXISTS idx_dispatch_updated_id  ON dispatch_requests(updated_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_cases_updated_id     ON emergency_cases(updated_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_patients_updated_id  ON patients(updated_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_hospitals_updated_id ON hospitals(updated_at, id)"
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v8 — epoch-millisecond timestamps
+    // ─────────────────────────────────────────────
+
+    /** SQL for the current time as epoch milliseconds (UTC). */
+    static final String NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    /** Timestamp columns that may be NULL; every other one is NOT NULL with a default of now. */
+    private static final Set<String> NULLABLE_TIMESTAMPS = Set.of("last_login");
+
+    /**
+     * Every datetime('now','localtime') TEXT column becomes INTEGER epoch
+     * millis in UTC. SQLite cannot change a column's type, so each table is
+     * rebuilt: create <table>_new, copy the rows across (converting local
+     * wall-clock text with julianday(..., 'utc')), drop the old table and
+     * rename. Ids and the AUTOINCREMENT high-water mark are kept, then the
+     * indexes and the FTS and change_log triggers that went with the old
+     * tables are recreated.
+     *
+     * For anything that still expects the old text format, each table gets
+     * a read-only <table>_localtime view with the timestamps rendered back
+     * as 'YYYY-MM-DD HH:MM:SS' local time. A later migration that rebuilds
+     * one of these tables must drop its view first and recreate it after.
+     */
+    private static Migration epochMillisTimestamps() {
+        List<String> sql = new ArrayList<>();
+        sql.addAll(rebuildWithMillis("users", """
+            CREATE TABLE users_new (
+                id            INTEGER PRIMARY KEY AUTOINCREMENT,
+                username      TEXT NOT NULL UNIQUE,
+                password_hash TEXT NOT NULL,
+                role          TEXT NOT NULL,
+                created_at    INTEGER NOT NULL DEFAULT (%s),
+                last_login    INTEGER
+            )
+            """,
+            List.of("id", "username", "password_hash", "role", "created_at", "last_login"),
+            List.of("created_at", "last_login")));
+        sql.addAll(rebuildWithMillis("patients", """
+            CREATE TABLE patients_new (
+                id              INTEGER PRIMARY KEY AUTOINCREMENT,
+                name            TEXT NOT NULL,
+                age             INTEGER NOT NULL CHECK(age >= 0 AND age <= 150),
+                contact         TEXT,
+                symptoms        TEXT,
+                diagnosis       TEXT DEFAULT 'Pending',
+                prescription    TEXT DEFAULT '',
+                status          TEXT DEFAULT 'Registered',
+                registered_by   TEXT,
+                registered_at   INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at      INTEGER NOT NULL DEFAULT (%1$s),
+                triage_severity TEXT
+            )
+            """,
+            List.of("id", "name", "age", "contact", "symptoms", "diagnosis", "prescription", "status",
+                    "registered_by", "registered_at", "updated_at", "triage_severity"),
+            List.of("registered_at", "updated_at")));
+        sql.addAll(rebuildWithMillis("hospitals", """
+            CREATE TABLE hospitals_new (
+                id                   INTEGER PRIMARY KEY AUTOINCREMENT,
+                name                 TEXT NOT NULL,
+                location             TEXT NOT NULL,
+                ambulance_count      INTEGER DEFAULT 0 CHECK(ambulance_count >= 0),
+                available_ambulances INTEGER DEFAULT 0,
+                contact              TEXT DEFAULT '',
+                created_at           INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at           INTEGER NOT NULL DEFAULT (%1$s)
+            )
+            """,
+            List.of("id", "name", "location", "ambulance_count", "available_ambulances", "contact",
+                    "created_at", "updated_at"),
+            List.of("created_at", "updated_at")));
+        sql.addAll(rebuildWithMillis("dispatch_requests", """
+            CREATE TABLE dispatch_requests_new (
+                id                INTEGER PRIMARY KEY AUTOINCREMENT,
+                patient_name      TEXT NOT NULL,
+                patient_id        INTEGER,
+                location          TEXT NOT NULL,
+                symptoms          TEXT,
+                ambulance_type    TEXT,
+                severity          TEXT,
+                hospital_assigned TEXT DEFAULT '',
+                status            TEXT DEFAULT 'Pending',
+                dispatched_by     TEXT,
+                created_at        INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at        INTEGER NOT NULL DEFAULT (%1$s),
+                FOREIGN KEY (patient_id) REFERENCES patients(id)
+            )
+            """,
+            List.of("id", "patient_name", "patient_id", "location", "symptoms", "ambulance_type", "severity",
+                    "hospital_assigned", "status", "dispatched_by", "created_at", "updated_at"),
+            List.of("created_at", "updated_at")));
+        sql.addAll(rebuildWithMillis("emergency_cases", """
+            CREATE TABLE emergency_cases_new (
+                id                 INTEGER PRIMARY KEY AUTOINCREMENT,
+                patient_name       TEXT NOT NULL,
+                location           TEXT NOT NULL,
+                symptoms           TEXT,
+                emergency_level    TEXT NOT NULL,
+                status             TEXT DEFAULT 'Active',
+                assigned_resources TEXT DEFAULT '',
+                coordinator        TEXT,
+                created_at         INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at         INTEGER NOT NULL DEFAULT (%1$s)
+            )
+            """,
+            List.of("id", "patient_name", "location", "symptoms", "emergency_level", "status",
+                    "assigned_resources", "coordinator", "created_at", "updated_at"),
+            List.of("created_at", "updated_at")));
+        sql.addAll(rebuildWithMillis("retriage_checkpoints", """
+            CREATE TABLE retriage_checkpoints_new (
+                job                TEXT NOT NULL,
+                table_name         TEXT NOT NULL,
+                dictionary_version TEXT NOT NULL,
+                last_id            INTEGER NOT NULL DEFAULT 0,
+                processed          INTEGER NOT NULL DEFAULT 0,
+                changed            INTEGER NOT NULL DEFAULT 0,
+                completed          INTEGER NOT NULL DEFAULT 0,
+                updated_at         INTEGER NOT NULL DEFAULT (%s),
+                PRIMARY KEY (job, table_name)
+            )
+            """,
+            List.of("job", "table_name", "dictionary_version", "last_id", "processed", "changed",
+                    "completed", "updated_at"),
+            List.of("updated_at")));
+
+        // Indexes from v2, v3 and v7, now over integers
+        sql.add("CREATE INDEX idx_patients_name ON patients(name)");
+        sql.add("CREATE INDEX idx_patients_updated_id ON patients(updated_at, id)");
+        sql.add("CREATE INDEX idx_hospitals_location ON hospitals(location)");
+        sql.add("CREATE INDEX idx_hospitals_updated_id ON hospitals(updated_at, id)");
+        sql.add("CREATE INDEX idx_dispatch_created_id ON dispatch_requests(created_at DESC, id DESC)");
+        sql.add("CREATE INDEX idx_dispatch_updated_id ON dispatch_requests(updated_at, id)");
+        sql.add("CREATE INDEX idx_cases_status_created ON emergency_cases(status, created_at)");
+        sql.add("CREATE INDEX idx_cases_created_id ON emergency_cases(created_at DESC, id DESC)");
+        sql.add("CREATE INDEX idx_cases_updated_id ON emergency_cases(updated_at, id)");
+
+        // Triggers are dropped with their table; ids are unchanged, so patients_fts stays valid
+        sql.addAll(patientFtsTriggers());
+        for (String table : FEED_TABLES) sql.addAll(changeLogTriggers(table));
+
+        return new Migration(8, "Epoch-millisecond INTEGER timestamps", List.copyOf(sql));
+    }
+
+    /**
+     * Statements that rebuild {@code table} from {@code createNew} (a CREATE
+     * TABLE <table>_new with one %s per default, filled with NOW_MILLIS),
+     * converting {@code timestamps} from local-time text to epoch millis,
+     * and add the <table>_localtime compatibility view.
+     */
+    private static List<String> rebuildWithMillis(String table, String createNew,
+                                                  List<String> columns, List<String> timestamps) {
+        String copy = columns.stream()
+            .map(c -> !timestamps.contains(c) ? c
+                : NULLABLE_TIMESTAMPS.contains(c) ? localTextToMillis(c)
+                : "COALESCE(" + localTextToMillis(c) + ", " + NOW_MILLIS + ")")
+            .collect(Collectors.joining(", "));
+        String view = columns.stream()
+            .map(c -> timestamps.contains(c) ? "datetime(" + c + " / 1000, 'unixepoch', 'localtime') AS " + c : c)
+            .collect(Collectors.joining(", "));
+
+        List<String> sql = new ArrayList<>(rebuild(table, createNew.formatted(NOW_MILLIS),
+                                                   String.join(", ", columns), copy));
+        sql.add("CREATE VIEW " + table + "_localtime AS SELECT " + view + " FROM " + table);
+        return sql;
+    }
+
+    /**
+     * Statements that replace {@code table} with one created by
+     * {@code createNew} (a CREATE TABLE <table>_new), filling {@code columns}
+     * from the {@code select} expressions over the old table. Ids and the
+     * AUTOINCREMENT high-water mark are kept. Indexes and triggers go with
+     * the old table; the caller recreates them.
+     */
+    private static List<String> rebuild(String table, String createNew, String columns, String select) {
+        String fresh = table + "_new";
+        List<String> sql = new ArrayList<>();
+        sql.add(createNew);
+        sql.add("INSERT INTO " + fresh + " (" + columns + ") SELECT " + select + " FROM " + table);
+        if (createNew.contains("AUTOINCREMENT")) {
+            // Carry the AUTOINCREMENT high-water mark over, so ids of deleted rows are never reused
+            sql.add("DELETE FROM sqlite_sequence WHERE name = '" + fresh + "'");
+            sql.add("INSERT INTO sqlite_sequence (name, seq) SELECT '" + fresh + "', seq"
+                  + " FROM sqlite_sequence WHERE name = '" + table + "'");
+        }
+        sql.add("DROP TABLE " + table);
+        sql.add("ALTER TABLE " + fresh + " RENAME TO " + table);
+        return sql;
+    }
+
+    /** 'YYYY-MM-DD HH:MM:SS' in the local zone -> epoch millis; NULL or unparseable text gives NULL. */
+    private static String localTextToMillis(String column) {
+        return "CAST(ROUND((julianday(" + column + ", 'utc') - 2440587.5) * 86400000) AS INTEGER)";
+    }
+
+    /** The three change_log triggers for one table (also used when a table is rebuilt). */
+    static List<String> changeLogTriggers(String table) {
+        return List.of(
+            "CREATE TRIGGER IF NOT EXISTS " + table + "_log_ai AFTER INSERT ON " + table + " BEGIN "
+                + "INSERT INTO change_log (table_name, row_id, op) VALUES ('" + table + "', new.id, 'I'); END",
+            "CREATE TRIGGER IF NOT EXISTS " + table + "_log_au AFTER UPDATE ON " + table + " BEGIN "
+                + "INSERT INTO change_log (table_name, row_id, op) VALUES ('" + table + "', new.id, 'U'); END",
+            "CREATE TRIGGER IF NOT EXISTS " + table + "_log_ad AFTER DELETE ON " + table + " BEGIN "
+                + "INSERT INTO change_log (table_name, row_id, op) VALUES ('" + table + "', old.id, 'D'); END"
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v9 — lookup tables for enumerated columns
+    // ─────────────────────────────────────────────
+
+    /** Lookup ids below this are reserved for the enum constants in com.badas.model. */
+    private static final int FIRST_LEGACY_ID = 100;
+
+    /**
+     * Dispatch status, severity and ambulance type, the emergency level and
+     * the patient status and triage severity move from repeated TEXT to
+     * small-integer ids into lookup tables (id INTEGER PRIMARY KEY, label
+     * TEXT UNIQUE).
+     *
+     * The closed sets — dispatch_statuses, severities, ambulance_types and
+     * emergency_levels — are numbered by the codes of the matching model
+     * enums. Any other text already stored is kept as an extra lookup row
+     * numbered from FIRST_LEGACY_ID, so nothing is lost and a constant
+     * added to an enum later cannot collide with it. patient_statuses is
+     * open (staff can type a custom status) and grows at run time.
+     *
+     * patients, dispatch_requests and emergency_cases are rebuilt as in v8,
+     * and their _localtime views are recreated with the labels joined back
+     * in, so they still show the same columns as before.
+     */
+    private static Migration lookupTables() {
+        List<String> sql = new ArrayList<>();
+        sql.addAll(lookupTable("dispatch_statuses", "Pending", "Dispatched", "Cancelled"));
+        sql.addAll(lookupTable("severities", "Critical", "Moderate", "Minor", "Undetermined"));
+        sql.addAll(lookupTable("ambulance_types",
+            "Advanced Life Support (ALS) Ambulance", "Basic Life Support (BLS) Ambulance",
+            "Non-Emergency Medical Transport", "Clinical evaluation required before dispatch"));
+        sql.addAll(lookupTable("emergency_levels", "Critical", "Severe", "Moderate", "Minor"));
+        sql.addAll(lookupTable("patient_statuses",
+            "Registered", "Under Observation", "Stable", "Critical", "Discharged", "Transferred"));
+
+        sql.add(legacyLabels("dispatch_statuses", "SELECT status AS label FROM dispatch_requests"));
+        sql.add(legacyLabels("severities",
+            "SELECT severity AS label FROM dispatch_requests UNION SELECT triage_severity FROM patients"));
+        sql.add(legacyLabels("ambulance_types", "SELECT ambulance_type AS label FROM dispatch_requests"));
+        sql.add(legacyLabels("emergency_levels", "SELECT emergency_level AS label FROM emergency_cases"));
+        sql.add("INSERT OR IGNORE INTO patient_statuses (label) SELECT DISTINCT status FROM patients WHERE status IS NOT NULL");
+
+        sql.add("DROP VIEW patients_localtime");
+        sql.add("DROP VIEW dispatch_requests_localtime");
+        sql.add("DROP VIEW emergency_cases_localtime");
+
+        sql.addAll(rebuild("patients", """
+            CREATE TABLE patients_new (
+                id                 INTEGER PRIMARY KEY AUTOINCREMENT,
+                name               TEXT NOT NULL,
+                age                INTEGER NOT NULL CHECK(age >= 0 AND age <= 150),
+                contact            TEXT,
+                symptoms           TEXT,
+                diagnosis          TEXT DEFAULT 'Pending',
+                prescription       TEXT DEFAULT '',
+                status_id          INTEGER DEFAULT 1 REFERENCES patient_statuses(id),
+                registered_by      TEXT,
+                registered_at      INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at         INTEGER NOT NULL DEFAULT (%1$s),
+                triage_severity_id INTEGER REFERENCES severities(id)
+            )
+            """.formatted(NOW_MILLIS),
+            "id, name, age, contact, symptoms, diagnosis, prescription, status_id, registered_by,"
+                + " registered_at, updated_at, triage_severity_id",
+            "id, name, age, contact, symptoms, diagnosis, prescription, "
+                + idOfLabel("patient_statuses", "patients.status") + ", registered_by, registered_at, updated_at, "
+                + idOfLabel("severities", "patients.triage_severity")));
+        sql.addAll(rebuild("dispatch_requests", """
+            CREATE TABLE dispatch_requests_new (
+                id                INTEGER PRIMARY KEY AUTOINCREMENT,
+                patient_name      TEXT NOT NULL,
+                patient_id        INTEGER,
+                location          TEXT NOT NULL,
+                symptoms          TEXT,
+                ambulance_type_id INTEGER REFERENCES ambulance_types(id),
+                severity_id       INTEGER REFERENCES severities(id),
+                hospital_assigned TEXT DEFAULT '',
+                status_id         INTEGER DEFAULT 1 REFERENCES dispatch_statuses(id),
+                dispatched_by     TEXT,
+                created_at        INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at        INTEGER NOT NULL DEFAULT (%1$s),
+                FOREIGN KEY (patient_id) REFERENCES patients(id)
+            )
+            """.formatted(NOW_MILLIS),
+            "id, patient_name, patient_id, location, symptoms, ambulance_type_id, severity_id,"
+                + " hospital_assigned, status_id, dispatched_by, created_at, updated_at",
+            "id, patient_name, patient_id, location, symptoms, "
+                + idOfLabel("ambulance_types", "dispatch_requests.ambulance_type") + ", "
+                + idOfLabel("severities", "dispatch_requests.severity") + ", hospital_assigned, "
+                + idOfLabel("dispatch_statuses", "dispatch_requests.status") + ", dispatched_by, created_at, updated_at"));
+        sql.addAll(rebuild("emergency_cases", """
+            CREATE TABLE emergency_cases_new (
+                id                 INTEGER PRIMARY KEY AUTOINCREMENT,
+                patient_name       TEXT NOT NULL,
+                location           TEXT NOT NULL,
+                symptoms           TEXT,
+                emergency_level_id INTEGER NOT NULL REFERENCES emergency_levels(id),
+                status             TEXT DEFAULT 'Active',
+                assigned_resources TEXT DEFAULT '',
+                coordinator        TEXT,
+                created_at         INTEGER NOT NULL DEFAULT (%1$s),
+                updated_at         INTEGER NOT NULL DEFAULT (%1$s)
+            )
+            """.formatted(NOW_MILLIS),
+            "id, patient_name, location, symptoms, emergency_level_id, status, assigned_resources,"
+                + " coordinator, created_at, updated_at",
+            "id, patient_name, location, symptoms, "
+                + idOfLabel("emergency_levels", "emergency_cases.emergency_level")
+                + ", status, assigned_resources, coordinator, created_at, updated_at"));
+
+        // Indexes from v2, v3 and v7 on the rebuilt tables
+        sql.add("CREATE INDEX idx_patients_name ON patients(name)");
+        sql.add("CREATE INDEX idx_patients_updated_id ON patients(updated_at, id)");
+        sql.add("CREATE INDEX idx_dispatch_created_id ON dispatch_requests(created_at DESC, id DESC)");
+        sql.add("CREATE INDEX idx_dispatch_updated_id ON dispatch_requests(updated_at, id)");
+        sql.add("CREATE INDEX idx_cases_status_created ON emergency_cases(status, created_at)");
+        sql.add("CREATE INDEX idx_cases_created_id ON emergency_cases(created_at DESC, id DESC)");
+        sql.add("CREATE INDEX idx_cases_updated_id ON emergency_cases(updated_at, id)");
+
+        sql.addAll(patientFtsTriggers());
+        for (String table : FEED_TABLES) sql.addAll(changeLogTriggers(table));
+
+        sql.add("""
+            CREATE VIEW patients_localtime AS
+            SELECT p.id, p.name, p.age, p.contact, p.symptoms, p.diagnosis, p.prescription,
+                   ps.label AS status, p.registered_by,
+                   datetime(p.registered_at / 1000, 'unixepoch', 'localtime') AS registered_at,
+                   datetime(p.updated_at / 1000, 'unixepoch', 'localtime') AS updated_at,
+                   sv.label AS triage_severity
+            FROM patients p
+            LEFT JOIN patient_statuses ps ON ps.id = p.status_id
+            LEFT JOIN severities sv ON sv.id = p.triage_severity_id
+            """);
+        sql.add("""
+            CREATE VIEW dispatch_requests_localtime AS
+            SELECT d.id, d.patient_name, d.patient_id, d.location, d.symptoms,
+                   am.label AS ambulance_type, sv.label AS severity, d.hospital_assigned,
+                   ds.label AS status, d.dispatched_by,
+                   datetime(d.created_at / 1000, 'unixepoch', 'localtime') AS created_at,
+                   datetime(d.updated_at / 1000, 'unixepoch', 'localtime') AS updated_at
+            FROM dispatch_requests d
+            LEFT JOIN ambulance_types am ON am.id = d.ambulance_type_id
+            LEFT JOIN severities sv ON sv.id = d.severity_id
+            LEFT JOIN dispatch_statuses ds ON ds.id = d.status_id
+            """);
+        sql.add("""
+            CREATE VIEW emergency_cases_localtime AS
+            SELECT c.id, c.patient_name, c.location, c.symptoms, el.label AS emergency_level,
+                   c.status, c.assigned_resources, c.coordinator,
+                   datetime(c.created_at / 1000, 'unixepoch', 'localtime') AS created_at,
+                   datetime(c.updated_at / 1000, 'unixepoch', 'localtime') AS updated_at
+            FROM emergency_cases c
+            LEFT JOIN emergency_levels el ON el.id = c.emergency_level_id
+            """);
+
+        return new Migration(9, "Lookup tables for status, severity, ambulance type and emergency level",
+                             List.copyOf(sql));
+    }
+
+    /** CREATE TABLE for a lookup table plus its initial labels, numbered from 1 in the order given. */
+    private static List<String> lookupTable(String table, String... labels) {
+        List<String> sql = new ArrayList<>();
+        sql.add("CREATE TABLE " + table + " (id INTEGER PRIMARY KEY, label TEXT NOT NULL UNIQUE)");
+        for (int i = 0; i < labels.length; i++) {
+            sql.add("INSERT INTO " + table + " (id, label) VALUES (" + (i + 1) + ", '" + labels[i] + "')");
+        }
+        return sql;
+    }
+
+    /** Adds every distinct non-NULL label from {@code select} not yet in {@code table}, numbered from FIRST_LEGACY_ID. */
+    private static String legacyLabels(String table, String select) {
+        return "INSERT INTO " + table + " (id, label)"
+             + " SELECT " + (FIRST_LEGACY_ID - 1) + " + ROW_NUMBER() OVER (ORDER BY label), label"
+             + " FROM (SELECT DISTINCT label FROM (" + select + ")"
+             + " WHERE label IS NOT NULL AND label NOT IN (SELECT label FROM " + table + "))";
+    }
+
+    /** Id of the row in {@code table} whose label equals {@code column}; NULL if the column is NULL. */
+    private static String idOfLabel(String table, String column) {
+        return "(SELECT l.id FROM " + table + " l WHERE l.label = " + column + ")";
+    }
+
+    // ─────────────────────────────────────────────
+    //  v10 — change_log for cached tables
+    // ─────────────────────────────────────────────
+
+    /**
+     * Tables the DAOs cache in memory. Their changes are logged like the
+     * feed tables', so ChangeFeed can invalidate the caches when another
+     * workstation writes. A migration that rebuilds one of these tables must
+     * recreate these triggers too.
+     */
+    static final List<String> CACHED_TABLES = List.of("hospitals", "users");
+
+    private static Migration cachedTableChangeLog() {
+        List<String> sql = new ArrayList<>();
+        for (String table : CACHED_TABLES) sql.addAll(changeLogTriggers(table));
+        return new Migration(10, "Change log triggers on hospitals and users", List.copyOf(sql));
+    }
+
+    // ─────────────────────────────────────────────
+    //  v11 — dispatch → hospital link for the ambulance ledger
+    // ─────────────────────────────────────────────
+
+    /**
+     * dispatch_requests.hospital_id names the hospital whose unit a dispatch
+     * holds (AmbulanceLedger); hospital_assigned stays as the display text.
+     * Existing rows are left NULL — their units were never reserved, so
+     * closing them must not give any back.
+     *
+     * Adds the Completed status as code 4. A 'Completed' label that v9
+     * imported from old rows (numbered from FIRST_LEGACY_ID) is folded into it.
+     */
+    private static Migration dispatchHospitalLedger() {
+        return Migration.of(11, "Hospital id on dispatches and the Completed status",
+            "ALTER TABLE dispatch_requests ADD COLUMN hospital_id INTEGER REFERENCES hospitals(id)",
+            "CREATE INDEX IF NOT EXISTS idx_dispatch_hospital_status ON dispatch_requests(hospital_id, status_id)",
+            "UPDATE dispatch_requests SET status_id = 4 WHERE status_id IN"
+                + " (SELECT id FROM dispatch_statuses WHERE label = 'Completed' AND id >= " + FIRST_LEGACY_ID + ")",
+            "DELETE FROM dispatch_statuses WHERE label = 'Completed' AND id >= " + FIRST_LEGACY_ID,
+            "INSERT INTO dispatch_statuses (id, label) VALUES (4, 'Completed')"
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v12 — pending dispatches
+    // ─────────────────────────────────────────────
+
+    /**
+     * Partial index over the Pending dispatches, which DispatchScheduler
+     * loads at startup. It only holds the open calls, so it stays small
+     * however long the dispatch history grows. The literal 1 is
+     * DispatchStatus.PENDING; SQLite uses a partial index only for a query
+     * that repeats its WHERE term.
+     */
+    private static Migration pendingDispatchIndex() {
+        return Migration.of(12, "Partial index on pending dispatches",
+            "CREATE INDEX IF NOT EXISTS idx_dispatch_pending ON dispatch_requests(created_at, id) WHERE status_id = 1"
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v13 — coordinates and the geocode cache
+    // ─────────────────────────────────────────────
+
+    /**
+     * Latitude/longitude (WGS84 degrees) on hospitals and on dispatch
+     * pickups, NULL until geocoded. geocode_cache keeps every resolved
+     * place name (normalised: lower case, single spaces) so a name is only
+     * looked up in the gazetteer once per database; rows with source
+     * 'manual' can be added by hand to override the gazetteer.
+     */
+    private static Migration geoCoordinates() {
+        return Migration.of(13, "Coordinates on hospitals and dispatches, geocode cache",
+            "ALTER TABLE hospitals ADD COLUMN latitude REAL",
+            "ALTER TABLE hospitals ADD COLUMN longitude REAL",
+            "ALTER TABLE dispatch_requests ADD COLUMN latitude REAL",
+            "ALTER TABLE dispatch_requests ADD COLUMN longitude REAL",
+            """
+            CREATE TABLE IF NOT EXISTS geocode_cache (
+                query       TEXT PRIMARY KEY,
+                latitude    REAL NOT NULL,
+                longitude   REAL NOT NULL,
+                source      TEXT NOT NULL,
+                resolved_at INTEGER NOT NULL DEFAULT (%s)
+            ) WITHOUT ROWID
+            """.formatted(NOW_MILLIS)
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    //  v14 — re-triage checkpoints keyed on content
+    // ─────────────────────────────────────────────
+
+    /**
+     * The version label in symptom-keywords.txt is typed by hand and often
+     * not bumped on an edit, so checkpoints also record the dictionary's
+     * content hash (SymptomDictionary.fingerprint) and resume only when it
+     * matches. Existing checkpoints get '' and so are never resumed.
+     */
+    private static Migration retriageFingerprint() {
+        return Migration.of(14, "Dictionary fingerprint on re-triage checkpoints",
+            "ALTER TABLE retriage_checkpoints ADD COLUMN dictionary_fingerprint TEXT NOT NULL DEFAULT ''"
+        );
+    }
+}
@@ -1,21 +1,58 @@
 package com.badas.dao;
 
 import com.badas.model.Patient;
+import com.badas.model.PatientSearchHit;
+import com.badas.model.Severity;
+import com.badas.util.Timestamps;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class PatientDAO {
 
+    /** Result cap for search() — enough for a screen of matches. */
+    public static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    /** Status labels, shared by every PatientDAO so each is read once per process. */
+    private static final LabelDictionary STATUSES = new LabelDictionary("patient_statuses");
+
+    /** Every column, in the order fill() reads them by position. */
+    private static final String COLUMNS =
+        "id, name, age, contact, symptoms, diagnosis, prescription, status_id, registered_by,"
+        + " registered_at, updated_at, triage_severity_id";
+
+    /** Longest symptoms / diagnosis / prescription text carried by a list row; longer text ends in "…". */
+    public static final int PREVIEW_LENGTH = 120;
+
+    /**
+     * What the patient lists display, in the order fillSummary() reads them:
+     * the long text fields cut to PREVIEW_LENGTH in SQL, and no
+     * registered_by or triage severity.
+     */
+    private static final String SUMMARY_COLUMNS = summaryColumns("");
+
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM patients ORDER BY name";
+
+    /** INSERT shared by save() and saveAll(); bindInsert() fills one row's INSERT_PARAMS values. */
+    private static final String INSERT_INTO = """
+        INSERT INTO patients (name, age, contact, symptoms, diagnosis, prescription, status_id,
+                              triage_severity_id, registered_by)""";
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, (SELECT id FROM patient_statuses WHERE label = ?), ?, ?)";
+    private static final int    INSERT_PARAMS = 9;
+
     private final DatabaseManager db = DatabaseManager.getInstance();
+    private final RowCursor<Patient> cursor = new RowCursor<>(db, SELECT_ALL, Patient::new, this::fill);
 
     public List<Patient> findAll() {
         List<Patient> list = new ArrayList<>();
-        String sql = "SELECT * FROM patients ORDER BY name";
-        try (Connection conn = db.getConnection();
+        try (Connection conn = db.getReadConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next()) list.add(mapRow(rs));
         } catch (SQLException e) {
             System.err.println("PatientDAO.findAll: " + e.getMessage());
@@ -23,9 +60,88 @@ public class PatientDAO {
         return list;
     }
 
+    /**
+     * Calls {@code action} for every patient in findAll() order, reading
+     * through one open cursor instead of building a list. Returns false if
+     * the read failed part-way (the error is logged).
+     */
+    public boolean forEach(Consumer<? super Patient> action) {
+        return forEach(RowCursor.DEFAULT_FETCH_SIZE, false, action);
+    }
+
+    /**
+     * As forEach(action), with an explicit driver fetch size. With
+     * {@code reuseRow} a single Patient is refilled for every row; the action
+     * must not keep a reference to it.
+     */
+    public boolean forEach(int fetchSize, boolean reuseRow, Consumer<? super Patient> action) {
+        try {
+            cursor.forEach(fetchSize, reuseRow, action);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.forEach: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Lazy stream in findAll() order. Close it (try-with-resources) to give the connection back. */
+    public Stream<Patient> stream() {
+        return stream(RowCursor.DEFAULT_FETCH_SIZE);
+    }
+
+    public Stream<Patient> stream(int fetchSize) {
+        try {
+            return cursor.stream(fetchSize);
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.stream: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /** Every patient as a list row (see fillSummary), in findAll() order. */
+    public List<Patient> findAllSummaries() {
+        List<Patient> list = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM patients ORDER BY name";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) list.add(mapSummary(rs));
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.findAllSummaries: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * Keyset page of list rows (see fillSummary) in findAll() order (by
+     * name). Pass null / 0 for the first page, then the name and id of the
+     * last row already shown.
+     */
+    public List<Patient> findPage(String afterName, int afterId, int limit) {
+        List<Patient> list = new ArrayList<>(limit);
+        String sql = afterName == null
+            ? "SELECT " + SUMMARY_COLUMNS + " FROM patients ORDER BY name, id LIMIT ?"
+            : "SELECT " + SUMMARY_COLUMNS + " FROM patients WHERE (name, id) > (?, ?) ORDER BY name, id LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (afterName != null) {
+                ps.setString(i++, afterName);
+                ps.setInt(i++, afterId);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapSummary(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.findPage: " + e.getMessage());
+        }
+        return list;
+    }
+
     public Patient findById(int id) {
-        String sql = "SELECT * FROM patients WHERE id = ?";
-        try (Connection conn = db.getConnection();
+        String sql = "SELECT " + COLUMNS + " FROM patients WHERE id = ?";
+        try (Connection conn = db.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -37,136 +153,384 @@ public class PatientDAO {
         return null;
     }
 
-    public List<Patient> search(String query) {
-        List<Patient> list = new ArrayList<>();
-        String sql = "SELECT * FROM patients WHERE LOWER(name) LIKE ? OR LOWER(symptoms) LIKE ? ORDER BY name";
-        String pattern = "%" + query.toLowerCase() + "%";
-        try (Connection conn = db.getConnection();
+    /** Rows with the given ids (in no particular order); missing ids are skipped. */
+    public List<Patient> findByIds(Collection<Integer> ids) {
+        List<Patient> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) return list;
+        String sql = "SELECT " + COLUMNS + " FROM patients WHERE id IN (" + "?,".repeat(ids.size() - 1) + "?)";
+        try (Connection conn = db.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, pattern);
-            ps.setString(2, pattern);
+            int i = 1;
+            for (int id : ids) ps.setInt(i++, id);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) list.add(mapRow(rs));
             }
         } catch (SQLException e) {
-            System.err.println("PatientDAO.search: " + e.getMessage());
+            System.err.println("PatientDAO.findByIds: " + e.getMessage());
         }
         return list;
     }
 
-    public int save(Patient p) {
+    /**
+     * List rows (see fillSummary) inserted or updated after (sinceUpdatedAt,
+     * afterId), oldest change first. Pass the updated_at and id of the last
+     * row already merged to continue; 0 starts from the beginning. Deletes
+     * are not visible here.
+     */
+    public List<Patient> findChangedSince(long sinceUpdatedAt, int afterId, int limit) {
+        List<Patient> list = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM patients WHERE (updated_at, id) > (?, ?) ORDER BY updated_at, id LIMIT ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, sinceUpdatedAt);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapSummary(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.findChangedSince: " + e.getMessage());
+        }
+        return list;
+    }
+
+    /** Newest updated_at in the table, or 0 if it is empty. */
+    public long latestUpdatedAt() {
+        String sql = "SELECT MAX(updated_at) FROM patients";
+        try (Connection conn = db.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) return rs.getLong(1);
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.latestUpdatedAt: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Full-text search over name, symptoms and diagnosis, best match first.
+     * Every word typed is treated as a prefix and all words must match.
+     */
+    public List<Patient> search(String query) {
+        List<Patient> list = new ArrayList<>();
+        for (PatientSearchHit hit : searchRanked(query, DEFAULT_SEARCH_LIMIT)) {
+            list.add(hit.getPatient());
+        }
+        return list;
+    }
+
+    /**
+     * Top-N full-text matches with a highlighted snippet of the best-matching
+     * column. Served from the patients_fts index, so cost depends on the
+     * number of matches rather than the size of the patients table.
+     */
+    public List<PatientSearchHit> searchRanked(String query, int limit) {
+        List<PatientSearchHit> hits = new ArrayList<>();
+        String match = toFtsQuery(query);
+        if (match.isEmpty()) return hits;
+
         String sql = """
-            INSERT INTO patients (name, age, contact, symptoms, diagnosis, prescription, status, registered_by)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, p.getName());
-            ps.setInt(2, p.getAge());
-            ps.setString(3, p.getContact());
-            ps.setString(4, p.getSymptoms());
-            ps.setString(5, coalesce(p.getDiagnosis(), "Pending"));
-            ps.setString(6, coalesce(p.getPrescription(), ""));
-            ps.setString(7, coalesce(p.getStatus(), "Registered"));
-            ps.setString(8, p.getRegisteredBy());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getInt(1);
+            SELECT %s,
+                   snippet(patients_fts, -1, ?, ?, '…', 12) AS snippet,
+                   patients_fts.rank                            AS score
+            FROM patients_fts
+            JOIN patients p ON p.id = patients_fts.rowid
+            WHERE patients_fts MATCH ?
+            ORDER BY patients_fts.rank
+            LIMIT ?
+            """.formatted(summaryColumns("p."));
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, String.valueOf(PatientSearchHit.HIGHLIGHT_START));
+            ps.setString(2, String.valueOf(PatientSearchHit.HIGHLIGHT_END));
+            ps.setString(3, match);
+            ps.setInt(4, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    hits.add(new PatientSearchHit(mapSummary(rs), rs.getString(11), rs.getDouble(12)));
+                }
             }
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.searchRanked: " + e.getMessage());
+        }
+        return hits;
+    }
+
+    /**
+     * Turns free text into an FTS5 query: each word becomes a quoted prefix
+     * term ("ches"*), implicitly ANDed. Punctuation is dropped, so user input
+     * can never inject FTS operators.
+     */
+    private static String toFtsQuery(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder();
+        for (String token : text.split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('"').append(token).append("\"*");
+        }
+        return sb.toString();
+    }
+
+    public int save(Patient p) {
+        String sql = INSERT_INTO + " VALUES " + INSERT_VALUES;
+        try {
+            return db.write(conn -> {
+                STATUSES.ensure(conn, statusOf(p));
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsert(ps, 1, p);
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        return rs.next() ? rs.getInt(1) : -1;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("PatientDAO.save: " + e.getMessage());
         }
         return -1;
     }
 
+    /**
+     * Registers all the patients in one write — one transaction and one
+     * commit — using multi-row INSERTs. Returns the new ids in list order,
+     * or null if the write failed, in which case none of them was saved.
+     */
+    public BulkResult saveAll(List<Patient> patients) {
+        long start = System.nanoTime();
+        try {
+            List<Integer> ids = db.write(conn -> {
+                for (String status : patients.stream().map(this::statusOf).distinct().toList()) {
+                    STATUSES.ensure(conn, status);
+                }
+                return BulkWrites.insert(conn, INSERT_INTO, INSERT_VALUES, INSERT_PARAMS, patients, this::bindInsert);
+            });
+            return new BulkResult(ids, System.nanoTime() - start);
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.saveAll: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Writes every field back; a summary row (see Patient.isSummary) is refused, since it would truncate text. */
     public boolean update(Patient p) {
+        if (p.isSummary()) {
+            System.err.println("PatientDAO.update: patient " + p.getId() + " is a list row, load it with findById first");
+            return false;
+        }
         String sql = """
             UPDATE patients
             SET name = ?, age = ?, contact = ?, symptoms = ?,
-                diagnosis = ?, prescription = ?, status = ?,
-                updated_at = datetime('now','localtime')
+                diagnosis = ?, prescription = ?,
+                status_id = (SELECT id FROM patient_statuses WHERE label = ?),
+                updated_at = ?
             WHERE id = ?
             """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, p.getName());
-            ps.setInt(2, p.getAge());
-            ps.setString(3, p.getContact());
-            ps.setString(4, p.getSymptoms());
-            ps.setString(5, coalesce(p.getDiagnosis(), "Pending"));
-            ps.setString(6, coalesce(p.getPrescription(), ""));
-            ps.setString(7, coalesce(p.getStatus(), "Registered"));
-            ps.setInt(8, p.getId());
-            return ps.executeUpdate() > 0;
+        String status = coalesce(p.getStatus(), "Registered");
+        try {
+            return db.write(conn -> {
+                STATUSES.ensure(conn, status);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, p.getName());
+                    ps.setInt(2, p.getAge());
+                    ps.setString(3, p.getContact());
+                    ps.setString(4, p.getSymptoms());
+                    ps.setString(5, coalesce(p.getDiagnosis(), "Pending"));
+                    ps.setString(6, coalesce(p.getPrescription(), ""));
+                    ps.setString(7, status);
+                    ps.setLong(8, Timestamps.now());
+                    ps.setInt(9, p.getId());
+                    return ps.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             System.err.println("PatientDAO.update: " + e.getMessage());
             return false;
         }
     }
 
-    public boolean updateDiagnosis(int id, String diagnosis, String prescription) {
+    /** Records diagnosis and prescription and returns the updated row, or null on failure. */
+    public Patient updateDiagnosis(int id, String diagnosis, String prescription) {
         String sql = """
             UPDATE patients
-            SET diagnosis = ?, prescription = ?, updated_at = datetime('now','localtime')
+            SET diagnosis = ?, prescription = ?, updated_at = ?
             WHERE id = ?
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, diagnosis);
-            ps.setString(2, prescription);
-            ps.setInt(3, id);
-            return ps.executeUpdate() > 0;
+            RETURNING %s
+            """.formatted(COLUMNS);
+        try {
+            return db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, diagnosis);
+                    ps.setString(2, prescription);
+                    ps.setLong(3, Timestamps.now());
+                    ps.setInt(4, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next() ? mapRow(rs) : null;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("PatientDAO.updateDiagnosis: " + e.getMessage());
-            return false;
+            return null;
         }
     }
 
-    public boolean updateStatus(int id, String status) {
+    /** Sets the status and returns the updated row, or null if it no longer exists or the write failed. */
+    public Patient updateStatus(int id, String status) {
         String sql = """
             UPDATE patients
-            SET status = ?, updated_at = datetime('now','localtime')
+            SET status_id = (SELECT id FROM patient_statuses WHERE label = ?), updated_at = ?
             WHERE id = ?
-            """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, id);
-            return ps.executeUpdate() > 0;
+            RETURNING %s
+            """.formatted(COLUMNS);
+        try {
+            return db.write(conn -> {
+                STATUSES.ensure(conn, status);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, status);
+                    ps.setLong(2, Timestamps.now());
+                    ps.setInt(3, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next() ? mapRow(rs) : null;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("PatientDAO.updateStatus: " + e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Sets the status of every patient in the map (id → non-null status) in
+     * one write, with one UPDATE per distinct status. Returns the ids that
+     * were updated — ids that no longer exist are left out — or null if the
+     * write failed and nothing changed.
+     */
+    public BulkResult updateStatusAll(Map<Integer, String> statuses) {
+        String sql = """
+            UPDATE patients
+            SET status_id = (SELECT id FROM patient_statuses WHERE label = ?), updated_at = ?
+            WHERE id IN (%s)""";
+        long start = System.nanoTime();
+        try {
+            List<Integer> ids = db.write(conn -> {
+                long now = Timestamps.now();
+                List<Integer> updated = new ArrayList<>(statuses.size());
+                for (Map.Entry<String, List<Integer>> group : BulkWrites.byValue(statuses).entrySet()) {
+                    STATUSES.ensure(conn, group.getKey());
+                    updated.addAll(BulkWrites.updateByIds(conn, sql, group.getValue(), group.getKey(), now));
+                }
+                return updated;
+            });
+            return new BulkResult(ids, System.nanoTime() - start);
+        } catch (SQLException e) {
+            System.err.println("PatientDAO.updateStatusAll: " + e.getMessage());
+            return null;
         }
     }
 
     public boolean delete(int id) {
         String sql = "DELETE FROM patients WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            return db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    return ps.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             System.err.println("PatientDAO.delete: " + e.getMessage());
             return false;
         }
     }
 
+    private void bindInsert(PreparedStatement ps, int first, Patient p) throws SQLException {
+        ps.setString(first,     p.getName());
+        ps.setInt(first + 1,    p.getAge());
+        ps.setString(first + 2, p.getContact());
+        ps.setString(first + 3, p.getSymptoms());
+        ps.setString(first + 4, coalesce(p.getDiagnosis(), "Pending"));
+        ps.setString(first + 5, coalesce(p.getPrescription(), ""));
+        ps.setString(first + 6, statusOf(p));
+        Lookups.bind(ps, first + 7, p.getTriageSeverity());
+        ps.setString(first + 8, p.getRegisteredBy());
+    }
+
+    private String statusOf(Patient p) {
+        return coalesce(p.getStatus(), "Registered");
+    }
+
     private Patient mapRow(ResultSet rs) throws SQLException {
         Patient p = new Patient();
-        p.setId(rs.getInt("id"));
-        p.setName(rs.getString("name"));
-        p.setAge(rs.getInt("age"));
-        p.setContact(rs.getString("contact"));
-        p.setSymptoms(rs.getString("symptoms"));
-        p.setDiagnosis(rs.getString("diagnosis"));
-        p.setPrescription(rs.getString("prescription"));
-        p.setStatus(rs.getString("status"));
-        p.setRegisteredBy(rs.getString("registered_by"));
-        p.setRegisteredAt(rs.getString("registered_at"));
-        p.setUpdatedAt(rs.getString("updated_at"));
+        fill(rs, p);
         return p;
     }
 
+    /** Sets every field from the current row, so a reused object carries nothing over. */
+    private void fill(ResultSet rs, Patient p) throws SQLException {
+        p.setId(rs.getInt(1));
+        p.setName(rs.getString(2));
+        p.setAge(rs.getInt(3));
+        p.setContact(rs.getString(4));
+        p.setSymptoms(rs.getString(5));
+        p.setDiagnosis(rs.getString(6));
+        p.setPrescription(rs.getString(7));
+        p.setStatus(statusLabel(rs, 8));
+        p.setRegisteredBy(rs.getString(9));
+        p.setRegisteredAt(rs.getLong(10));
+        p.setUpdatedAt(rs.getLong(11));
+        p.setTriageSeverity(Lookups.read(rs, 12, Severity::fromCode));
+        p.setSummary(false);
+    }
+
+    private Patient mapSummary(ResultSet rs) throws SQLException {
+        Patient p = new Patient();
+        fillSummary(rs, p);
+        return p;
+    }
+
+    /**
+     * Reads a SUMMARY_COLUMNS row: symptoms, diagnosis and prescription are
+     * previews, registeredBy and triageSeverity are left null, and the
+     * patient is flagged as a summary. findById() loads the full record.
+     */
+    private void fillSummary(ResultSet rs, Patient p) throws SQLException {
+        p.setId(rs.getInt(1));
+        p.setName(rs.getString(2));
+        p.setAge(rs.getInt(3));
+        p.setContact(rs.getString(4));
+        p.setSymptoms(rs.getString(5));
+        p.setDiagnosis(rs.getString(6));
+        p.setPrescription(rs.getString(7));
+        p.setStatus(statusLabel(rs, 8));
+        p.setRegisteredBy(null);
+        p.setRegisteredAt(rs.getLong(9));
+        p.setUpdatedAt(rs.getLong(10));
+        p.setTriageSeverity(null);
+        p.setSummary(true);
+    }
+
+    private static String statusLabel(ResultSet rs, int column) throws SQLException {
+        int statusId = rs.getInt(column);
+        return rs.wasNull() ? null : STATUSES.label(rs.getStatement().getConnection(), statusId);
+    }
+
+    /** SUMMARY_COLUMNS, with each column prefixed by {@code prefix} (e.g. "p." in a join). */
+    private static String summaryColumns(String prefix) {
+        return prefix + "id, " + prefix + "name, " + prefix + "age, " + prefix + "contact, "
+             + preview(prefix + "symptoms") + ", " + preview(prefix + "diagnosis") + ", "
+             + preview(prefix + "prescription") + ", "
+             + prefix + "status_id, " + prefix + "registered_at, " + prefix + "updated_at";
+    }
+
+    /** The column cut to PREVIEW_LENGTH characters, ending in "…" when something was cut. */
+    private static String preview(String column) {
+        return "CASE WHEN length(" + column + ") > " + PREVIEW_LENGTH
+             + " THEN substr(" + column + ", 1, " + (PREVIEW_LENGTH - 1) + ") || '…'"
+             + " ELSE " + column + " END";
+    }
+
     private String coalesce(String value, String fallback) {
         return (value == null || value.isEmpty()) ? fallback : value;
     }
@@ -0,0 +1,118 @@
+package com.badas.dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded LRU cache in front of a DAO query, for tables that change
+ * rarely but are read on every screen (hospitals, users).
+ *
+ * get() returns the cached value or runs the loader and keeps its result;
+ * a loader returns null when the read failed, and nothing is cached then.
+ * The owning DAO invalidates entries after its own writes commit, and
+ * ChangeFeed invalidates them when change_log shows a write from another
+ * connection or workstation.
+ *
+ * Loads run outside the lock. Every invalidation bumps a generation
+ * counter, and a load that started before an invalidation is returned to
+ * its caller but not cached, so a slow read can never put back a row that
+ * was invalidated while it ran.
+ */
+public final class ReadThroughCache<K, V> {
+
+    /** Snapshot of cache counters for diagnostics. */
+    public record Stats(String name, int size, int maxEntries, long hits, long misses,
+                        long evictions, long invalidations, double avgLoadMillis) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : hits / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s cache: size=%d/%d hits=%d misses=%d (%.1f%%) evicted=%d invalidated=%d avgLoad=%.3fms",
+                    name, size, maxEntries, hits, misses, hitRatio() * 100, evictions, invalidations, avgLoadMillis);
+        }
+    }
+
+    private final String name;
+    private final int    maxEntries;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private final LongAdder hits          = new LongAdder();
+    private final LongAdder misses        = new LongAdder();
+    private final LongAdder evictions     = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loadNanos     = new LongAdder();
+
+    ReadThroughCache(String name, int maxEntries) {
+        this.name       = name;
+        this.maxEntries = maxEntries;
+    }
+
+    /** The cached value for {@code key}, or the loader's result (null if the load failed). */
+    V get(K key, Function<? super K, ? extends V> loader) {
+        long startGeneration;
+        synchronized (this) {
+            V value = entries.get(key);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+            startGeneration = generation;
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        V loaded = loader.apply(key);
+        loadNanos.add(System.nanoTime() - start);
+        if (loaded == null) return null;
+
+        synchronized (this) {
+            if (generation == startGeneration) store(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Caches a value the owner has just written itself, so the next get()
+     * does not read it back. Like an invalidation, it supersedes any load
+     * already in flight for the cache.
+     */
+    synchronized void put(K key, V value) {
+        generation++;
+        store(key, value);
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        invalidations.increment();
+        entries.remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        invalidations.increment();
+        entries.clear();
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, value);
+        if (entries.size() > maxEntries) {
+            Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized Stats stats() {
+        long loads = misses.sum();
+        return new Stats(name, entries.size(), maxEntries, hits.sum(), loads, evictions.sum(),
+                invalidations.sum(), loads == 0 ? 0 : loadNanos.sum() / (double) loads / 1_000_000.0);
+    }
+}
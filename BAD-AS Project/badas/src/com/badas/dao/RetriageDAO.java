@@ -0,0 +1,158 @@
+package com.badas.dao;
+
+import com.badas.model.Severity;
+import com.badas.util.Timestamps;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Data access for the batch re-triage job: keyset scans over the scored
+ * tables, batched severity updates and the restart checkpoint.
+ *
+ * Unlike the interactive DAOs, failures are thrown rather than logged and
+ * swallowed — the job has to stop (and keep its checkpoint) on an error
+ * instead of mistaking an empty result for the end of the table.
+ */
+public class RetriageDAO {
+
+    /** Tables the job re-scores, with the column that holds the severity code. */
+    public enum Target {
+        DISPATCHES("dispatch_requests", "severity_id"),
+        PATIENTS("patients", "triage_severity_id");
+
+        private final String table;
+        private final String column;
+
+        Target(String table, String column) {
+            this.table  = table;
+            this.column = column;
+        }
+
+        public String table() { return table; }
+    }
+
+    /** The fields the job needs from one row. */
+    public record Row(int id, String symptoms, Severity severity) {}
+
+    /** New severity for a row, applied only if its symptoms are still the ones that were scored. */
+    public record Change(int id, String symptoms, Severity severity) {}
+
+    /** {@code dictionaryFingerprint} decides whether a run may resume; the version label is for display. */
+    public record Checkpoint(String dictionaryVersion, String dictionaryFingerprint, int lastId,
+                             long processed, long changed, boolean completed) {}
+
+    private final DatabaseManager db = DatabaseManager.getInstance();
+
+    /** Next {@code limit} rows after {@code afterId}, in id order. */
+    public List<Row> findChunk(Target target, int afterId, int limit) throws SQLException {
+        String sql = "SELECT id, symptoms, " + target.column + " FROM " + target.table
+                   + " WHERE id > ? ORDER BY id LIMIT ?";
+        List<Row> rows = new ArrayList<>(limit);
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(limit);
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Row(rs.getInt(1), rs.getString(2), Lookups.read(rs, 3, Severity::fromCode)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    public long countAfter(Target target, int afterId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + target.table + " WHERE id > ?";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    public Checkpoint findCheckpoint(String job, Target target) throws SQLException {
+        String sql = """
+            SELECT dictionary_version, dictionary_fingerprint, last_id, processed, changed, completed
+            FROM retriage_checkpoints WHERE job = ? AND table_name = ?
+            """;
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, job);
+            ps.setString(2, target.table);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new Checkpoint(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getLong(4), rs.getLong(5),
+                                      rs.getInt(6) != 0);
+            }
+        }
+    }
+
+    /**
+     * Queues one chunk's updates and its checkpoint as a single write task,
+     * so the checkpoint can never get ahead of (or behind) the data it
+     * describes. The future completes once the batch has committed.
+     */
+    public CompletableFuture<Void> applyChunk(String job, Target target, List<Change> changes, Checkpoint cp) {
+        String update = "UPDATE " + target.table + " SET " + target.column + " = ?,"
+                      + " updated_at = ?"
+                      + " WHERE id = ? AND symptoms IS ?";
+        return db.writeAsync(conn -> {
+            if (!changes.isEmpty()) {
+                try (PreparedStatement ps = conn.prepareStatement(update)) {
+                    for (Change c : changes) {
+                        ps.setInt(1, c.severity().code());
+                        ps.setLong(2, Timestamps.now());
+                        ps.setInt(3, c.id());
+                        ps.setString(4, c.symptoms());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            saveCheckpoint(conn, job, target, cp);
+            return null;
+        });
+    }
+
+    public void saveCheckpoint(String job, Target target, Checkpoint cp) throws SQLException {
+        db.write(conn -> {
+            saveCheckpoint(conn, job, target, cp);
+            return null;
+        });
+    }
+
+    private void saveCheckpoint(Connection conn, String job, Target target, Checkpoint cp) throws SQLException {
+        String sql = """
+            INSERT INTO retriage_checkpoints
+              (job, table_name, dictionary_version, dictionary_fingerprint, last_id, processed, changed,
+               completed, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (job, table_name) DO UPDATE SET
+              dictionary_version     = excluded.dictionary_version,
+              dictionary_fingerprint = excluded.dictionary_fingerprint,
+              last_id                = excluded.last_id,
+              processed              = excluded.processed,
+              changed                = excluded.changed,
+              completed              = excluded.completed,
+              updated_at             = excluded.updated_at
+            """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, job);
+            ps.setString(2, target.table);
+            ps.setString(3, cp.dictionaryVersion());
+            ps.setString(4, cp.dictionaryFingerprint());
+            ps.setInt(5, cp.lastId());
+            ps.setLong(6, cp.processed());
+            ps.setLong(7, cp.changed());
+            ps.setInt(8, cp.completed() ? 1 : 0);
+            ps.setLong(9, Timestamps.now());
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.badas.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks a query's result set row by row on one open cursor, for full-table
+ * passes (reports, exports, statistics) that must not hold the whole table
+ * in memory. sqlite-jdbc steps the statement as next() is called, so only
+ * the current row is ever materialized; the fetch size is passed on as a
+ * hint for drivers that buffer.
+ *
+ * A cursor keeps one read connection borrowed until it finishes, so keep
+ * the per-row work short and do not open several at once.
+ */
+final class RowCursor<T> {
+
+    /** Rows per driver fetch when the caller does not choose one. */
+    static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** Copies the current row into {@code row} — a new object, or the reused one. */
+    @FunctionalInterface
+    interface Filler<T> {
+        void fill(ResultSet rs, T row) throws SQLException;
+    }
+
+    private final DatabaseManager db;
+    private final String          sql;
+    private final Supplier<T>     factory;
+    private final Filler<T>       filler;
+
+    RowCursor(DatabaseManager db, String sql, Supplier<T> factory, Filler<T> filler) {
+        this.db      = db;
+        this.sql     = sql;
+        this.factory = factory;
+        this.filler  = filler;
+    }
+
+    /**
+     * Runs {@code action} on every row. With {@code reuseRow} one object is
+     * refilled for each row, so the pass allocates nothing per row — the
+     * action must then copy what it needs and not keep the reference.
+     */
+    void forEach(int fetchSize, boolean reuseRow, Consumer<? super T> action) throws SQLException {
+        T shared = reuseRow ? factory.get() : null;
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    T row = reuseRow ? shared : factory.get();
+                    filler.fill(rs, row);
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lazily evaluated stream over the rows, one new object per row. The
+     * connection stays borrowed until the stream is closed, so use it in
+     * try-with-resources. A read error part-way through is thrown from the
+     * terminal operation as a RuntimeException wrapping the SQLException.
+     */
+    Stream<T> stream(int fetchSize) throws SQLException {
+        Connection conn = db.getReadConnection();
+        PreparedStatement ps = null;
+        ResultSet rs;
+        try {
+            ps = conn.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            rs = ps.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            if (ps != null) closeQuietly(ps);
+            closeQuietly(conn);
+            throw e;
+        }
+
+        PreparedStatement stmt = ps;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) return false;
+                    T row = factory.get();
+                    filler.fill(rs, row);
+                    action.accept(row);
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Cursor read failed: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            closeQuietly(rs);
+            closeQuietly(stmt);
+            closeQuietly(conn);
+        });
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            System.err.println("RowCursor.close: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.badas.dao;
+
+import java.sql.*;
+import java.util.List;
+
+/**
+ * Brings a badas.db file up to the latest schema version.
+ *
+ * Applied versions are recorded in the schema_version table. All pending
+ * migrations run inside a single transaction, so a file is either fully
+ * upgraded or left exactly as it was.
+ */
+public class SchemaMigrator {
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() <= migrations.get(i - 1).version()) {
+                throw new IllegalArgumentException("Migrations must be in strictly increasing version order");
+            }
+        }
+        this.migrations = List.copyOf(migrations);
+    }
+
+    /**
+     * Applies every migration newer than the recorded version.
+     * @return the schema version after migrating.
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version     INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at  TEXT DEFAULT (datetime('now', 'localtime'))
+                )
+                """);
+        }
+
+        int current = currentVersion(conn);
+        List<Migration> pending = migrations.stream()
+                .filter(m -> m.version() > current)
+                .toList();
+        if (pending.isEmpty()) return current;
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement();
+             PreparedStatement record = conn.prepareStatement(
+                     "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            for (Migration m : pending) {
+                for (String sql : m.statements()) {
+                    stmt.execute(sql);
+                }
+                record.setInt(1, m.version());
+                record.setString(2, m.description());
+                record.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration failed, database left at version " + current
+                    + ": " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return pending.get(pending.size() - 1).version();
+    }
+
+    public int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
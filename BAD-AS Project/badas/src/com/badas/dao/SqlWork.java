@@ -0,0 +1,13 @@
+package com.badas.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A unit of JDBC work run against a connection supplied by DatabaseManager.
+ * Used for mutations submitted to the single writer thread.
+ */
+@FunctionalInterface
+public interface SqlWork<T> {
+    T run(Connection conn) throws SQLException;
+}
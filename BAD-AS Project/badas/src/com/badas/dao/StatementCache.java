@@ -0,0 +1,98 @@
+package com.badas.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepared statements kept open on one physical connection, keyed by SQL
+ * text, so a DAO call that runs the same SQL again skips SQLite's parse and
+ * plan step. Least recently used statements are closed once the cache is
+ * full.
+ *
+ * A statement is taken out of the cache while it is in use and put back
+ * when its proxy is closed, so running the same SQL twice at once on one
+ * connection simply prepares a second copy. Only the thread that has
+ * borrowed the connection touches its cache, so it is not synchronized.
+ */
+final class StatementCache {
+
+    /** Pool-wide counters, shared by the caches of every connection in the pool. */
+    record Counters(LongAdder hits, LongAdder misses, LongAdder evictions) {
+        Counters() {
+            this(new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    /** Which prepareStatement variant produced the statement, as well as its SQL. */
+    record Key(String sql, int autoGeneratedKeys) {}
+
+    private final Connection physical;
+    private final int        capacity;
+    private final Counters   counters;
+    private final LinkedHashMap<Key, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, Counters counters) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.counters = counters;
+    }
+
+    /** A cached statement for this key, or a newly prepared one. */
+    PreparedStatement take(Key key) throws SQLException {
+        PreparedStatement ps = idle.remove(key);
+        if (ps != null && !ps.isClosed()) {
+            counters.hits().increment();
+            return ps;
+        }
+        counters.misses().increment();
+        return key.autoGeneratedKeys() == Statement.NO_GENERATED_KEYS
+            ? physical.prepareStatement(key.sql())
+            : physical.prepareStatement(key.sql(), key.autoGeneratedKeys());
+    }
+
+    /**
+     * Puts a statement back once its user is done with it. Parameters and
+     * batches are cleared; if that fails, or a copy is already cached, the
+     * statement is closed instead.
+     */
+    void giveBack(Key key, PreparedStatement ps) {
+        if (capacity == 0 || idle.containsKey(key)) {
+            closeQuietly(ps);
+            return;
+        }
+        try {
+            ps.clearParameters();
+            ps.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(ps);
+            return;
+        }
+        idle.put(key, ps);
+        if (idle.size() > capacity) {
+            Iterator<Map.Entry<Key, PreparedStatement>> eldest = idle.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+            counters.evictions().increment();
+        }
+    }
+
+    int size() {
+        return idle.size();
+    }
+
+    /** Closes every cached statement; called before the physical connection is closed. */
+    void closeAll() {
+        for (PreparedStatement ps : idle.values()) closeQuietly(ps);
+        idle.clear();
+    }
+
+    private static void closeQuietly(Statement s) {
+        try { s.close(); } catch (SQLException ignored) { }
+    }
+}
@@ -2,18 +2,37 @@ package com.badas.dao;
 
 import com.badas.model.User;
 import com.badas.util.SecurityUtils;
+import com.badas.util.Timestamps;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class UserDAO {
 
+    /** Every column, in the order fill() reads them by position. */
+    private static final String COLUMNS =
+        "id, username, password_hash, role, created_at, last_login";
+
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM users ORDER BY username";
+
+    /**
+     * The findAll() list, shared by every UserDAO in the process. Login
+     * (findByUsername / authenticate) always reads the table, so a password
+     * change on another workstation takes effect immediately.
+     */
+    private static final ReadThroughCache<String, List<User>> LISTS = new ReadThroughCache<>("user lists", 4);
+    private static final String ALL = "findAll";
+
     private final DatabaseManager db = DatabaseManager.getInstance();
+    private final RowCursor<User> cursor = new RowCursor<>(db, SELECT_ALL, User::new, this::fill);
 
     public User findByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
-        try (Connection conn = db.getConnection();
+        String sql = "SELECT " + COLUMNS + " FROM users WHERE username = ?";
+        try (Connection conn = db.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
@@ -25,34 +44,112 @@ public class UserDAO {
         return null;
     }
 
-    public boolean verifyPassword(String username, String plaintext) {
+    /**
+     * The user if the password matches, otherwise null. One query: the row
+     * that the hash is checked against is the one returned.
+     */
+    public User authenticate(String username, String plaintext) {
         User user = findByUsername(username);
-        if (user == null) return false;
-        return SecurityUtils.verifyPassword(plaintext, user.getPasswordHash());
+        if (user == null || !SecurityUtils.verifyPassword(plaintext, user.getPasswordHash())) return null;
+        return user;
+    }
+
+    public boolean verifyPassword(String username, String plaintext) {
+        return authenticate(username, plaintext) != null;
     }
 
+    /** Every user by username, read through the cache. The caller gets its own copies. */
     public List<User> findAll() {
+        List<User> cached = LISTS.get(ALL, key -> loadAll());
+        List<User> list = new ArrayList<>(cached == null ? 0 : cached.size());
+        if (cached != null) for (User u : cached) list.add(new User(u));
+        return list;
+    }
+
+    /** Null if the read failed, so the failure is not cached as an empty table. */
+    private List<User> loadAll() {
         List<User> list = new ArrayList<>();
-        String sql = "SELECT * FROM users ORDER BY username";
-        try (Connection conn = db.getConnection();
+        try (Connection conn = db.getReadConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
             while (rs.next()) list.add(mapRow(rs));
         } catch (SQLException e) {
             System.err.println("UserDAO.findAll: " + e.getMessage());
+            return null;
+        }
+        return List.copyOf(list);
+    }
+
+    /** Rows with the given ids (in no particular order), straight from the table; missing ids are skipped. */
+    public List<User> findByIds(Collection<Integer> ids) {
+        List<User> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) return list;
+        String sql = "SELECT " + COLUMNS + " FROM users WHERE id IN (" + "?,".repeat(ids.size() - 1) + "?)";
+        try (Connection conn = db.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (int id : ids) ps.setInt(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("UserDAO.findByIds: " + e.getMessage());
         }
         return list;
     }
 
+    /**
+     * Calls {@code action} for every user in findAll() order, reading
+     * through one open cursor instead of building a list. Returns false if
+     * the read failed part-way (the error is logged).
+     */
+    public boolean forEach(Consumer<? super User> action) {
+        return forEach(RowCursor.DEFAULT_FETCH_SIZE, false, action);
+    }
+
+    /**
+     * As forEach(action), with an explicit driver fetch size. With
+     * {@code reuseRow} a single User is refilled for every row; the action
+     * must not keep a reference to it.
+     */
+    public boolean forEach(int fetchSize, boolean reuseRow, Consumer<? super User> action) {
+        try {
+            cursor.forEach(fetchSize, reuseRow, action);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("UserDAO.forEach: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Lazy stream in findAll() order. Close it (try-with-resources) to give the connection back. */
+    public Stream<User> stream() {
+        return stream(RowCursor.DEFAULT_FETCH_SIZE);
+    }
+
+    public Stream<User> stream(int fetchSize) {
+        try {
+            return cursor.stream(fetchSize);
+        } catch (SQLException e) {
+            System.err.println("UserDAO.stream: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
     public boolean save(String username, String plainPassword, String role) {
         String sql = "INSERT INTO users (username, password_hash, role) VALUES (?, ?, ?)";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username.trim());
-            ps.setString(2, SecurityUtils.hashPassword(plainPassword));
-            ps.setString(3, role.trim());
-            ps.executeUpdate();
-            return true;
+        try {
+            boolean saved = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, username.trim());
+                    ps.setString(2, SecurityUtils.hashPassword(plainPassword));
+                    ps.setString(3, role.trim());
+                    ps.executeUpdate();
+                    return true;
+                }
+            });
+            invalidateAll();
+            return saved;
         } catch (SQLException e) {
             System.err.println("UserDAO.save: " + e.getMessage());
             return false;
@@ -61,13 +158,18 @@ public class UserDAO {
 
     public boolean update(int id, String username, String newPlainPassword, String role) {
         String sql = "UPDATE users SET username = ?, password_hash = ?, role = ? WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username.trim());
-            ps.setString(2, SecurityUtils.hashPassword(newPlainPassword));
-            ps.setString(3, role.trim());
-            ps.setInt(4, id);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean updated = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, username.trim());
+                    ps.setString(2, SecurityUtils.hashPassword(newPlainPassword));
+                    ps.setString(3, role.trim());
+                    ps.setInt(4, id);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+            invalidateAll();
+            return updated;
         } catch (SQLException e) {
             System.err.println("UserDAO.update: " + e.getMessage());
             return false;
@@ -76,11 +178,16 @@ public class UserDAO {
 
     public boolean resetPassword(int id, String newPlainPassword) {
         String sql = "UPDATE users SET password_hash = ? WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, SecurityUtils.hashPassword(newPlainPassword));
-            ps.setInt(2, id);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean reset = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, SecurityUtils.hashPassword(newPlainPassword));
+                    ps.setInt(2, id);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+            invalidateAll();
+            return reset;
         } catch (SQLException e) {
             System.err.println("UserDAO.resetPassword: " + e.getMessage());
             return false;
@@ -89,35 +196,65 @@ public class UserDAO {
 
     public boolean delete(int id) {
         String sql = "DELETE FROM users WHERE id = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean deleted = db.write(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    return ps.executeUpdate() > 0;
+                }
+            });
+            invalidateAll();
+            return deleted;
         } catch (SQLException e) {
             System.err.println("UserDAO.delete: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Records a login at the current time. Queued write-behind, so this
+     * returns at once; repeated logins by the same user before the next
+     * flush collapse into one UPDATE with the latest time. The cached list
+     * picks up the new time through the change feed once it commits.
+     */
     public void updateLastLogin(String username) {
-        String sql = "UPDATE users SET last_login = datetime('now','localtime') WHERE username = ?";
-        try (Connection conn = db.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("UserDAO.updateLastLogin: " + e.getMessage());
-        }
+        String sql = "UPDATE users SET last_login = ? WHERE username = ?";
+        long loginAt = Timestamps.now();
+        db.writeBehind("users.last_login:" + username, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setLong(1, loginAt);
+                ps.setString(2, username);
+                ps.executeUpdate();
+                return null;
+            }
+        });
+    }
+
+    // ─── Cache ──────────────────────────────────────────────────────────────
+
+    /** Drops the cached lists; called after a write to users has committed. */
+    static void invalidateAll() {
+        LISTS.invalidateAll();
+    }
+
+    public static List<ReadThroughCache.Stats> cacheStats() {
+        return List.of(LISTS.stats());
     }
 
     private User mapRow(ResultSet rs) throws SQLException {
         User u = new User();
-        u.setId(rs.getInt("id"));
-        u.setUsername(rs.getString("username"));
-        u.setPasswordHash(rs.getString("password_hash"));
-        u.setRole(rs.getString("role"));
-        u.setCreatedAt(rs.getString("created_at"));
-        u.setLastLogin(rs.getString("last_login"));
+        fill(rs, u);
         return u;
     }
+
+    /** Sets every field from the current row, so a reused object carries nothing over. */
+    private void fill(ResultSet rs, User u) throws SQLException {
+        u.setId(rs.getInt(1));
+        u.setUsername(rs.getString(2));
+        u.setPasswordHash(rs.getString(3));
+        u.setRole(rs.getString(4));
+        u.setCreatedAt(rs.getLong(5));
+        long lastLogin = rs.getLong(6);
+        u.setLastLogin(rs.wasNull() ? null : lastLogin);
+    }
 }
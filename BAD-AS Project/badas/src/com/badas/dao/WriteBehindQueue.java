@@ -0,0 +1,101 @@
+package com.badas.dao;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deferred writes for values nobody waits on, such as last-login times.
+ *
+ * Each write is queued under a key; queuing again under the same key
+ * before the next flush replaces the earlier write, so only the latest
+ * value per key reaches the database. A flush hands every pending write to
+ * the WriteExecutor, where they share one group commit. Flushes run on a
+ * timer, as soon as MAX_PENDING keys are waiting, and from shutdown(),
+ * which DatabaseManager calls before draining the writer — so nothing
+ * queued is lost on a normal exit.
+ *
+ * Writes under different keys are not ordered relative to each other. A
+ * write must therefore carry its own values (capture the timestamp when it
+ * is queued, not when it runs).
+ */
+public class WriteBehindQueue {
+
+    /** Snapshot of queue counters for diagnostics. */
+    public record Stats(long queued, long coalesced, long flushed, long failed, int pending) {}
+
+    private static final long FLUSH_INTERVAL_MS = 2_000;
+    private static final int  MAX_PENDING       = 256;
+
+    private final WriteExecutor writer;
+    private final ConcurrentHashMap<String, SqlWork<?>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+
+    private final LongAdder queued    = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed   = new LongAdder();
+    private final LongAdder failed    = new LongAdder();
+
+    private volatile boolean closed;
+
+    public WriteBehindQueue(WriteExecutor writer) {
+        this.writer = writer;
+        this.timer  = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "badas-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Queues {@code work} under {@code key}, replacing any write still pending for that key. */
+    public void put(String key, SqlWork<?> work) {
+        queued.increment();
+        if (pending.put(key, work) != null) coalesced.increment();
+        if (closed) {
+            flush();                                // queued after shutdown — hand it over now
+        } else if (pending.size() >= MAX_PENDING) {
+            try {
+                timer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    /** Hands every pending write to the writer without waiting for it to commit. */
+    public void flush() {
+        for (String key : pending.keySet()) {
+            SqlWork<?> work = pending.remove(key);
+            if (work == null) continue;
+            flushed.increment();
+            writer.submit(work).whenComplete((result, error) -> {
+                if (error == null) return;
+                failed.increment();
+                System.err.println("WriteBehindQueue.flush: " + key + ": " + error.getMessage());
+            });
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(queued.sum(), coalesced.sum(), flushed.sum(), failed.sum(), pending.size());
+    }
+
+    /**
+     * Stops the timer and flushes what is pending. Call before the writer
+     * shuts down, which then commits these writes as part of its drain.
+     */
+    public void shutdown() {
+        closed = true;
+        timer.shutdown();
+        try {
+            timer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
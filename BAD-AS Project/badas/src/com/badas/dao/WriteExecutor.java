@@ -0,0 +1,174 @@
+package com.badas.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single writer thread for all database mutations.
+ *
+ * SQLite allows one writer at a time, so instead of letting every DAO call
+ * race for the write lock (and hit SQLITE_BUSY), mutations are queued here
+ * and executed on one dedicated connection. Whatever is queued when the
+ * writer wakes up is group-committed: each task runs inside its own
+ * SAVEPOINT so a failing task is rolled back alone, and the whole batch
+ * shares a single COMMIT (one fsync). Callers block until their batch has
+ * been committed, so a successful return still means the data is durable.
+ */
+public class WriteExecutor {
+
+    /** Snapshot of writer counters for diagnostics. */
+    public record Stats(long tasks, long failedTasks, long batches, double avgBatchSize, int queued) {}
+
+    private static final int MAX_BATCH = 128;
+    /** Queued by shutdown(); the writer stops when it reaches it, after everything queued before. */
+    private static final Task<Void> STOP = new Task<>(conn -> null);
+
+    private final ConnectionPool source;
+    private final LinkedBlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+
+    private final LongAdder tasks   = new LongAdder();
+    private final LongAdder failed  = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /** Queued work plus its result, which is only published once the batch commits. */
+    private static final class Task<T> {
+        final SqlWork<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+
+        Task(SqlWork<T> work) { this.work = work; }
+
+        void runIn(Connection conn) throws SQLException { result = work.run(conn); }
+
+        void publish() { future.complete(result); }
+    }
+
+    public WriteExecutor(ConnectionPool source) {
+        this.source = source;
+        this.thread = new Thread(this::loop, "badas-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Runs the work on the writer thread and waits for its batch to commit.
+     * Must not be called from inside another write (it would wait on itself).
+     */
+    public <T> T execute(SqlWork<T> work) throws SQLException {
+        if (Thread.currentThread() == thread) {
+            throw new SQLException("Nested write submitted from the writer thread");
+        }
+        try {
+            return submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for write to commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) throw sql;
+            if (cause instanceof RuntimeException rt) throw rt;
+            throw new SQLException(cause);
+        }
+    }
+
+    /** Queues the work and returns immediately; the future completes after commit. */
+    public <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        Task<T> task = new Task<>(work);
+        if (!running) {
+            task.future.completeExceptionally(new SQLException("Writer has been shut down"));
+            return task.future;
+        }
+        queue.add(task);
+        return task.future;
+    }
+
+    public Stats stats() {
+        long b = batches.sum();
+        long t = tasks.sum();
+        return new Stats(t, failed.sum(), b, b == 0 ? 0 : t / (double) b, queue.size());
+    }
+
+    /**
+     * Stops accepting work, drains what is already queued, then stops the
+     * thread. The writer is stopped by queueing STOP rather than by an
+     * interrupt: an interrupted writer could not borrow a connection for
+     * the final batch, and that batch would be lost.
+     */
+    public void shutdown() {
+        running = false;
+        queue.add(STOP);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Writer loop
+    // ─────────────────────────────────────────────
+
+    private void loop() {
+        List<Task<?>> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // only shutdown() stops the writer
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            stopping = batch.remove(STOP);
+            if (!batch.isEmpty()) runBatch(batch);
+            batch.clear();
+        }
+        // Anything that slipped in after shutdown began would otherwise wait forever
+        Task<?> late;
+        while ((late = queue.poll()) != null) {
+            late.future.completeExceptionally(new SQLException("Writer has been shut down"));
+        }
+    }
+
+    private void runBatch(List<Task<?>> batch) {
+        List<Task<?>> succeeded = new ArrayList<>(batch.size());
+        try (Connection conn = source.borrow();
+             Statement sp = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            for (Task<?> task : batch) {
+                sp.execute("SAVEPOINT write_task");
+                try {
+                    task.runIn(conn);
+                    sp.execute("RELEASE write_task");
+                    succeeded.add(task);
+                } catch (SQLException | RuntimeException e) {
+                    sp.execute("ROLLBACK TO write_task");
+                    sp.execute("RELEASE write_task");
+                    task.future.completeExceptionally(e);
+                }
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            for (Task<?> task : succeeded) task.publish();
+        } catch (SQLException e) {
+            // Commit (or the connection itself) failed — nothing in this batch is durable
+            for (Task<?> task : batch) task.future.completeExceptionally(e);
+        } finally {
+            for (Task<?> task : batch) {
+                if (task.future.isCompletedExceptionally()) failed.increment();
+            }
+            tasks.add(batch.size());
+            batches.increment();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.badas.event;
+
+import com.badas.model.EmergencyCase;
+
+/** An emergency_cases row changed. {@code row} is the current row, or null when deleted. */
+public record CaseChanged(ChangeOp op, int id, EmergencyCase row) {}
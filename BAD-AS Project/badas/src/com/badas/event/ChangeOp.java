@@ -0,0 +1,15 @@
+package com.badas.event;
+
+/** Kind of row change recorded in change_log. */
+public enum ChangeOp {
+    INSERT, UPDATE, DELETE;
+
+    /** Maps the single-letter code written by the change_log triggers. */
+    public static ChangeOp fromCode(String code) {
+        return switch (code) {
+            case "I" -> INSERT;
+            case "D" -> DELETE;
+            default  -> UPDATE;
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package com.badas.event;
+
+import com.badas.model.DispatchRequest;
+
+/** A dispatch_requests row changed. {@code row} is the current row, or null when deleted. */
+public record DispatchChanged(ChangeOp op, int id, DispatchRequest row) {}
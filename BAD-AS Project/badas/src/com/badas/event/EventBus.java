@@ -0,0 +1,53 @@
+package com.badas.event;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe bus for data change events.
+ *
+ * Listeners are called synchronously on the publishing thread (for change
+ * events that is the ChangeFeed poller), so UI code must hop to the EDT
+ * itself — BaseFrame.subscribe() does that. A listener that throws is
+ * logged and does not stop delivery to the others.
+ */
+public class EventBus {
+
+    /** Handle returned by subscribe(); close it to stop receiving events. */
+    public interface Subscription extends AutoCloseable {
+        @Override void close();
+    }
+
+    private static EventBus instance;
+
+    private final ConcurrentHashMap<Class<?>, List<Consumer<?>>> listeners = new ConcurrentHashMap<>();
+
+    private EventBus() {}
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) instance = new EventBus();
+        return instance;
+    }
+
+    public <E> Subscription subscribe(Class<E> type, Consumer<? super E> listener) {
+        List<Consumer<?>> list = listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        list.add(listener);
+        return () -> list.remove(listener);
+    }
+
+    /** Delivers the event to every listener registered for its exact class. */
+    @SuppressWarnings("unchecked")
+    public void publish(Object event) {
+        List<Consumer<?>> list = listeners.get(event.getClass());
+        if (list == null) return;
+        for (Consumer<?> l : list) {
+            try {
+                ((Consumer<Object>) l).accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("EventBus.publish: " + event.getClass().getSimpleName() + " listener failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.badas.event;
+
+/**
+ * The change feed fell behind the retained change_log history (e.g. after
+ * the machine slept), so individual deltas were lost. Subscribers should
+ * reload whatever they display.
+ */
+public record FeedResync() {}
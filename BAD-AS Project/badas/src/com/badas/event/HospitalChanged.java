@@ -0,0 +1,6 @@
+package com.badas.event;
+
+import com.badas.model.Hospital;
+
+/** A hospitals row changed. {@code row} is the current row, or null when deleted. */
+public record HospitalChanged(ChangeOp op, int id, Hospital row) {}
@@ -0,0 +1,6 @@
+package com.badas.event;
+
+import com.badas.model.Patient;
+
+/** A patients row changed. {@code row} is the current row, or null when deleted. */
+public record PatientChanged(ChangeOp op, int id, Patient row) {}
@@ -0,0 +1,6 @@
+package com.badas.event;
+
+import com.badas.model.User;
+
+/** A users row changed. {@code row} is the current row, or null when deleted. */
+public record UserChanged(ChangeOp op, int id, User row) {}
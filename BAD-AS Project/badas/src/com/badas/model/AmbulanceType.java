@@ -0,0 +1,28 @@
+package com.badas.model;
+
+/** Unit recommended for a dispatch — ambulance_types.id, referenced by dispatch_requests.ambulance_type_id. */
+public enum AmbulanceType implements Coded {
+    ALS(1, "Advanced Life Support (ALS) Ambulance"),
+    BLS(2, "Basic Life Support (BLS) Ambulance"),
+    NON_EMERGENCY(3, "Non-Emergency Medical Transport"),
+    EVALUATE_FIRST(4, "Clinical evaluation required before dispatch");
+
+    private static final AmbulanceType[] BY_CODE = Codes.index(values());
+
+    private final int    code;
+    private final String label;
+
+    AmbulanceType(int code, String label) {
+        this.code  = code;
+        this.label = label;
+    }
+
+    @Override public int code()     { return code; }
+    @Override public String label() { return label; }
+    @Override public String toString() { return label; }
+
+    /** The constant for a stored id, or null for one this build does not know. */
+    public static AmbulanceType fromCode(int code) {
+        return Codes.lookup(BY_CODE, code);
+    }
+}
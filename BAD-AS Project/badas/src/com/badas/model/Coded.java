@@ -0,0 +1,11 @@
+package com.badas.model;
+
+/**
+ * An enumeration stored as a small-integer foreign key into a lookup table
+ * (id INTEGER PRIMARY KEY, label TEXT UNIQUE). {@code code()} is the row id
+ * and never changes once shipped; {@code label()} is the text shown in the UI.
+ */
+public interface Coded {
+    int code();
+    String label();
+}
@@ -0,0 +1,22 @@
+package com.badas.model;
+
+import java.util.Arrays;
+
+/** Code-to-constant tables for the Coded enums, so mapping a row is an array read. */
+final class Codes {
+
+    private Codes() {}
+
+    /** Array indexed by code; codes are small, so it stays tiny. */
+    static <E extends Coded> E[] index(E[] values) {
+        int max = Arrays.stream(values).mapToInt(Coded::code).max().orElse(0);
+        E[] byCode = Arrays.copyOf(values, max + 1);
+        Arrays.fill(byCode, null);
+        for (E e : values) byCode[e.code()] = e;
+        return byCode;
+    }
+
+    static <E> E lookup(E[] byCode, int code) {
+        return code > 0 && code < byCode.length ? byCode[code] : null;
+    }
+}
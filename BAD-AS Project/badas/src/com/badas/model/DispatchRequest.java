@@ -1,30 +1,35 @@
 package com.badas.model;
 
+import java.time.Instant;
+
 public class DispatchRequest {
     private int id;
     private String patientName;
     private Integer patientId;
     private String location;
+    private Double latitude;         // pickup position (WGS84); null if the address was not geocoded
+    private Double longitude;
     private String symptoms;
-    private String ambulanceType;
-    private String severity;
+    private AmbulanceType ambulanceType;
+    private Severity severity;
     private String hospitalAssigned;
-    private String status;
+    private Integer hospitalId;      // hospital whose ambulance this dispatch holds, if any
+    private DispatchStatus status;
     private String dispatchedBy;
-    private String createdAt;
-    private String updatedAt;
+    private long createdAt;          // epoch millis, UTC
+    private long updatedAt;          // epoch millis, UTC
 
     public DispatchRequest() {}
 
     public DispatchRequest(String patientName, String location, String symptoms,
-                           String ambulanceType, String severity, String dispatchedBy) {
+                           AmbulanceType ambulanceType, Severity severity, String dispatchedBy) {
         this.patientName = patientName;
         this.location = location;
         this.symptoms = symptoms;
         this.ambulanceType = ambulanceType;
         this.severity = severity;
         this.dispatchedBy = dispatchedBy;
-        this.status = "Pending";
+        this.status = DispatchStatus.PENDING;
     }
 
     public int getId() { return id; }
@@ -39,29 +44,50 @@ public class DispatchRequest {
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
 
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    /** The pickup position, or null if it is unknown. */
+    public GeoPoint getPosition() {
+        return latitude == null || longitude == null ? null : new GeoPoint(latitude, longitude);
+    }
+
+    public void setPosition(GeoPoint p) {
+        this.latitude  = p == null ? null : p.lat();
+        this.longitude = p == null ? null : p.lon();
+    }
+
     public String getSymptoms() { return symptoms; }
     public void setSymptoms(String symptoms) { this.symptoms = symptoms; }
 
-    public String getAmbulanceType() { return ambulanceType; }
-    public void setAmbulanceType(String ambulanceType) { this.ambulanceType = ambulanceType; }
+    public AmbulanceType getAmbulanceType() { return ambulanceType; }
+    public void setAmbulanceType(AmbulanceType ambulanceType) { this.ambulanceType = ambulanceType; }
 
-    public String getSeverity() { return severity; }
-    public void setSeverity(String severity) { this.severity = severity; }
+    public Severity getSeverity() { return severity; }
+    public void setSeverity(Severity severity) { this.severity = severity; }
 
     public String getHospitalAssigned() { return hospitalAssigned; }
     public void setHospitalAssigned(String hospitalAssigned) { this.hospitalAssigned = hospitalAssigned; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public Integer getHospitalId() { return hospitalId; }
+    public void setHospitalId(Integer hospitalId) { this.hospitalId = hospitalId; }
+
+    public DispatchStatus getStatus() { return status; }
+    public void setStatus(DispatchStatus status) { this.status = status; }
 
     public String getDispatchedBy() { return dispatchedBy; }
     public void setDispatchedBy(String dispatchedBy) { this.dispatchedBy = dispatchedBy; }
 
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+    public Instant getCreatedAtInstant() { return Instant.ofEpochMilli(createdAt); }
 
-    public String getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getUpdatedAtInstant() { return Instant.ofEpochMilli(updatedAt); }
 
     @Override
     public String toString() {
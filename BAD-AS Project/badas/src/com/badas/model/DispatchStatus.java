@@ -0,0 +1,28 @@
+package com.badas.model;
+
+/** Lifecycle of a dispatch request — dispatch_statuses.id, referenced by dispatch_requests.status_id. */
+public enum DispatchStatus implements Coded {
+    PENDING(1, "Pending"),
+    DISPATCHED(2, "Dispatched"),
+    CANCELLED(3, "Cancelled"),
+    COMPLETED(4, "Completed");
+
+    private static final DispatchStatus[] BY_CODE = Codes.index(values());
+
+    private final int    code;
+    private final String label;
+
+    DispatchStatus(int code, String label) {
+        this.code  = code;
+        this.label = label;
+    }
+
+    @Override public int code()     { return code; }
+    @Override public String label() { return label; }
+    @Override public String toString() { return label; }
+
+    /** The constant for a stored id, or null for one this build does not know. */
+    public static DispatchStatus fromCode(int code) {
+        return Codes.lookup(BY_CODE, code);
+    }
+}
@@ -1,21 +1,23 @@
 package com.badas.model;
 
+import java.time.Instant;
+
 public class EmergencyCase {
     private int id;
     private String patientName;
     private String location;
     private String symptoms;
-    private String emergencyLevel;
+    private EmergencyLevel emergencyLevel;
     private String status;
     private String assignedResources;
     private String coordinator;
-    private String createdAt;
-    private String updatedAt;
+    private long createdAt;          // epoch millis, UTC
+    private long updatedAt;          // epoch millis, UTC
 
     public EmergencyCase() {}
 
     public EmergencyCase(String patientName, String location, String symptoms,
-                         String emergencyLevel, String coordinator) {
+                         EmergencyLevel emergencyLevel, String coordinator) {
         this.patientName = patientName;
         this.location = location;
         this.symptoms = symptoms;
@@ -37,8 +39,8 @@ public class EmergencyCase {
     public String getSymptoms() { return symptoms; }
     public void setSymptoms(String symptoms) { this.symptoms = symptoms; }
 
-    public String getEmergencyLevel() { return emergencyLevel; }
-    public void setEmergencyLevel(String emergencyLevel) { this.emergencyLevel = emergencyLevel; }
+    public EmergencyLevel getEmergencyLevel() { return emergencyLevel; }
+    public void setEmergencyLevel(EmergencyLevel emergencyLevel) { this.emergencyLevel = emergencyLevel; }
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -49,11 +51,13 @@ public class EmergencyCase {
     public String getCoordinator() { return coordinator; }
     public void setCoordinator(String coordinator) { this.coordinator = coordinator; }
 
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+    public Instant getCreatedAtInstant() { return Instant.ofEpochMilli(createdAt); }
 
-    public String getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getUpdatedAtInstant() { return Instant.ofEpochMilli(updatedAt); }
 
     @Override
     public String toString() {
@@ -0,0 +1,28 @@
+package com.badas.model;
+
+/** Coordinator-assigned level of an emergency case — emergency_levels.id, referenced by emergency_cases.emergency_level_id. */
+public enum EmergencyLevel implements Coded {
+    CRITICAL(1, "Critical"),
+    SEVERE(2, "Severe"),
+    MODERATE(3, "Moderate"),
+    MINOR(4, "Minor");
+
+    private static final EmergencyLevel[] BY_CODE = Codes.index(values());
+
+    private final int    code;
+    private final String label;
+
+    EmergencyLevel(int code, String label) {
+        this.code  = code;
+        this.label = label;
+    }
+
+    @Override public int code()     { return code; }
+    @Override public String label() { return label; }
+    @Override public String toString() { return label; }
+
+    /** The constant for a stored id, or null for one this build does not know. */
+    public static EmergencyLevel fromCode(int code) {
+        return Codes.lookup(BY_CODE, code);
+    }
+}
@@ -0,0 +1,26 @@
+package com.badas.model;
+
+/** A WGS84 position in decimal degrees. */
+public record GeoPoint(double lat, double lon) {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    public double distanceKm(GeoPoint other) {
+        return distanceKm(lat, lon, other.lat, other.lon);
+    }
+
+    /** Great-circle (haversine) distance in kilometres. */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                 + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                 * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.5f, %.5f", lat, lon);
+    }
+}
@@ -1,5 +1,7 @@
 package com.badas.model;
 
+import java.time.Instant;
+
 public class Hospital {
     private int id;
     private String name;
@@ -7,8 +9,10 @@ public class Hospital {
     private int ambulanceCount;
     private int availableAmbulances;
     private String contact;
-    private String createdAt;
-    private String updatedAt;
+    private Double latitude;         // WGS84 degrees; null until geocoded
+    private Double longitude;
+    private long createdAt;          // epoch millis, UTC
+    private long updatedAt;          // epoch millis, UTC
 
     public Hospital() {}
 
@@ -19,6 +23,20 @@ public class Hospital {
         this.availableAmbulances = ambulanceCount;
     }
 
+    /** Field-by-field copy. */
+    public Hospital(Hospital other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.location = other.location;
+        this.ambulanceCount = other.ambulanceCount;
+        this.availableAmbulances = other.availableAmbulances;
+        this.contact = other.contact;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
@@ -37,11 +55,29 @@ public class Hospital {
     public String getContact() { return contact; }
     public void setContact(String contact) { this.contact = contact; }
 
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    /** The stored position, or null if the hospital has not been geocoded. */
+    public GeoPoint getPosition() {
+        return latitude == null || longitude == null ? null : new GeoPoint(latitude, longitude);
+    }
+
+    public void setPosition(GeoPoint p) {
+        this.latitude  = p == null ? null : p.lat();
+        this.longitude = p == null ? null : p.lon();
+    }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+    public Instant getCreatedAtInstant() { return Instant.ofEpochMilli(createdAt); }
 
-    public String getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getUpdatedAtInstant() { return Instant.ofEpochMilli(updatedAt); }
 
     @Override
     public String toString() {
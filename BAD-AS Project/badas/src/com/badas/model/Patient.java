@@ -1,5 +1,7 @@
 package com.badas.model;
 
+import java.time.Instant;
+
 public class Patient {
     private int id;
     private String name;
@@ -8,10 +10,12 @@ public class Patient {
     private String symptoms;
     private String diagnosis;
     private String prescription;
-    private String status;
+    private String status;           // open set, stored as patient_statuses.id
+    private Severity triageSeverity;
     private String registeredBy;
-    private String registeredAt;
-    private String updatedAt;
+    private long registeredAt;       // epoch millis, UTC
+    private long updatedAt;          // epoch millis, UTC
+    private boolean summary;         // list row: text fields are previews, some fields not loaded
 
     public Patient() {}
 
@@ -49,14 +53,27 @@ public class Patient {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    public Severity getTriageSeverity() { return triageSeverity; }
+    public void setTriageSeverity(Severity triageSeverity) { this.triageSeverity = triageSeverity; }
+
     public String getRegisteredBy() { return registeredBy; }
     public void setRegisteredBy(String registeredBy) { this.registeredBy = registeredBy; }
 
-    public String getRegisteredAt() { return registeredAt; }
-    public void setRegisteredAt(String registeredAt) { this.registeredAt = registeredAt; }
+    public long getRegisteredAt() { return registeredAt; }
+    public void setRegisteredAt(long registeredAt) { this.registeredAt = registeredAt; }
+    public Instant getRegisteredAtInstant() { return Instant.ofEpochMilli(registeredAt); }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getUpdatedAtInstant() { return Instant.ofEpochMilli(updatedAt); }
 
-    public String getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    /**
+     * True for a row loaded by a list query: symptoms, diagnosis and
+     * prescription may be cut short and registeredBy / triageSeverity are
+     * not loaded. PatientDAO.findById() returns the full record.
+     */
+    public boolean isSummary() { return summary; }
+    public void setSummary(boolean summary) { this.summary = summary; }
 
     @Override
     public String toString() {
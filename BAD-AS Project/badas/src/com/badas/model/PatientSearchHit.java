@@ -0,0 +1,51 @@
+package com.badas.model;
+
+/**
+ * One ranked result from the patient full-text search.
+ * The snippet marks matched terms with HIGHLIGHT_START / HIGHLIGHT_END.
+ */
+public class PatientSearchHit {
+
+    public static final char HIGHLIGHT_START = '\u0002';
+    public static final char HIGHLIGHT_END   = '\u0003';
+
+    private final Patient patient;
+    private final String  snippet;
+    private final double  score;
+
+    public PatientSearchHit(Patient patient, String snippet, double score) {
+        this.patient = patient;
+        this.snippet = snippet;
+        this.score = score;
+    }
+
+    public Patient getPatient() { return patient; }
+
+    public String getSnippet() { return snippet; }
+
+    /** BM25 score — lower is a better match. */
+    public double getScore() { return score; }
+
+    /** Snippet as HTML for a JLabel / table cell, with matched terms in bold. */
+    public String getSnippetHtml() {
+        if (snippet == null) return "";
+        StringBuilder sb = new StringBuilder(snippet.length() + 32).append("<html>");
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            switch (c) {
+                case HIGHLIGHT_START -> sb.append("<b>");
+                case HIGHLIGHT_END   -> sb.append("</b>");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                default  -> sb.append(c);
+            }
+        }
+        return sb.append("</html>").toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PatientSearchHit{patient=" + patient + ", score=" + score + "}";
+    }
+}
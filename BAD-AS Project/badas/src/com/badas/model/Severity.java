@@ -0,0 +1,33 @@
+package com.badas.model;
+
+/**
+ * Keyword triage severity — severities.id, referenced by
+ * dispatch_requests.severity_id and patients.triage_severity_id.
+ * Declared most to least severe: SymptomAnalyzer uses the ordinal as its
+ * keyword-matcher tag.
+ */
+public enum Severity implements Coded {
+    CRITICAL(1, "Critical"),
+    MODERATE(2, "Moderate"),
+    MINOR(3, "Minor"),
+    UNKNOWN(4, "Undetermined");
+
+    private static final Severity[] BY_CODE = Codes.index(values());
+
+    private final int    code;
+    private final String label;
+
+    Severity(int code, String label) {
+        this.code  = code;
+        this.label = label;
+    }
+
+    @Override public int code()     { return code; }
+    @Override public String label() { return label; }
+    @Override public String toString() { return label; }
+
+    /** The constant for a stored id, or null for one this build does not know. */
+    public static Severity fromCode(int code) {
+        return Codes.lookup(BY_CODE, code);
+    }
+}
@@ -1,16 +1,18 @@
 package com.badas.model;
 
+import java.time.Instant;
+
 public class User {
     private int id;
     private String username;
     private String passwordHash;
     private String role;
-    private String createdAt;
-    private String lastLogin;
+    private long createdAt;          // epoch millis, UTC
+    private Long lastLogin;          // epoch millis, UTC; null = never
 
     public User() {}
 
-    public User(int id, String username, String passwordHash, String role, String createdAt, String lastLogin) {
+    public User(int id, String username, String passwordHash, String role, long createdAt, Long lastLogin) {
         this.id = id;
         this.username = username;
         this.passwordHash = passwordHash;
@@ -19,6 +21,11 @@ public class User {
         this.lastLogin = lastLogin;
     }
 
+    /** Field-by-field copy. */
+    public User(User other) {
+        this(other.id, other.username, other.passwordHash, other.role, other.createdAt, other.lastLogin);
+    }
+
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
@@ -31,11 +38,13 @@ public class User {
     public String getRole() { return role; }
     public void setRole(String role) { this.role = role; }
 
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+    public Instant getCreatedAtInstant() { return Instant.ofEpochMilli(createdAt); }
 
-    public String getLastLogin() { return lastLogin; }
-    public void setLastLogin(String lastLogin) { this.lastLogin = lastLogin; }
+    public Long getLastLogin() { return lastLogin; }
+    public void setLastLogin(Long lastLogin) { this.lastLogin = lastLogin; }
+    public Instant getLastLoginInstant() { return lastLogin != null ? Instant.ofEpochMilli(lastLogin) : null; }
 
     @Override
     public String toString() {
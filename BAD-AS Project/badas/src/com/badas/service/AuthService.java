@@ -22,13 +22,15 @@ public class AuthService {
 
     /**
      * Attempts login. Returns the User on success, null on failure.
+     * The last-login time is written behind and does not delay the result.
      */
     public User login(String username, String password) {
         if (username == null || password == null) return null;
-        if (!userDAO.verifyPassword(username.trim(), password)) return null;
+        User user = userDAO.authenticate(username.trim(), password);
+        if (user == null) return null;
 
-        currentUser = userDAO.findByUsername(username.trim());
-        userDAO.updateLastLogin(username.trim());
+        currentUser = user;
+        userDAO.updateLastLogin(user.getUsername());
         return currentUser;
     }
 
@@ -0,0 +1,145 @@
+package com.badas.service;
+
+import com.badas.dao.DispatchDAO;
+import com.badas.event.ChangeOp;
+import com.badas.event.DispatchChanged;
+import com.badas.event.EventBus;
+import com.badas.event.FeedResync;
+import com.badas.model.DispatchRequest;
+import com.badas.model.DispatchStatus;
+import com.badas.model.Severity;
+import com.badas.util.IndexedHeap;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The queue of Pending dispatches, most urgent first.
+ *
+ * Urgency is severity plus time waited: each severity gets a head start
+ * (a critical call ranks as if it had already waited 30 minutes) and every
+ * minute spent waiting adds a minute, so a minor call is never starved —
+ * after half an hour it ranks with a critical call that has just come in.
+ * Since all calls age at the same rate, comparing head start + wait is the
+ * same as comparing createdAt - headStart, a key that never changes while
+ * the call waits. The heap therefore never needs re-sorting as time
+ * passes; only a change to the row (status, severity after re-triage)
+ * moves an entry, in O(log n) through IndexedHeap.
+ *
+ * The queue is loaded from dispatch_requests at start() and follows
+ * DispatchChanged events — including this workstation's own writes, which
+ * the ChangeFeed also reports — and reloads on FeedResync.
+ */
+public class DispatchScheduler {
+
+    /** Queue size and maintenance counters for diagnostics. */
+    public record Stats(int pending, long added, long reprioritised, long removed, long rebuilds) {}
+
+    /** Pending dispatches in queue order. Matches the heap's order exactly. */
+    public static final Comparator<DispatchRequest> MOST_URGENT_FIRST =
+        Comparator.comparingLong(DispatchScheduler::queueKey).thenComparingInt(DispatchRequest::getId);
+
+    private static DispatchScheduler instance;
+
+    private final DispatchDAO dispatchDAO = new DispatchDAO();
+    private final IndexedHeap<DispatchRequest> heap = new IndexedHeap<>();
+    private boolean started;
+
+    private final LongAdder added         = new LongAdder();
+    private final LongAdder reprioritised = new LongAdder();
+    private final LongAdder removed       = new LongAdder();
+    private final LongAdder rebuilds      = new LongAdder();
+
+    private DispatchScheduler() {}
+
+    public static synchronized DispatchScheduler getInstance() {
+        if (instance == null) instance = new DispatchScheduler();
+        return instance;
+    }
+
+    /** Loads the pending dispatches and starts following changes. Safe to call more than once. */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(DispatchChanged.class, e -> {
+            if (e.op() == ChangeOp.DELETE) remove(e.id());
+            else apply(e.row());
+        });
+        bus.subscribe(FeedResync.class, e -> rebuild());
+        rebuild();
+    }
+
+    // ─────────────────────────────────────────────
+    //  Priority
+    // ─────────────────────────────────────────────
+
+    /** Minutes of waiting a severity is worth at the moment the call arrives. */
+    public static long headStartMinutes(Severity severity) {
+        if (severity == null) return 10;
+        return switch (severity) {
+            case CRITICAL -> 30;
+            case MODERATE, UNKNOWN -> 10;   // an undetermined call is not left behind minor ones
+            case MINOR -> 0;
+        };
+    }
+
+    /** Smaller is more urgent: arrival time moved earlier by the severity's head start. */
+    public static long queueKey(DispatchRequest req) {
+        return req.getCreatedAt() - TimeUnit.MINUTES.toMillis(headStartMinutes(req.getSeverity()));
+    }
+
+    /** Head start plus minutes waited so far, for display. */
+    public static long urgencyMinutes(DispatchRequest req, long now) {
+        return headStartMinutes(req.getSeverity()) + TimeUnit.MILLISECONDS.toMinutes(now - req.getCreatedAt());
+    }
+
+    // ─────────────────────────────────────────────
+    //  Queue
+    // ─────────────────────────────────────────────
+
+    /** The most urgent pending dispatch, or null if none is waiting. */
+    public synchronized DispatchRequest next() {
+        return heap.peek();
+    }
+
+    /** Every pending dispatch, most urgent first. */
+    public synchronized List<DispatchRequest> pending() {
+        return heap.sorted();
+    }
+
+    public synchronized int size() {
+        return heap.size();
+    }
+
+    public Stats stats() {
+        return new Stats(size(), added.sum(), reprioritised.sum(), removed.sum(), rebuilds.sum());
+    }
+
+    /** Queues, re-ranks or drops the row according to its current status. */
+    synchronized void apply(DispatchRequest row) {
+        if (row.getStatus() != DispatchStatus.PENDING) {
+            remove(row.getId());
+            return;
+        }
+        DispatchRequest old = heap.get(row.getId());
+        if (old == null) added.increment();
+        else if (queueKey(old) != queueKey(row)) reprioritised.increment();
+        heap.put(row.getId(), queueKey(row), row);
+    }
+
+    synchronized void remove(int id) {
+        if (heap.remove(id) != null) removed.increment();
+    }
+
+    /** Replaces the queue with the Pending rows in the database; keeps it if the read fails. */
+    public synchronized void rebuild() {
+        List<DispatchRequest> rows = dispatchDAO.findPending();
+        if (rows == null) return;
+        heap.clear();
+        for (DispatchRequest row : rows) heap.put(row.getId(), queueKey(row), row);
+        rebuilds.increment();
+    }
+}
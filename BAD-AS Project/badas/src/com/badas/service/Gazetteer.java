@@ -0,0 +1,110 @@
+package com.badas.service;
+
+import com.badas.model.GeoPoint;
+import com.badas.util.KeywordMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One immutable, loaded copy of the offline gazetteer: place names with an
+ * approximate centre point, compiled into a KeywordMatcher so any text is
+ * scanned once for every name.
+ *
+ * File format (see config/gazetteer.csv):
+ *   # comment
+ *   South Boston,42.3381,-71.0476
+ */
+public final class Gazetteer {
+
+    /** A recognised place and its position. */
+    public record Place(String name, GeoPoint position) {}
+
+    private static final Gazetteer EMPTY = new Gazetteer(List.of());
+
+    private final Place[] places;
+    private final KeywordMatcher matcher;
+
+    private Gazetteer(List<Place> places) {
+        this.places = places.toArray(new Place[0]);
+        KeywordMatcher.Builder b = KeywordMatcher.builder();
+        for (int i = 0; i < this.places.length; i++) b.add(this.places[i].name(), i);
+        this.matcher = b.build();
+    }
+
+    public static Gazetteer empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return places.length;
+    }
+
+    public List<Place> places() {
+        return List.of(places);
+    }
+
+    /**
+     * Parses a gazetteer file. A malformed line or a coordinate out of range
+     * throws, naming the line. A name listed twice keeps its first position.
+     */
+    public static Gazetteer load(Path file) throws IOException {
+        List<Place> places = new ArrayList<>();
+        int lineNo = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] parts = line.split(",");
+                if (parts.length != 3 || parts[0].isBlank()) {
+                    throw new IOException(file + ":" + lineNo + ": expected 'name,latitude,longitude'");
+                }
+                double lat, lon;
+                try {
+                    lat = Double.parseDouble(parts[1].strip());
+                    lon = Double.parseDouble(parts[2].strip());
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNo + ": invalid coordinate");
+                }
+                if (Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+                    throw new IOException(file + ":" + lineNo + ": coordinate out of range");
+                }
+                places.add(new Place(parts[0].strip(), new GeoPoint(lat, lon)));
+            }
+        }
+        return new Gazetteer(places);
+    }
+
+    /**
+     * The place named in {@code text}, matched as whole words. A name inside
+     * a longer one ("Boston" in "South Boston") does not count; of the rest,
+     * the one ending last wins, since addresses name the town after the
+     * street ("Boston Ave, Somerville"). Null if no place is named.
+     */
+    public Place find(String text) {
+        if (text == null || text.isBlank() || places.length == 0) return null;
+        int[] best = {-1, -1, -1};   // tag, start, end
+        matcher.scan(text, (id, start, end) -> {
+            boolean wordStart = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+            boolean wordEnd   = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            if (!wordStart || !wordEnd) return;
+            // Matches arrive in end order, so this one ends at or after the best so far
+            boolean inside = start >= best[1] && end <= best[2];
+            boolean covers = start <= best[1];
+            if (best[0] < 0 || covers || (!inside && end > best[2])) {
+                best[0] = matcher.tag(id);
+                best[1] = start;
+                best[2] = end;
+            }
+        });
+        return best[0] < 0 ? null : places[best[0]];
+    }
+}
@@ -0,0 +1,100 @@
+package com.badas.service;
+
+import com.badas.dao.GeocodeDAO;
+import com.badas.model.GeoPoint;
+import com.badas.util.KeywordMatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns a free-text location (a pickup address, a hospital's town) into a
+ * position, without any network service.
+ *
+ * A location is normalised (lower case, single spaces) and looked up in
+ * geocode_cache first, where earlier answers and manual corrections are
+ * kept. Otherwise the offline gazetteer — config/gazetteer.csv, or the
+ * path in the "badas.gazetteer" system property — is searched for a place
+ * named in the text, and the answer is stored in geocode_cache for next
+ * time. Positions are town or neighbourhood centres: good enough to rank
+ * hospitals by distance, not to navigate by.
+ */
+public class Geocoder {
+
+    /** Lookup counters for diagnostics. */
+    public record Stats(int places, long lookups, long fromCache, long fromGazetteer, long unresolved) {}
+
+    private static final String DEFAULT_PATH = "config/gazetteer.csv";
+    private static final String SOURCE       = "gazetteer";
+
+    private static Geocoder instance;
+
+    private final GeocodeDAO geocodeDAO = new GeocodeDAO();
+    private final Gazetteer  gazetteer;
+
+    private final LongAdder lookups       = new LongAdder();
+    private final LongAdder fromCache     = new LongAdder();
+    private final LongAdder fromGazetteer = new LongAdder();
+    private final LongAdder unresolved    = new LongAdder();
+
+    private Geocoder() {
+        this.gazetteer = loadGazetteer(Paths.get(System.getProperty("badas.gazetteer", DEFAULT_PATH)).toAbsolutePath());
+    }
+
+    public static synchronized Geocoder getInstance() {
+        if (instance == null) instance = new Geocoder();
+        return instance;
+    }
+
+    private static Gazetteer loadGazetteer(Path file) {
+        if (!Files.isRegularFile(file)) {
+            System.err.println("Geocoder: " + file + " not found, locations will not be geocoded");
+            return Gazetteer.empty();
+        }
+        try {
+            return Gazetteer.load(file);
+        } catch (IOException e) {
+            System.err.println("Geocoder.loadGazetteer: " + e.getMessage());
+            return Gazetteer.empty();
+        }
+    }
+
+    /** The position of {@code location}, or null if it names no known place. */
+    public GeoPoint locate(String location) {
+        String query = normalise(location);
+        if (query.isEmpty()) return null;
+        lookups.increment();
+
+        Optional<GeoPoint> stored = geocodeDAO.find(query);
+        if (stored != null && stored.isPresent()) {
+            fromCache.increment();
+            return stored.get();
+        }
+        Gazetteer.Place place = gazetteer.find(query);
+        if (place == null) {
+            unresolved.increment();
+            return null;
+        }
+        fromGazetteer.increment();
+        if (stored != null) geocodeDAO.save(query, place.position(), SOURCE);
+        return place.position();
+    }
+
+    /** Every gazetteer place; the positions pickups resolve to. */
+    public List<Gazetteer.Place> places() {
+        return gazetteer.places();
+    }
+
+    public Stats stats() {
+        return new Stats(gazetteer.size(), lookups.sum(), fromCache.sum(), fromGazetteer.sum(), unresolved.sum());
+    }
+
+    static String normalise(String location) {
+        return location == null ? "" : KeywordMatcher.fold(location.strip().replaceAll("\\s+", " "));
+    }
+}
@@ -0,0 +1,324 @@
+package com.badas.service;
+
+import com.badas.dao.AmbulanceLedger;
+import com.badas.dao.HospitalDAO;
+import com.badas.event.ChangeOp;
+import com.badas.event.EventBus;
+import com.badas.event.FeedResync;
+import com.badas.event.HospitalChanged;
+import com.badas.model.GeoPoint;
+import com.badas.model.Hospital;
+import com.badas.model.Severity;
+import com.badas.util.KeywordMatcher;
+import com.badas.util.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Suggests a destination hospital for a dispatch.
+ *
+ * Hospitals are indexed by their location (the town in hospitals.location).
+ * The distinct locations are compiled into one KeywordMatcher, so a pickup
+ * address is scanned once for every known town, whatever the number of
+ * hospitals; each location maps to the ids of the hospitals there. The
+ * index follows HospitalChanged events: an edit only moves one id between
+ * location buckets, and the automaton is recompiled — then swapped in with
+ * one reference write, as SymptomDictionaryService does — only when a
+ * location appears or its last hospital goes.
+ *
+ * Candidates are ranked by
+ *   1. a free ambulance (AmbulanceLedger) — hospitals with none are skipped;
+ *   2. a location named in the pickup address, as a whole word;
+ *   3. severity: a critical call takes the matching hospital with the most
+ *      free units; other calls prefer hospitals with a larger share of their
+ *      fleet free, and avoid taking a hospital's last unit, which is kept
+ *      for critical calls when there is a choice.
+ * If no hospital in a named location has a free unit, every hospital with
+ * one is ranked by the same rules.
+ *
+ * When the Geocoder can place the pickup, driving time replaces rule 2:
+ * the nearest hospitals with a free unit are taken from a SpatialGrid of
+ * hospital positions, timed by the TravelTimeService (over the road graph
+ * when one is installed, else estimated from distance), and each minute
+ * costs one point against the capacity terms of rule 3 (so a non-critical
+ * call accepts up to 50 minutes more rather than take a hospital's last
+ * unit). Hospitals are placed
+ * by their stored latitude/longitude; one without is geocoded from its
+ * location and the position written back. A hospital that cannot be
+ * placed is only found by the location rules, which also remain the
+ * fallback for a pickup that cannot be placed.
+ */
+public class HospitalAssignmentEngine {
+
+    /** A ranked suggestion; {@code available} is the ledger count it was ranked with. */
+    public record Candidate(Hospital hospital, int available, boolean locationMatch, double distanceKm,
+                            TravelTimeService.TravelTime travelTime, double score) {
+
+        /** Whether the candidate was ranked by travel time; if not, distanceKm is NaN and travelTime null. */
+        public boolean hasDistance() {
+            return travelTime != null;
+        }
+    }
+
+    /** Index size and lookup counters for diagnostics. */
+    public record Stats(int hospitals, int locations, int placed, long rebuilds, long lookups,
+                        long distanceLookups, double avgLookupMicros) {}
+
+    /** Ranking weight of a location match; larger than any capacity term. */
+    private static final double LOCATION_MATCH = 100;
+    /** Penalty for a non-critical call taking a hospital's last unit. */
+    private static final double LAST_UNIT      = 50;
+    private static final double CAPACITY       = 10;
+    /** Score lost per minute of driving between hospital and pickup. */
+    private static final double PER_MINUTE     = 1;
+    /** Nearest hospitals (straight line) timed for a placed pickup, at least. */
+    private static final int    NEAREST        = 16;
+    /** Grid cell size; 0.1° is about 11 km north-south. */
+    private static final double CELL_DEGREES   = 0.1;
+
+    private static final Comparator<Candidate> BEST_FIRST =
+        Comparator.comparingDouble(Candidate::score).reversed()
+                  .thenComparing(c -> c.hospital().getName())
+                  .thenComparingInt(c -> c.hospital().getId());
+
+    /** Compiled location automaton; {@code locations[tag]} is the bucket key of keyword tag. */
+    private record LocationIndex(KeywordMatcher matcher, String[] locations) {
+        static final LocationIndex EMPTY = new LocationIndex(KeywordMatcher.builder().build(), new String[0]);
+    }
+
+    private static HospitalAssignmentEngine instance;
+
+    private final HospitalDAO     hospitalDAO = new HospitalDAO();
+    private final AmbulanceLedger ledger      = AmbulanceLedger.getInstance();
+    private final Geocoder        geocoder    = Geocoder.getInstance();
+    private final TravelTimeService travel    = TravelTimeService.getInstance();
+
+    private final ConcurrentHashMap<Integer, Hospital> hospitals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Integer>> byLocation = new ConcurrentHashMap<>();
+    private final AtomicReference<LocationIndex> index = new AtomicReference<>(LocationIndex.EMPTY);
+    /** Positions of the hospitals that have one. Guarded by its own monitor. */
+    private final SpatialGrid grid = new SpatialGrid(CELL_DEGREES);
+    private boolean started;
+
+    private final LongAdder rebuilds    = new LongAdder();
+    private final LongAdder lookups     = new LongAdder();
+    private final LongAdder nearLookups = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    private HospitalAssignmentEngine() {}
+
+    public static synchronized HospitalAssignmentEngine getInstance() {
+        if (instance == null) instance = new HospitalAssignmentEngine();
+        return instance;
+    }
+
+    /** Loads every hospital and starts following changes. Safe to call more than once. */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(HospitalChanged.class, e -> {
+            if (e.op() == ChangeOp.DELETE) remove(e.id());
+            else put(e.row());
+        });
+        bus.subscribe(FeedResync.class, e -> reload());
+        reload();
+    }
+
+    // ─────────────────────────────────────────────
+    //  Ranking
+    // ─────────────────────────────────────────────
+
+    /** Best hospital with a free ambulance for this pickup, or null if none has one. */
+    public Candidate suggest(String pickupLocation, Severity severity) {
+        List<Candidate> ranked = rank(pickupLocation, severity, 1);
+        return ranked.isEmpty() ? null : ranked.get(0);
+    }
+
+    /**
+     * Up to {@code limit} hospitals with a free ambulance, best first. Only
+     * the best {@code limit} are kept while scoring (a bounded heap), so the
+     * full-list fallback costs one pass over the hospitals, not a sort.
+     */
+    public List<Candidate> rank(String pickupLocation, Severity severity, int limit) {
+        long start = System.nanoTime();
+        boolean critical = severity == Severity.CRITICAL;
+        PriorityQueue<Candidate> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        Set<String> named = locationsIn(pickupLocation);
+        GeoPoint at = geocoder.locate(pickupLocation);
+        if (at != null) {
+            List<SpatialGrid.Hit> near;
+            List<GeoPoint> positions = new ArrayList<>();
+            synchronized (grid) {
+                near = grid.nearest(at, Math.max(limit, NEAREST), id -> ledger.available(id) > 0);
+                for (SpatialGrid.Hit hit : near) positions.add(grid.position(hit.id()));
+            }
+            int pickupNode = travel.snap(at);
+            for (int i = 0; i < near.size(); i++) {
+                SpatialGrid.Hit hit = near.get(i);
+                Hospital h = hospitals.get(hit.id());
+                boolean match = h != null && named.contains(keyOf(h));
+                TravelTimeService.TravelTime time = travel.between(positions.get(i), at, pickupNode);
+                keep(best, score(h, match, hit.km(), time, critical), limit);
+            }
+            if (!best.isEmpty()) nearLookups.increment();
+        }
+        if (best.isEmpty()) {
+            for (String location : named) {
+                for (int id : byLocation.getOrDefault(location, Set.of())) {
+                    keep(best, score(hospitals.get(id), true, Double.NaN, null, critical), limit);
+                }
+            }
+        }
+        if (best.isEmpty()) {
+            for (Hospital h : hospitals.values()) keep(best, score(h, false, Double.NaN, null, critical), limit);
+        }
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        lookups.increment();
+        lookupNanos.add(System.nanoTime() - start);
+        return ranked;
+    }
+
+    private static void keep(PriorityQueue<Candidate> best, Candidate c, int limit) {
+        if (c == null || limit <= 0) return;
+        best.add(c);
+        if (best.size() > limit) best.poll();
+    }
+
+    /** Null if the hospital has no free unit. With a travel time, it replaces the location bonus. */
+    private Candidate score(Hospital h, boolean locationMatch, double km, TravelTimeService.TravelTime time,
+                            boolean critical) {
+        if (h == null) return null;
+        int free = ledger.available(h.getId());
+        if (free <= 0) return null;
+        double score = time != null ? -PER_MINUTE * time.minutes() : locationMatch ? LOCATION_MATCH : 0;
+        if (critical) {
+            score += Math.min(free, CAPACITY);
+        } else {
+            score += CAPACITY * free / Math.max(free, h.getAmbulanceCount());
+            if (free == 1) score -= LAST_UNIT;
+        }
+        return new Candidate(h, free, locationMatch, km, time, score);
+    }
+
+    /**
+     * Free ambulances (as the ledger last saw them) at placed hospitals
+     * within {@code km} of {@code at}, for coverage displays.
+     */
+    public int freeUnitsWithin(GeoPoint at, double km) {
+        int[] total = {0};
+        synchronized (grid) {
+            grid.forEachWithin(at, km, (id, d) -> total[0] += ledger.available(id));
+        }
+        return total[0];
+    }
+
+    /** Bucket keys of every known location named in {@code text} as whole words. */
+    private Set<String> locationsIn(String text) {
+        if (text == null || text.isBlank()) return Set.of();
+        LocationIndex idx = index.get();
+        Set<String> found = new HashSet<>();
+        idx.matcher().scan(text, (id, start, end) -> {
+            boolean wordStart = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+            boolean wordEnd   = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            if (wordStart && wordEnd) found.add(idx.locations()[idx.matcher().tag(id)]);
+        });
+        return found;
+    }
+
+    public Stats stats() {
+        long n = lookups.sum();
+        int placed;
+        synchronized (grid) {
+            placed = grid.size();
+        }
+        return new Stats(hospitals.size(), byLocation.size(), placed, rebuilds.sum(), n, nearLookups.sum(),
+                         n == 0 ? 0 : lookupNanos.sum() / (double) n / 1_000.0);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Index maintenance
+    // ─────────────────────────────────────────────
+
+    /** Re-reads every hospital; used at start and after the change feed lost history. */
+    private synchronized void reload() {
+        List<Hospital> all = hospitalDAO.findAll();
+        hospitals.clear();
+        byLocation.clear();
+        synchronized (grid) {
+            grid.clear();
+        }
+        for (Hospital h : all) {
+            hospitals.put(h.getId(), h);
+            byLocation.computeIfAbsent(keyOf(h), k -> ConcurrentHashMap.newKeySet()).add(h.getId());
+            place(h);
+        }
+        rebuildMatcher();
+    }
+
+    private synchronized void put(Hospital h) {
+        Hospital old = hospitals.put(h.getId(), h);
+        String key = keyOf(h);
+        boolean changed = old != null && !keyOf(old).equals(key) && leave(keyOf(old), old.getId());
+        if (!byLocation.containsKey(key)) changed = true;
+        byLocation.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(h.getId());
+        if (changed) rebuildMatcher();
+        place(h);
+    }
+
+    private synchronized void remove(int id) {
+        Hospital old = hospitals.remove(id);
+        if (old != null && leave(keyOf(old), id)) rebuildMatcher();
+        synchronized (grid) {
+            grid.remove(id);
+        }
+    }
+
+    /**
+     * Puts the hospital in the grid at its stored position. One without a
+     * position is geocoded from its location and the result written back,
+     * which comes round again as a HospitalChanged event carrying it.
+     */
+    private void place(Hospital h) {
+        GeoPoint p = h.getPosition();
+        if (p == null) {
+            p = geocoder.locate(h.getLocation());
+            if (p != null) hospitalDAO.fillPosition(h.getId(), p);
+        }
+        synchronized (grid) {
+            if (p != null) grid.put(h.getId(), p.lat(), p.lon());
+            else grid.remove(h.getId());
+        }
+    }
+
+    /** Takes {@code id} out of a bucket; true if that emptied (and dropped) the location. */
+    private boolean leave(String key, int id) {
+        Set<Integer> ids = byLocation.get(key);
+        if (ids == null) return false;
+        ids.remove(id);
+        if (!ids.isEmpty()) return false;
+        byLocation.remove(key);
+        return true;
+    }
+
+    private void rebuildMatcher() {
+        KeywordMatcher.Builder b = KeywordMatcher.builder();
+        String[] locations = byLocation.keySet().toArray(new String[0]);
+        for (int i = 0; i < locations.length; i++) b.add(locations[i], i);
+        index.set(new LocationIndex(b.build(), locations));
+        rebuilds.increment();
+    }
+
+    private static String keyOf(Hospital h) {
+        return h.getLocation() == null ? "" : KeywordMatcher.fold(h.getLocation().trim());
+    }
+}
@@ -0,0 +1,184 @@
+package com.badas.service;
+
+import com.badas.dao.RetriageDAO;
+import com.badas.dao.RetriageDAO.Change;
+import com.badas.dao.RetriageDAO.Checkpoint;
+import com.badas.dao.RetriageDAO.Row;
+import com.badas.dao.RetriageDAO.Target;
+import com.badas.model.Severity;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-scores every stored dispatch and patient against the active symptom
+ * dictionary, e.g. after config/symptom-keywords.txt has been edited.
+ *
+ * Each table is walked in id order in chunks. A chunk is scored in parallel
+ * on a ForkJoinPool, and only rows whose severity actually changes are
+ * written back — as one batched write task that also advances the
+ * checkpoint. While one chunk commits the next is already being read and
+ * scored. The dictionary is pinned at the start, so a hot reload mid-run
+ * does not mix versions.
+ *
+ * Restarting: a run that was cancelled or crashed resumes after the last
+ * committed chunk, as long as the keyword lists have not changed since.
+ * Re-running after a completed pass with the same lists only scores rows
+ * added since then. Checkpoints are matched on SymptomDictionary's
+ * fingerprint, not its version label, so an edit that forgot to bump the
+ * label still re-scores everything.
+ *
+ * Blocking — run it off the EDT.
+ */
+public class RetriageJob {
+
+    public static final String JOB_NAME = "keyword-retriage";
+
+    private static final int CHUNK_SIZE = 2_000;
+
+    /** Rows scored per fork-join leaf; below this splitting costs more than it saves. */
+    private static final int SPLIT_THRESHOLD = 256;
+
+    public record Progress(Target target, long processed, long total, long changed, double rowsPerSecond) {}
+
+    /** {@code processed} counts rows scored in this run; {@code resumedAfterId} is 0 for a fresh pass. */
+    public record TableResult(Target target, long processed, long changed, long elapsedMillis, int resumedAfterId) {
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? processed : processed * 1000.0 / elapsedMillis;
+        }
+    }
+
+    public record Result(String dictionaryVersion, List<TableResult> tables, boolean cancelled) {}
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        /** Called on the job thread once per chunk, after it has been scored and queued for writing. */
+        void onProgress(Progress progress);
+    }
+
+    private final RetriageDAO       dao = new RetriageDAO();
+    private final SymptomAnalyzer   analyzer = new SymptomAnalyzer();
+    private final ProgressListener  listener;
+
+    private volatile boolean cancelled;
+
+    public RetriageJob(ProgressListener listener) {
+        this.listener = listener != null ? listener : p -> {};
+    }
+
+    /** Stops after the chunk in progress; the checkpoint keeps what has been committed. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public Result run() throws SQLException {
+        SymptomDictionary dict = SymptomDictionaryService.getInstance().current();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<TableResult> results = new ArrayList<>();
+            for (Target target : Target.values()) {
+                if (cancelled) break;
+                results.add(runTable(target, dict, pool));
+            }
+            return new Result(dict.getVersion(), results, cancelled);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private TableResult runTable(Target target, SymptomDictionary dict, ForkJoinPool pool) throws SQLException {
+        String version     = dict.getVersion();
+        String fingerprint = dict.fingerprint();
+        Checkpoint cp = dao.findCheckpoint(JOB_NAME, target);
+        boolean resume = cp != null && cp.dictionaryFingerprint().equals(fingerprint);
+
+        int  startId   = resume ? cp.lastId()    : 0;
+        int  lastId    = startId;
+        long processed = resume ? cp.processed() : 0;
+        long changed   = resume ? cp.changed()   : 0;
+        long total     = processed + dao.countAfter(target, lastId);
+        long startedAt = System.nanoTime();
+        long doneHere  = 0;
+
+        CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        while (!cancelled) {
+            List<Row> chunk = dao.findChunk(target, lastId, CHUNK_SIZE);
+            if (chunk.isEmpty()) break;
+
+            List<Change> changes = pool.invoke(new ScoreTask(chunk, 0, chunk.size(), dict));
+            lastId     = chunk.get(chunk.size() - 1).id();
+            processed += chunk.size();
+            doneHere  += chunk.size();
+            changed   += changes.size();
+
+            // Keep at most one chunk in flight: wait for the previous commit before queuing this one
+            await(pending);
+            pending = dao.applyChunk(JOB_NAME, target, changes,
+                                     new Checkpoint(version, fingerprint, lastId, processed, changed, false));
+
+            double secs = (System.nanoTime() - startedAt) / 1e9;
+            listener.onProgress(new Progress(target, processed, Math.max(total, processed), changed,
+                                             secs > 0 ? doneHere / secs : 0));
+        }
+        await(pending);
+
+        if (!cancelled) {
+            dao.saveCheckpoint(JOB_NAME, target, new Checkpoint(version, fingerprint, lastId, processed, changed, true));
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        return new TableResult(target, doneHere, changed, elapsed, startId);
+    }
+
+    private static void await(CompletableFuture<Void> write) throws SQLException {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            throw e;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Parallel scoring
+    // ─────────────────────────────────────────────
+
+    /** Scores rows [from, to) and returns those whose stored severity differs. */
+    private final class ScoreTask extends RecursiveTask<List<Change>> {
+        private final List<Row>         rows;
+        private final int               from, to;
+        private final SymptomDictionary dict;
+
+        ScoreTask(List<Row> rows, int from, int to, SymptomDictionary dict) {
+            this.rows = rows;
+            this.from = from;
+            this.to   = to;
+            this.dict = dict;
+        }
+
+        @Override
+        protected List<Change> compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                List<Change> out = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    Row r = rows.get(i);
+                    Severity severity = analyzer.analyze(r.symptoms(), dict);
+                    if (severity != r.severity()) out.add(new Change(r.id(), r.symptoms(), severity));
+                }
+                return out;
+            }
+            int mid = (from + to) >>> 1;
+            ScoreTask left = new ScoreTask(rows, from, mid, dict);
+            left.fork();
+            List<Change> right = new ScoreTask(rows, mid, to, dict).compute();
+            List<Change> out = left.join();
+            out.addAll(right);
+            return out;
+        }
+    }
+}
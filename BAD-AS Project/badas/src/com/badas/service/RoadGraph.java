@@ -0,0 +1,390 @@
+package com.badas.service;
+
+import com.badas.model.GeoPoint;
+import com.badas.util.SpatialGrid;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable, loaded road network with travel times, and the landmark
+ * tables used to route over it quickly.
+ *
+ * File format (a road extract converted offline, e.g. from OpenStreetMap):
+ *   # comment
+ *   n,<node id>,<latitude>,<longitude>
+ *   e,<from node id>,<to node id>,<seconds>
+ * Node ids are any integers (OSM ids work as they are); every node must be
+ * listed before an edge uses it. Edges are one-way: a two-way road is two
+ * 'e' lines. Seconds is the time to drive the edge.
+ *
+ * The graph is kept as compressed adjacency arrays, forwards and reversed.
+ * At load time a few landmarks are chosen far apart (each the node
+ * farthest from those already chosen) and the travel time from and to
+ * every node is stored for each. A point-to-point query is then an A*
+ * search using the triangle inequality over those tables as a lower bound
+ * (ALT), which settles a small corridor of nodes instead of a whole
+ * Dijkstra circle. A one-to-many query (every hospital to one pickup) is
+ * a single reversed Dijkstra that stops once all the sources are settled.
+ *
+ * Queries only read shared state and keep their scratch arrays per
+ * thread, so any number of threads may query one graph.
+ */
+public final class RoadGraph {
+
+    /** Travel time for a pair with no route. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** Snapping index cell size; 0.01° is about 1 km. */
+    private static final double SNAP_CELL_DEGREES = 0.01;
+
+    private final double[] lat, lon;
+    private final int[] outStart, outTo, outSecs;
+    private final int[] inStart, inFrom, inSecs;
+    private final SpatialGrid snap = new SpatialGrid(SNAP_CELL_DEGREES);
+
+    private final int[]   landmarks;
+    private final int[][] fromLandmark;   // [l][v] = time landmark l → v
+    private final int[][] toLandmark;     // [l][v] = time v → landmark l
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private RoadGraph(double[] lat, double[] lon, int[] from, int[] to, int[] secs, int edges, int landmarkCount) {
+        int n = lat.length;
+        this.lat = lat;
+        this.lon = lon;
+        this.outStart = new int[n + 1];
+        this.outTo    = new int[edges];
+        this.outSecs  = new int[edges];
+        this.inStart  = new int[n + 1];
+        this.inFrom   = new int[edges];
+        this.inSecs   = new int[edges];
+        compress(from, to, secs, edges, outStart, outTo, outSecs);
+        compress(to, from, secs, edges, inStart, inFrom, inSecs);
+        for (int v = 0; v < n; v++) snap.put(v, lat[v], lon[v]);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+
+        int count = Math.min(landmarkCount, n);
+        this.landmarks    = new int[count];
+        this.fromLandmark = new int[count][];
+        this.toLandmark   = new int[count][];
+        chooseLandmarks();
+    }
+
+    public int nodeCount()     { return lat.length; }
+    public int edgeCount()     { return outTo.length; }
+    public int landmarkCount() { return landmarks.length; }
+
+    public GeoPoint position(int node) {
+        return new GeoPoint(lat[node], lon[node]);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    //  Loading
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Parses a graph file and precomputes {@code landmarkCount} landmarks.
+     * A malformed line, an unknown node or a negative time throws, naming
+     * the line, so a half-converted file is never used.
+     */
+    public static RoadGraph load(Path file, int landmarkCount) throws IOException {
+        Map<Long, Integer> index = new HashMap<>();
+        double[] lat = new double[1024], lon = new double[1024];
+        int[] from = new int[4096], to = new int[4096], secs = new int[4096];
+        int nodes = 0, edges = 0, lineNo = 0;
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split(",");
+                try {
+                    if (f[0].equals("n") && f.length == 4) {
+                        if (index.putIfAbsent(Long.parseLong(f[1].strip()), nodes) != null) {
+                            throw new IOException(file + ":" + lineNo + ": node " + f[1] + " listed twice");
+                        }
+                        if (nodes == lat.length) {
+                            lat = Arrays.copyOf(lat, nodes * 2);
+                            lon = Arrays.copyOf(lon, nodes * 2);
+                        }
+                        lat[nodes] = Double.parseDouble(f[2].strip());
+                        lon[nodes] = Double.parseDouble(f[3].strip());
+                        nodes++;
+                    } else if (f[0].equals("e") && f.length == 4) {
+                        Integer a = index.get(Long.parseLong(f[1].strip()));
+                        Integer b = index.get(Long.parseLong(f[2].strip()));
+                        if (a == null || b == null) throw new IOException(file + ":" + lineNo + ": edge to an unknown node");
+                        double s = Double.parseDouble(f[3].strip());
+                        if (!(s >= 0) || s > 86_400) throw new IOException(file + ":" + lineNo + ": invalid travel time");
+                        if (edges == from.length) {
+                            from = Arrays.copyOf(from, edges * 2);
+                            to   = Arrays.copyOf(to, edges * 2);
+                            secs = Arrays.copyOf(secs, edges * 2);
+                        }
+                        from[edges] = a;
+                        to[edges]   = b;
+                        secs[edges] = (int) Math.round(s);
+                        edges++;
+                    } else {
+                        throw new IOException(file + ":" + lineNo + ": expected 'n,id,lat,lon' or 'e,from,to,seconds'");
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNo + ": invalid number");
+                }
+            }
+        }
+        if (nodes == 0) throw new IOException(file + ": no nodes defined");
+        return new RoadGraph(Arrays.copyOf(lat, nodes), Arrays.copyOf(lon, nodes), from, to, secs, edges, landmarkCount);
+    }
+
+    /** Counting sort of the edge list into adjacency arrays grouped by {@code key}. */
+    private static void compress(int[] key, int[] other, int[] secs, int edges,
+                                 int[] start, int[] target, int[] time) {
+        for (int i = 0; i < edges; i++) start[key[i] + 1]++;
+        for (int v = 0; v + 1 < start.length; v++) start[v + 1] += start[v];
+        int[] next = Arrays.copyOf(start, start.length - 1);
+        for (int i = 0; i < edges; i++) {
+            int slot = next[key[i]]++;
+            target[slot] = other[i];
+            time[slot] = secs[i];
+        }
+    }
+
+    /**
+     * Farthest-landmark selection: each landmark is the node farthest (by
+     * travel time from the previous ones) from those already chosen, so
+     * they end up around the edge of the network, where their bounds are
+     * tightest.
+     */
+    private void chooseLandmarks() {
+        int n = lat.length;
+        int[] closest = new int[n];
+        Arrays.fill(closest, UNREACHABLE);
+        int next = farthest(fullDijkstra(0, false), null);
+        for (int l = 0; l < landmarks.length; l++) {
+            landmarks[l] = next;
+            fromLandmark[l] = fullDijkstra(next, false);
+            toLandmark[l]   = fullDijkstra(next, true);
+            for (int v = 0; v < n; v++) closest[v] = Math.min(closest[v], fromLandmark[l][v]);
+            next = farthest(closest, landmarks);
+        }
+    }
+
+    /** Reachable node with the largest time, skipping {@code taken}; node 0 if none. */
+    private static int farthest(int[] time, int[] taken) {
+        int best = 0;
+        long bestTime = -1;
+        for (int v = 0; v < time.length; v++) {
+            if (time[v] == UNREACHABLE || time[v] <= bestTime) continue;
+            if (taken != null && contains(taken, v)) continue;
+            best = v;
+            bestTime = time[v];
+        }
+        return best;
+    }
+
+    private static boolean contains(int[] a, int v) {
+        for (int x : a) if (x == v) return true;
+        return false;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    //  Queries
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** The node nearest to {@code p}, or -1 if none is within {@code maxKm}. */
+    public int nearestNode(GeoPoint p, double maxKm) {
+        List<SpatialGrid.Hit> hit = snap.nearest(p, 1, maxKm, id -> true);
+        return hit.isEmpty() ? -1 : hit.get(0).id();
+    }
+
+    /** Seconds to drive from {@code from} to {@code to}, or UNREACHABLE. ALT A* search. */
+    public int seconds(int from, int to) {
+        if (from == to) return 0;
+        Scratch s = scratch.get();
+        try {
+            s.set(from, 0);
+            s.bound[from] = bound(from, to);
+            s.heap.push(key(s.bound[from], from));
+            while (!s.heap.isEmpty()) {
+                long top = s.heap.pop();
+                int v = (int) top;
+                int g = s.time[v];
+                if (keyTime(top) != g + s.bound[v]) continue;   // stale entry
+                if (v == to) return g;
+                for (int e = outStart[v], end = outStart[v + 1]; e < end; e++) {
+                    int w = outTo[e];
+                    int ng = g + outSecs[e];
+                    if (ng >= s.time[w]) continue;
+                    if (s.bound[w] < 0) s.bound[w] = bound(w, to);
+                    s.set(w, ng);
+                    s.heap.push(key(ng + s.bound[w], w));
+                }
+            }
+            return UNREACHABLE;
+        } finally {
+            s.reset();
+        }
+    }
+
+    /**
+     * Seconds from each of {@code sources} to {@code target} (UNREACHABLE
+     * where there is no route): one Dijkstra over the reversed edges from
+     * the target, stopped as soon as every source is settled.
+     */
+    public int[] secondsTo(int target, int[] sources) {
+        int[] result = new int[sources.length];
+        Scratch s = scratch.get();
+        try {
+            int left = 0;
+            for (int src : sources) {
+                if (s.bound[src] < 0) { s.bound[src] = 0; left++; }   // bound[] marks the sources here
+            }
+            s.set(target, 0);
+            s.heap.push(key(0, target));
+            while (!s.heap.isEmpty() && left > 0) {
+                long top = s.heap.pop();
+                int v = (int) top;
+                int g = s.time[v];
+                if (keyTime(top) != g) continue;
+                if (s.bound[v] == 0) { s.bound[v] = 1; left--; }
+                for (int e = inStart[v], end = inStart[v + 1]; e < end; e++) {
+                    int w = inFrom[e];
+                    int ng = g + inSecs[e];
+                    if (ng < s.time[w]) {
+                        s.set(w, ng);
+                        s.heap.push(key(ng, w));
+                    }
+                }
+            }
+            for (int i = 0; i < sources.length; i++) result[i] = s.time[sources[i]];
+            return result;
+        } finally {
+            for (int src : sources) s.bound[src] = -1;
+            s.reset();
+        }
+    }
+
+    /** Lower bound on the time from v to t from every landmark (triangle inequality). */
+    private int bound(int v, int t) {
+        int best = 0;
+        for (int l = 0; l < landmarks.length; l++) {
+            int[] to = toLandmark[l], from = fromLandmark[l];
+            if (to[v] != UNREACHABLE && to[t] != UNREACHABLE) best = Math.max(best, to[v] - to[t]);
+            if (from[t] != UNREACHABLE && from[v] != UNREACHABLE) best = Math.max(best, from[t] - from[v]);
+        }
+        return best;
+    }
+
+    /** Plain Dijkstra over every reachable node; used for the landmark tables. */
+    private int[] fullDijkstra(int source, boolean reversed) {
+        int[] start  = reversed ? inStart : outStart;
+        int[] target = reversed ? inFrom  : outTo;
+        int[] time   = reversed ? inSecs  : outSecs;
+        int[] dist = new int[lat.length];
+        Arrays.fill(dist, UNREACHABLE);
+        dist[source] = 0;
+        LongHeap heap = new LongHeap();
+        heap.push(key(0, source));
+        while (!heap.isEmpty()) {
+            long top = heap.pop();
+            int v = (int) top;
+            if (keyTime(top) != dist[v]) continue;
+            for (int e = start[v], end = start[v + 1]; e < end; e++) {
+                int w = target[e];
+                int nd = dist[v] + time[e];
+                if (nd < dist[w]) {
+                    dist[w] = nd;
+                    heap.push(key(nd, w));
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Heap entry ordered by time, then node. */
+    private static long key(int time, int node) { return ((long) time << 32) | node; }
+    private static int keyTime(long key)         { return (int) (key >>> 32); }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Per-thread search state; only the entries a query touched are reset. */
+    private static final class Scratch {
+        final int[] time;
+        final int[] bound;
+        final LongHeap heap = new LongHeap();
+        private int[] touched = new int[256];
+        private int touchedCount;
+
+        Scratch(int n) {
+            time = new int[n];
+            bound = new int[n];
+            Arrays.fill(time, UNREACHABLE);
+            Arrays.fill(bound, -1);
+        }
+
+        void set(int v, int t) {
+            if (time[v] == UNREACHABLE) {
+                if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = v;
+            }
+            time[v] = t;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                time[touched[i]] = UNREACHABLE;
+                bound[touched[i]] = -1;
+            }
+            touchedCount = 0;
+            heap.clear();
+        }
+    }
+
+    /** Binary min-heap of packed longs; stale entries are skipped by the caller. */
+    private static final class LongHeap {
+        private long[] a = new long[256];
+        private int size;
+
+        boolean isEmpty() { return size == 0; }
+        void clear()      { size = 0; }
+
+        void push(long x) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (a[parent] <= x) break;
+                a[i] = a[parent];
+                i = parent;
+            }
+            a[i] = x;
+        }
+
+        long pop() {
+            long top = a[0];
+            long x = a[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && a[child + 1] < a[child]) child++;
+                if (a[child] >= x) break;
+                a[i] = a[child];
+                i = child;
+            }
+            a[i] = x;
+            return top;
+        }
+    }
+}
@@ -1,70 +1,72 @@
 package com.badas.service;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import com.badas.model.AmbulanceType;
+import com.badas.model.Severity;
+import com.badas.util.KeywordMatcher;
+
+import java.util.List;
 
 /**
  * Stateless service for keyword-based symptom severity analysis.
  * Severity levels: CRITICAL, MODERATE, MINOR, UNKNOWN.
+ *
+ * The keyword lists come from the SymptomDictionaryService, compiled into a
+ * single Aho-Corasick automaton (KeywordMatcher) tagged with each keyword's
+ * severity ordinal, so every keyword is found in one pass over the text.
+ * Each call reads the active dictionary exactly once, so a hot reload in the
+ * middle of an analysis cannot mix keyword versions.
  */
 public class SymptomAnalyzer {
 
-    public enum Severity { CRITICAL, MODERATE, MINOR, UNKNOWN }
-
-    private static final Set<String> CRITICAL_KEYWORDS = new HashSet<>(Arrays.asList(
-        "chest pain", "shortness of breath", "stroke", "unconscious", "unresponsive",
-        "severe bleeding", "bleeding", "heart attack", "cardiac arrest", "seizure",
-        "severe headache", "loss of consciousness", "difficulty breathing", "confusion"
-    ));
-
-    private static final Set<String> MODERATE_KEYWORDS = new HashSet<>(Arrays.asList(
-        "fever", "dizziness", "nausea", "vomiting", "weakness", "rapid heartbeat",
-        "fracture", "broken bone", "abdominal pain", "high fever", "allergic reaction",
-        "head injury", "back pain", "difficulty walking"
-    ));
+    /** Highest severity found, every keyword occurrence, and the dictionary version used. */
+    public record Analysis(Severity severity, List<KeywordMatcher.Match> matches, String dictionaryVersion) {}
 
-    private static final Set<String> MINOR_KEYWORDS = new HashSet<>(Arrays.asList(
-        "cough", "mild fever", "sore throat", "body ache", "fatigue", "cold",
-        "runny nose", "mild headache", "mild pain", "sprain", "bruise", "rash"
-    ));
+    private static final Severity[] SEVERITIES = Severity.values();
 
     /**
-     * Analyzes a free-text symptom description and returns the determined severity.
+     * Analyzes a free-text symptom description and returns the determined severity:
+     * the most severe keyword present anywhere in the text. Allocation-free,
+     * and stops scanning as soon as a critical keyword is seen.
      */
     public Severity analyze(String symptomText) {
+        return analyze(symptomText, SymptomDictionaryService.getInstance().current());
+    }
+
+    /** Scores against a specific dictionary version (batch jobs pin one for the whole run). */
+    public Severity analyze(String symptomText, SymptomDictionary dictionary) {
         if (symptomText == null || symptomText.isBlank()) return Severity.UNKNOWN;
-        String lower = symptomText.toLowerCase();
+        int tag = dictionary.getMatcher().bestTag(symptomText, Severity.CRITICAL.ordinal());
+        return tag < 0 ? Severity.UNKNOWN : SEVERITIES[tag];
+    }
 
-        // Check multi-word keywords first (exact phrase matching)
-        for (String kw : CRITICAL_KEYWORDS) {
-            if (lower.contains(kw)) return Severity.CRITICAL;
-        }
-        for (String kw : MODERATE_KEYWORDS) {
-            if (lower.contains(kw)) return Severity.MODERATE;
+    /**
+     * Like analyze(), but also returns every keyword occurrence with its
+     * position in the text (e.g. for highlighting the triggering phrases).
+     */
+    public Analysis analyzeDetailed(String symptomText) {
+        SymptomDictionary dict = SymptomDictionaryService.getInstance().current();
+        if (symptomText == null || symptomText.isBlank()) {
+            return new Analysis(Severity.UNKNOWN, List.of(), dict.getVersion());
         }
-        for (String kw : MINOR_KEYWORDS) {
-            if (lower.contains(kw)) return Severity.MINOR;
+        List<KeywordMatcher.Match> matches = dict.getMatcher().findAll(symptomText);
+        Severity worst = Severity.UNKNOWN;
+        for (KeywordMatcher.Match m : matches) {
+            if (m.tag() < worst.ordinal()) worst = SEVERITIES[m.tag()];
         }
-
-        return Severity.UNKNOWN;
+        return new Analysis(worst, matches, dict.getVersion());
     }
 
     /**
      * Returns the recommended ambulance type based on severity and patient age.
      */
-    public String recommendAmbulance(Severity severity, int age) {
+    public AmbulanceType recommendAmbulance(Severity severity, int age) {
         boolean highRiskAge = age < 10 || age > 60;
 
         return switch (severity) {
-            case CRITICAL -> "Advanced Life Support (ALS) Ambulance";
-            case MODERATE -> highRiskAge
-                    ? "Advanced Life Support (ALS) Ambulance"
-                    : "Basic Life Support (BLS) Ambulance";
-            case MINOR    -> highRiskAge
-                    ? "Basic Life Support (BLS) Ambulance"
-                    : "Non-Emergency Medical Transport";
-            case UNKNOWN  -> "Clinical evaluation required before dispatch";
+            case CRITICAL -> AmbulanceType.ALS;
+            case MODERATE -> highRiskAge ? AmbulanceType.ALS : AmbulanceType.BLS;
+            case MINOR    -> highRiskAge ? AmbulanceType.BLS : AmbulanceType.NON_EMERGENCY;
+            case UNKNOWN  -> AmbulanceType.EVALUATE_FIRST;
         };
     }
 
@@ -72,20 +74,15 @@ public class SymptomAnalyzer {
      * Returns a human-readable label for the severity level.
      */
     public String severityLabel(Severity severity) {
-        return switch (severity) {
-            case CRITICAL -> "Critical";
-            case MODERATE -> "Moderate";
-            case MINOR    -> "Minor";
-            case UNKNOWN  -> "Undetermined";
-        };
+        return severity.label();
     }
 
     /**
      * Returns a detailed analysis summary string for display in the UI.
      */
-    public String buildSummary(Severity severity, int age, String ambulanceType) {
+    public String buildSummary(Severity severity, int age, AmbulanceType ambulanceType) {
         return "Severity Level : " + severityLabel(severity) + "\n"
              + "Patient Age    : " + age + " years\n"
-             + "Recommendation : " + ambulanceType;
+             + "Recommendation : " + ambulanceType.label();
     }
 }
@@ -0,0 +1,156 @@
+package com.badas.service;
+
+import com.badas.model.Severity;
+import com.badas.util.KeywordMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * One immutable version of the symptom keyword lists, compiled into a
+ * KeywordMatcher. Readers grab a reference once and use it for the whole
+ * analysis, so a concurrent reload can never mix two versions.
+ *
+ * File format (see config/symptom-keywords.txt):
+ *   version = 3
+ *   [critical]
+ *   chest pain
+ *   ...
+ */
+public final class SymptomDictionary {
+
+    /** Version label used when no dictionary file is available. */
+    public static final String BUILT_IN_VERSION = "built-in";
+
+    private final String version;
+    private final Map<Severity, List<String>> keywords;
+    private final KeywordMatcher matcher;
+    private final String fingerprint;
+
+    private SymptomDictionary(String version, Map<Severity, List<String>> keywords) {
+        this.version = version;
+        EnumMap<Severity, List<String>> copy = new EnumMap<>(Severity.class);
+        keywords.forEach((sev, list) -> copy.put(sev, List.copyOf(list)));
+        this.keywords = Collections.unmodifiableMap(copy);
+
+        KeywordMatcher.Builder b = KeywordMatcher.builder();
+        this.keywords.forEach((sev, list) -> b.addAll(list, sev.ordinal()));
+        this.matcher = b.build();
+        this.fingerprint = fingerprint(this.keywords);
+    }
+
+    public String getVersion()                          { return version; }
+    /** Hash of the keyword lists, which changes whenever they do, whatever the version label says. */
+    public String fingerprint()                         { return fingerprint; }
+    public KeywordMatcher getMatcher()                  { return matcher; }
+    public List<String> getKeywords(Severity severity)  { return keywords.getOrDefault(severity, List.of()); }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    //  Loading
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Parses a dictionary file. Throws if the file has no version line or
+     * no keywords at all, so a half-saved file is never swapped in.
+     */
+    public static SymptomDictionary load(Path file) throws IOException {
+        String version = null;
+        Map<Severity, List<String>> lists = new EnumMap<>(Severity.class);
+        Severity section = null;
+        int lineNo = 0;
+        int count = 0;
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    section = parseSection(line.substring(1, line.length() - 1).strip(), file, lineNo);
+                } else if (section == null && line.toLowerCase().startsWith("version")) {
+                    int eq = line.indexOf('=');
+                    if (eq < 0) throw new IOException(file + ":" + lineNo + ": expected 'version = <label>'");
+                    version = line.substring(eq + 1).strip();
+                } else if (section == null) {
+                    throw new IOException(file + ":" + lineNo + ": keyword outside of a [section]");
+                } else {
+                    lists.computeIfAbsent(section, s -> new ArrayList<>()).add(line);
+                    count++;
+                }
+            }
+        }
+
+        if (version == null || version.isEmpty()) throw new IOException(file + ": missing 'version = ...' line");
+        if (count == 0) throw new IOException(file + ": no keywords defined");
+        return new SymptomDictionary(version, lists);
+    }
+
+    private static Severity parseSection(String name, Path file, int lineNo) throws IOException {
+        return switch (name.toLowerCase()) {
+            case "critical" -> Severity.CRITICAL;
+            case "moderate" -> Severity.MODERATE;
+            case "minor"    -> Severity.MINOR;
+            default -> throw new IOException(file + ":" + lineNo + ": unknown section [" + name + "]");
+        };
+    }
+
+    /** The keyword lists that shipped in code, used when the file is missing or invalid. */
+    public static SymptomDictionary builtIn() {
+        Map<Severity, List<String>> lists = new EnumMap<>(Severity.class);
+        lists.put(Severity.CRITICAL, List.of(
+            "chest pain", "shortness of breath", "stroke", "unconscious", "unresponsive",
+            "severe bleeding", "bleeding", "heart attack", "cardiac arrest", "seizure",
+            "severe headache", "loss of consciousness", "difficulty breathing", "confusion"
+        ));
+        lists.put(Severity.MODERATE, List.of(
+            "fever", "dizziness", "nausea", "vomiting", "weakness", "rapid heartbeat",
+            "fracture", "broken bone", "abdominal pain", "high fever", "allergic reaction",
+            "head injury", "back pain", "difficulty walking"
+        ));
+        lists.put(Severity.MINOR, List.of(
+            "cough", "mild fever", "sore throat", "body ache", "fatigue", "cold",
+            "runny nose", "mild headache", "mild pain", "sprain", "bruise", "rash"
+        ));
+        return new SymptomDictionary(BUILT_IN_VERSION, lists);
+    }
+
+    /**
+     * SHA-256 over each severity's keywords as the matcher sees them
+     * (trimmed, folded), sorted, so reordering lines or changing case
+     * does not count as an edit.
+     */
+    private static String fingerprint(Map<Severity, List<String>> keywords) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Severity sev : Severity.values()) {
+                TreeSet<String> folded = new TreeSet<>();
+                for (String k : keywords.getOrDefault(sev, List.of())) folded.add(KeywordMatcher.fold(k.trim()));
+                md.update(("[" + sev.name() + "]\n").getBytes(StandardCharsets.UTF_8));
+                for (String k : folded) md.update((k + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is guaranteed to be available in all Java SE implementations
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SymptomDictionary{version='" + version + "', keywords=" + matcher.size() + "}";
+    }
+}
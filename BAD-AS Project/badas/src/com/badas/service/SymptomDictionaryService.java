@@ -0,0 +1,181 @@
+package com.badas.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Singleton holder for the active SymptomDictionary.
+ *
+ * The dictionary is read from config/symptom-keywords.txt (relative to the
+ * working directory, or the path in the "badas.symptoms" system property).
+ * Once {@link #start()} is called, a daemon thread watches the file and
+ * compiles a fresh dictionary whenever it is saved; the new instance is
+ * published with a single atomic reference swap, so analyzers never lock
+ * and never see a half-built matcher. A file that fails to parse is logged
+ * and ignored — the previous dictionary stays active.
+ */
+public class SymptomDictionaryService {
+
+    /** Reload metrics for the admin/IT views. */
+    public record Stats(String activeVersion, int keywords, long reloads, long failedReloads,
+                        long lastReloadMillis, long lastReloadAt) {}
+
+    private static final String DEFAULT_PATH = "config/symptom-keywords.txt";
+
+    /** Editors often save in several writes; wait for the file to settle before reloading. */
+    private static final long SETTLE_MILLIS = 250;
+
+    private static SymptomDictionaryService instance;
+
+    private final Path file;
+    private final AtomicReference<SymptomDictionary> current = new AtomicReference<>();
+
+    private final AtomicLong reloads          = new AtomicLong();
+    private final AtomicLong failedReloads    = new AtomicLong();
+    private final AtomicLong lastReloadMillis = new AtomicLong();
+    private final AtomicLong lastReloadAt     = new AtomicLong();
+
+    private WatchService watcher;
+    private Thread       watchThread;
+
+    private SymptomDictionaryService() {
+        this.file = Paths.get(System.getProperty("badas.symptoms", DEFAULT_PATH)).toAbsolutePath();
+        current.set(loadInitial());
+    }
+
+    public static synchronized SymptomDictionaryService getInstance() {
+        if (instance == null) instance = new SymptomDictionaryService();
+        return instance;
+    }
+
+    /** The dictionary to use for one analysis. Read it once and keep the reference. */
+    public SymptomDictionary current() {
+        return current.get();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Stats stats() {
+        SymptomDictionary d = current.get();
+        return new Stats(d.getVersion(), d.getMatcher().size(), reloads.get(), failedReloads.get(),
+                         lastReloadMillis.get(), lastReloadAt.get());
+    }
+
+    // ─────────────────────────────────────────────
+    //  Loading
+    // ─────────────────────────────────────────────
+
+    private SymptomDictionary loadInitial() {
+        if (!Files.isRegularFile(file)) {
+            System.err.println("SymptomDictionaryService: " + file + " not found, using built-in keywords");
+            return SymptomDictionary.builtIn();
+        }
+        try {
+            return timedLoad();
+        } catch (IOException e) {
+            failedReloads.incrementAndGet();
+            System.err.println("SymptomDictionaryService.loadInitial: " + e.getMessage()
+                + " — using built-in keywords");
+            return SymptomDictionary.builtIn();
+        }
+    }
+
+    /**
+     * Re-reads the file and swaps it in. Returns false (keeping the current
+     * dictionary) if the file is missing or invalid.
+     */
+    public boolean reload() {
+        try {
+            current.set(timedLoad());
+            return true;
+        } catch (IOException e) {
+            failedReloads.incrementAndGet();
+            System.err.println("SymptomDictionaryService.reload: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private SymptomDictionary timedLoad() throws IOException {
+        long t0 = System.nanoTime();
+        SymptomDictionary d = SymptomDictionary.load(file);
+        lastReloadMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        lastReloadAt.set(System.currentTimeMillis());
+        reloads.incrementAndGet();
+        return d;
+    }
+
+    // ─────────────────────────────────────────────
+    //  File watching
+    // ─────────────────────────────────────────────
+
+    /** Starts watching the dictionary file. Safe to call more than once. */
+    public synchronized void start() {
+        if (watchThread != null) return;
+        Path dir = file.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            System.err.println("SymptomDictionaryService.start: " + dir + " does not exist, hot reload disabled");
+            return;
+        }
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            dir.register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("SymptomDictionaryService.start: " + e.getMessage());
+            return;
+        }
+        watchThread = new Thread(this::watchLoop, "badas-symptom-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    public synchronized void stop() {
+        if (watchThread == null) return;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        watchThread.interrupt();
+        watchThread = null;
+    }
+
+    private void watchLoop() {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (name.equals(event.context())) touched = true;
+                }
+                key.reset();
+                if (!touched) continue;
+
+                // Swallow the burst of events from a single save, then reload once
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey more;
+                while ((more = watcher.poll()) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stop() was called
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.badas.service;
+
+import com.badas.dao.HospitalDAO;
+import com.badas.event.ChangeOp;
+import com.badas.event.EventBus;
+import com.badas.event.FeedResync;
+import com.badas.event.HospitalChanged;
+import com.badas.model.GeoPoint;
+import com.badas.model.Hospital;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Driving times between two positions, for ranking hospitals by how soon
+ * an ambulance can get there rather than by straight-line distance.
+ *
+ * The road network is read from config/road-graph.csv (or the path in the
+ * "badas.roads" system property) in the background at start(); see
+ * RoadGraph for the format. Both ends of a query are snapped to the
+ * nearest road node and the route between them is timed. Without a graph
+ * file — or for a point more than SNAP_KM from any road, or with no route
+ * between the nodes — the time is estimated from the great-circle
+ * distance, and the answer says so.
+ *
+ * Pickups are geocoded to gazetteer places, so the pairs that are asked
+ * for again and again are (hospital, place). A hospital × place matrix is
+ * precomputed on the background thread, one reversed search per place,
+ * and swapped in whole. It is rebuilt a few seconds after a hospital is
+ * added, removed or moved; the far more frequent count-only updates (every
+ * ambulance reserved or given back) leave it alone. Other pairs are routed
+ * on demand and kept in a bounded memo.
+ */
+public class TravelTimeService {
+
+    /** A driving time; {@code routed} is false when it was estimated from distance. */
+    public record TravelTime(double seconds, boolean routed) {
+        public double minutes() { return seconds / 60.0; }
+    }
+
+    /** Graph, matrix and query counters for diagnostics. */
+    public record Stats(int nodes, int edges, int landmarks, int matrixPairs, long matrixHits, long memoHits,
+                        long routed, long estimated, double avgRouteMicros, long refreshes, long lastRefreshMillis) {}
+
+    private static final String DEFAULT_PATH = "config/road-graph.csv";
+    private static final int    LANDMARKS    = 8;
+    /** Farthest a position may be from a road node and still be routed. */
+    private static final double SNAP_KM      = 2.0;
+    /** Speed assumed between a position and its road node. */
+    private static final double OFF_ROAD_KMH = 20;
+    /** Straight-line estimate: road distance is about this much longer than the great circle ... */
+    private static final double DETOUR       = 1.3;
+    /** ... driven at this average speed. */
+    private static final double ESTIMATE_KMH = 40;
+    private static final long   REFRESH_DELAY_SECONDS = 5;
+    private static final int    MEMO_ENTRIES = 8_192;
+
+    /** Where the matrix places a hospital: its position, or its location text while it has none. */
+    private record Placement(GeoPoint position, String location) {
+        static Placement of(Hospital h) {
+            GeoPoint p = h.getPosition();
+            return p != null ? new Placement(p, null) : new Placement(null, Geocoder.normalise(h.getLocation()));
+        }
+    }
+
+    private static TravelTimeService instance;
+
+    private final Path        file;
+    private final HospitalDAO hospitalDAO = new HospitalDAO();
+    private final Geocoder    geocoder    = Geocoder.getInstance();
+
+    private volatile RoadGraph graph;
+    private volatile Map<Long, Integer> matrix = Map.of();
+    private final Map<Long, Integer> memo = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+            return size() > MEMO_ENTRIES;
+        }
+    };
+    /** Last known placement per hospital id, to tell moves from count-only updates. */
+    private final Map<Integer, Placement> placements = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private ScheduledExecutorService worker;
+
+    private final LongAdder matrixHits  = new LongAdder();
+    private final LongAdder memoHits    = new LongAdder();
+    private final LongAdder routed      = new LongAdder();
+    private final LongAdder routeNanos  = new LongAdder();
+    private final LongAdder estimated   = new LongAdder();
+    private final LongAdder refreshes   = new LongAdder();
+    private volatile long lastRefreshMillis;
+
+    private TravelTimeService() {
+        this.file = Paths.get(System.getProperty("badas.roads", DEFAULT_PATH)).toAbsolutePath();
+    }
+
+    public static synchronized TravelTimeService getInstance() {
+        if (instance == null) instance = new TravelTimeService();
+        return instance;
+    }
+
+    /**
+     * Loads the road graph and builds the matrix on a background thread,
+     * and follows hospital changes. Until the graph is ready every time is
+     * an estimate. Safe to call more than once.
+     */
+    public synchronized void start() {
+        if (worker != null) return;
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "badas-travel-times");
+            t.setDaemon(true);
+            return t;
+        });
+        EventBus bus = EventBus.getInstance();
+        bus.subscribe(HospitalChanged.class, e -> {
+            if (moved(e)) requestRefresh();
+        });
+        bus.subscribe(FeedResync.class, e -> requestRefresh());
+        worker.execute(() -> {
+            graph = loadGraph();
+            refreshMatrix();
+        });
+    }
+
+    public synchronized void stop() {
+        if (worker != null) worker.shutdownNow();
+    }
+
+    private RoadGraph loadGraph() {
+        if (!Files.isRegularFile(file)) {
+            System.err.println("TravelTimeService: " + file + " not found, travel times are estimated from distance");
+            return null;
+        }
+        try {
+            return RoadGraph.load(file, LANDMARKS);
+        } catch (IOException e) {
+            System.err.println("TravelTimeService.loadGraph: " + e.getMessage()
+                + " — travel times are estimated from distance");
+            return null;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    //  Queries
+    // ─────────────────────────────────────────────
+
+    /** Driving time from {@code from} to {@code to}: routed if the road graph allows, else estimated. */
+    public TravelTime between(GeoPoint from, GeoPoint to) {
+        return between(from, to, snap(to));
+    }
+
+    /**
+     * The road node a position is routed from or to, or -1 if there is no
+     * graph or no node within SNAP_KM. Lets a caller timing many hospitals
+     * to one pickup snap the pickup once.
+     */
+    public int snap(GeoPoint at) {
+        RoadGraph g = graph;
+        return g == null ? -1 : g.nearestNode(at, SNAP_KM);
+    }
+
+    /** As between(from, to), with {@code to} already snapped to {@code toNode} by snap(). */
+    public TravelTime between(GeoPoint from, GeoPoint to, int toNode) {
+        RoadGraph g = graph;
+        if (g != null && toNode >= 0) {
+            int a = g.nearestNode(from, SNAP_KM);
+            int b = toNode;
+            if (a >= 0) {
+                int secs = roadSeconds(g, a, b);
+                if (secs != RoadGraph.UNREACHABLE) {
+                    double offRoadKm = from.distanceKm(g.position(a)) + to.distanceKm(g.position(b));
+                    return new TravelTime(secs + offRoadKm / OFF_ROAD_KMH * 3600, true);
+                }
+            }
+        }
+        estimated.increment();
+        return estimate(from, to);
+    }
+
+    /** Straight-line estimate, used without a graph or route. */
+    public static TravelTime estimate(GeoPoint from, GeoPoint to) {
+        return new TravelTime(from.distanceKm(to) * DETOUR / ESTIMATE_KMH * 3600, false);
+    }
+
+    private int roadSeconds(RoadGraph g, int a, int b) {
+        long pair = pair(a, b);
+        Integer secs = matrix.get(pair);
+        if (secs != null) {
+            matrixHits.increment();
+            return secs;
+        }
+        synchronized (memo) {
+            secs = memo.get(pair);
+        }
+        if (secs != null) {
+            memoHits.increment();
+            return secs;
+        }
+        long t0 = System.nanoTime();
+        int routedSecs = g.seconds(a, b);
+        routeNanos.add(System.nanoTime() - t0);
+        routed.increment();
+        synchronized (memo) {
+            memo.put(pair, routedSecs);
+        }
+        return routedSecs;
+    }
+
+    public Stats stats() {
+        RoadGraph g = graph;
+        long n = routed.sum();
+        return new Stats(g == null ? 0 : g.nodeCount(), g == null ? 0 : g.edgeCount(), g == null ? 0 : g.landmarkCount(),
+                         matrix.size(), matrixHits.sum(), memoHits.sum(), n, estimated.sum(),
+                         n == 0 ? 0 : routeNanos.sum() / (double) n / 1_000.0, refreshes.sum(), lastRefreshMillis);
+    }
+
+    // ─────────────────────────────────────────────
+    //  Hospital × place matrix
+    // ─────────────────────────────────────────────
+
+    /** Whether the change adds, removes or moves a hospital, as opposed to only changing its counts. */
+    private boolean moved(HospitalChanged e) {
+        if (e.op() == ChangeOp.DELETE) return placements.remove(e.id()) != null;
+        Placement now = Placement.of(e.row());
+        return !now.equals(placements.put(e.id(), now));
+    }
+
+    /** Rebuilds the matrix shortly; changes arriving meanwhile share the rebuild. */
+    private void requestRefresh() {
+        if (graph == null || !refreshQueued.compareAndSet(false, true)) return;
+        try {
+            worker.schedule(this::refreshMatrix, REFRESH_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /** Times from every placed hospital to every gazetteer place. Runs on the worker thread. */
+    private void refreshMatrix() {
+        refreshQueued.set(false);
+        RoadGraph g = graph;
+        if (g == null) return;
+        long t0 = System.nanoTime();
+
+        Set<Integer> sourceSet = new LinkedHashSet<>();
+        Set<Integer> ids = new HashSet<>();
+        for (Hospital h : hospitalDAO.findAll()) {
+            ids.add(h.getId());
+            placements.put(h.getId(), Placement.of(h));
+            GeoPoint p = h.getPosition();
+            if (p == null) p = geocoder.locate(h.getLocation());
+            int node = p == null ? -1 : g.nearestNode(p, SNAP_KM);
+            if (node >= 0) sourceSet.add(node);
+        }
+        placements.keySet().retainAll(ids);
+        int[] sources = sourceSet.stream().mapToInt(Integer::intValue).toArray();
+        List<Integer> targets = new ArrayList<>();
+        for (Gazetteer.Place place : geocoder.places()) {
+            int node = g.nearestNode(place.position(), SNAP_KM);
+            if (node >= 0 && !targets.contains(node)) targets.add(node);
+        }
+
+        Map<Long, Integer> next = new HashMap<>();
+        if (sources.length > 0) {
+            for (int target : targets) {
+                int[] secs = g.secondsTo(target, sources);
+                for (int i = 0; i < sources.length; i++) next.put(pair(sources[i], target), secs[i]);
+            }
+        }
+        matrix = next;
+        refreshes.increment();
+        lastRefreshMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+    }
+
+    private static long pair(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+}
@@ -11,6 +11,7 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Modern split-panel login screen.
@@ -25,6 +26,7 @@ public class LoginFrame extends JFrame {
     private JToggleButton  themeToggle;
 
     private final AuthService auth = AuthService.getInstance();
+    private boolean signingIn;   // a login query is running in the background
 
     public LoginFrame() {
         setTitle("BADAS \u2014 Login");
@@ -271,17 +273,39 @@ public class LoginFrame extends JFrame {
             return;
         }
 
-        User user = auth.login(username, password);
-        if (user == null) {
-            showError("Invalid username or password.");
-            passwordField.setText("");
-            passwordField.requestFocus();
-            return;
-        }
+        if (signingIn) return;
+        signingIn = true;
+        showError(" ");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-        // Success — route to the appropriate dashboard
-        dispose();
-        SwingUtilities.invokeLater(() -> openDashboard(user));
+        // Password hashing and the user lookup run off the EDT
+        new SwingWorker<User, Void>() {
+            @Override protected User doInBackground() {
+                return auth.login(username, password);
+            }
+
+            @Override protected void done() {
+                signingIn = false;
+                setCursor(Cursor.getDefaultCursor());
+                User user;
+                try {
+                    user = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    showError("Login failed: " + e.getMessage());
+                    return;
+                }
+                if (user == null) {
+                    showError("Invalid username or password.");
+                    passwordField.setText("");
+                    passwordField.requestFocus();
+                    return;
+                }
+
+                // Success — route to the appropriate dashboard
+                dispose();
+                SwingUtilities.invokeLater(() -> openDashboard(user));
+            }
+        }.execute();
     }
 
     private void openDashboard(User user) {
@@ -1,5 +1,6 @@
 package com.badas.ui.common;
 
+import com.badas.event.EventBus;
 import com.badas.model.User;
 import com.badas.service.AuthService;
 import com.badas.ui.auth.LoginFrame;
@@ -10,6 +11,12 @@ import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Shared frame layout for all role-based dashboards.
@@ -28,6 +35,14 @@ import java.time.format.DateTimeFormatter;
  *   - getSidebarItems()       — nav item labels
  *   - getDefaultItem()        — which item is selected on open
  *   - showPanel(String item)  — swap content for the chosen nav item
+ *
+ * Database access never runs on the Event Dispatch Thread: panels that need
+ * data are shown with loadContent(query, builder), and in-panel refreshes and
+ * mutations go through loadAsync(work, onDone). Both run the work on a
+ * SwingWorker and drop the result if the user has navigated elsewhere since.
+ *
+ * Live updates: subscribe(eventType, handler) listens on the EventBus and
+ * runs the handler on the EDT; subscriptions end when the frame is disposed.
  */
 public abstract class BaseFrame extends JFrame {
 
@@ -42,6 +57,15 @@ public abstract class BaseFrame extends JFrame {
     private static final DateTimeFormatter CLOCK_FMT =
             DateTimeFormatter.ofPattern("HH:mm:ss  dd MMM yyyy");
 
+    /** Loads faster than this never show the loading indicator, so quick panels don't flicker. */
+    private static final int LOADING_DELAY_MS = 150;
+
+    // Bumped whenever the content area is replaced; background results from an older generation are dropped
+    private int               contentGeneration;
+    private SwingWorker<?, ?> contentLoad;
+
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+
     protected BaseFrame(String pageTitle) {
         this.currentUser = AuthService.getInstance().getCurrentUser();
         setTitle("BADAS \u2014 " + pageTitle);
@@ -356,12 +380,128 @@ public abstract class BaseFrame extends JFrame {
 
     /** Replaces the content wrapper with the given panel. */
     protected void setContent(JPanel panel) {
+        beginContent();
+        showContent(panel);
+    }
+
+    /**
+     * Runs {@code query} off the EDT, then shows the panel built from its
+     * result. A loading indicator appears if the query takes noticeably
+     * long. Superseded by any later setContent/loadContent call.
+     */
+    protected <T> void loadContent(Supplier<T> query, Function<T, JPanel> build) {
+        int generation = beginContent();
+
+        Timer showLoading = new Timer(LOADING_DELAY_MS, e -> {
+            if (generation == contentGeneration) showContent(loadingPanel());
+        });
+        showLoading.setRepeats(false);
+        showLoading.start();
+
+        contentLoad = submit(query, generation, result -> {
+            showLoading.stop();
+            showContent(build.apply(result));
+        }, error -> {
+            showLoading.stop();
+            showContent(errorPanel(error));
+        });
+    }
+
+    /**
+     * Runs {@code work} (a query or a mutation) off the EDT and passes its
+     * result to {@code onDone} on the EDT — unless the user has navigated
+     * away in the meantime, in which case the result is dropped. The work
+     * itself always completes, so a mutation is never lost.
+     */
+    protected <T> void loadAsync(Supplier<T> work, Consumer<T> onDone) {
+        int generation = contentGeneration;
+        submit(work, generation, onDone, error -> JOptionPane.showMessageDialog(this,
+                error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private int beginContent() {
+        if (contentLoad != null) contentLoad.cancel(false);
+        contentLoad = null;
+        return ++contentGeneration;
+    }
+
+    private void showContent(JPanel panel) {
         contentWrapper.removeAll();
         contentWrapper.add(panel, BorderLayout.CENTER);
         contentWrapper.revalidate();
         contentWrapper.repaint();
     }
 
+    private <T> SwingWorker<T, Void> submit(Supplier<T> work, int generation,
+                                            Consumer<T> onDone, Consumer<Throwable> onError) {
+        SwingWorker<T, Void> worker = new SwingWorker<>() {
+            @Override protected T doInBackground() {
+                return work.get();
+            }
+
+            @Override protected void done() {
+                if (isCancelled() || generation != contentGeneration) return;
+                try {
+                    onDone.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    System.err.println("BaseFrame.loadAsync: " + e.getCause());
+                    onError.accept(e.getCause());
+                }
+            }
+        };
+        worker.execute();
+        return worker;
+    }
+
+    private JPanel loadingPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        JPanel inner = new JPanel(new BorderLayout(0, UIConstants.GAP_SM));
+        inner.setOpaque(false);
+        JLabel label = new JLabel("Loading\u2026", SwingConstants.CENTER);
+        label.setFont(UIConstants.FONT_BODY);
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        bar.setPreferredSize(new Dimension(200, 6));
+        inner.add(label, BorderLayout.NORTH);
+        inner.add(bar,   BorderLayout.CENTER);
+        panel.add(inner);
+        return panel;
+    }
+
+    private JPanel errorPanel(Throwable error) {
+        JPanel panel = new JPanel(new GridBagLayout());
+        JLabel label = new JLabel("Could not load this page: " + error.getMessage());
+        label.setFont(UIConstants.FONT_BODY);
+        label.setForeground(UIConstants.ACCENT_RED);
+        panel.add(label);
+        return panel;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    //  Live change events
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Calls {@code handler} on the EDT for every published event of this
+     * type until the frame is disposed. Handlers stay registered across
+     * navigation, so they should check that their panel is still showing.
+     */
+    protected <E> void subscribe(Class<E> type, Consumer<E> handler) {
+        subscriptions.add(EventBus.getInstance().subscribe(type, event ->
+            SwingUtilities.invokeLater(() -> {
+                if (isDisplayable()) handler.accept(event);
+            })));
+    }
+
+    @Override
+    public void dispose() {
+        subscriptions.forEach(EventBus.Subscription::close);
+        subscriptions.clear();
+        super.dispose();
+    }
+
     /** Builds a styled section-title label for use inside content panels. */
     protected JLabel pageTitle(String text) {
         JLabel lbl = new JLabel(text);
@@ -0,0 +1,158 @@
+package com.badas.ui.common;
+
+import com.badas.util.Timestamps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Client-side copy of a table's rows, keyed by id, that is brought up to
+ * date by asking the DAO only for rows whose updated_at has moved past the
+ * newest one already seen — so a Refresh transfers the handful of rows that
+ * changed rather than the whole table.
+ *
+ * Usage (all calls off the EDT):
+ *   cache.mark();                          // remember where "now" is ...
+ *   cache.seed(dao.findAll());             // ... then load the full list once
+ *   Delta<Hospital> d = cache.refresh();   // later: only what changed
+ *
+ * A view that pages its rows (PagedTableModel) calls mark() before loading
+ * the first page and applies refresh().changed() with upsert(); it does not
+ * need to seed.
+ *
+ * updated_at is stamped with each workstation's own clock, so a row can
+ * commit after a refresh with a timestamp at or below the newest one that
+ * refresh saw. Each refresh
+ * therefore also re-reads rows stamped within a few seconds of the previous
+ * read; older rows are known to have been committed already and are not
+ * read again. Merging is by id, so re-reading is harmless.
+ * Deletes do not show up in a delta; callers remove rows themselves (or
+ * rely on the live change feed).
+ */
+public class DeltaCache<T> {
+
+    /** Rows changed after (sinceUpdatedAt, afterId), oldest first — a DAO findChangedSince. */
+    @FunctionalInterface
+    public interface ChangeLoader<T> {
+        List<T> load(long sinceUpdatedAt, int afterId, int limit);
+    }
+
+    /**
+     * Rows that came back from one refresh. {@code truncated} means more
+     * than MAX_DELTA rows changed; the caller should mark() and reload
+     * instead of merging row by row.
+     */
+    public record Delta<T>(List<T> changed, boolean truncated) {}
+
+    private static final int  PAGE_SIZE       = 500;
+    private static final int  MAX_DELTA       = 5_000;
+    private static final long OVERLAP_MILLIS  = 5_000;
+
+    private final ChangeLoader<T>   loader;
+    private final LongSupplier      latest;
+    private final ToIntFunction<T>  idOf;
+    private final ToLongFunction<T> updatedAtOf;
+    private final Map<Integer, T>   rows = new HashMap<>();
+
+    // (updated_at, id) of the last row merged, in findChangedSince order; 0 = from the beginning
+    private long cursor    = 0;
+    private int  cursorId  = 0;
+    private long watermark = 0;     // local time of the previous read, minus the overlap
+
+    /**
+     * @param loader      the DAO's findChangedSince
+     * @param latest      the DAO's latestUpdatedAt, used by mark()
+     */
+    public DeltaCache(ChangeLoader<T> loader, LongSupplier latest,
+                      ToIntFunction<T> idOf, ToLongFunction<T> updatedAtOf) {
+        this.loader      = loader;
+        this.latest      = latest;
+        this.idOf        = idOf;
+        this.updatedAtOf = updatedAtOf;
+    }
+
+    /**
+     * Forgets all rows and starts tracking changes from the newest
+     * updated_at currently in the table. Call just before the full load.
+     */
+    public synchronized void mark() {
+        rows.clear();
+        long readAt = overlapStart();
+        cursor    = latest.getAsLong();
+        cursorId  = Integer.MAX_VALUE;
+        watermark = readAt;
+    }
+
+    /** Adds rows loaded in full (e.g. findAll) after mark(). */
+    public synchronized void seed(Collection<T> loaded) {
+        for (T row : loaded) rows.put(idOf.applyAsInt(row), row);
+    }
+
+    /** Fetches rows changed since the last mark/refresh and merges them in. Blocking. */
+    public synchronized Delta<T> refresh() {
+        long readAt  = overlapStart();
+        // Re-read from the watermark if it is older than the cursor; otherwise
+        // everything up to the cursor was committed before the previous read
+        boolean overlap = cursor >= watermark;
+        long   since   = overlap ? watermark : cursor;
+        int    afterId = overlap ? 0 : cursorId;
+        List<T> changed = new ArrayList<>();
+        boolean truncated = false;
+
+        while (true) {
+            List<T> page = loader.load(since, afterId, PAGE_SIZE);
+            for (T row : page) {
+                rows.put(idOf.applyAsInt(row), row);
+                changed.add(row);
+            }
+            if (!page.isEmpty()) {
+                T last = page.get(page.size() - 1);
+                if (updatedAtOf.applyAsLong(last) >= cursor) {
+                    cursor   = updatedAtOf.applyAsLong(last);
+                    cursorId = idOf.applyAsInt(last);
+                }
+                since   = updatedAtOf.applyAsLong(last);
+                afterId = idOf.applyAsInt(last);
+            }
+            if (page.size() < PAGE_SIZE) break;
+            if (changed.size() >= MAX_DELTA) {
+                truncated = true;
+                break;
+            }
+        }
+        watermark = readAt;
+        return new Delta<>(changed, truncated);
+    }
+
+    /** Applies a row this client wrote itself (e.g. one returned by an update). */
+    public synchronized void put(T row) {
+        rows.put(idOf.applyAsInt(row), row);
+    }
+
+    public synchronized void remove(int id) {
+        rows.remove(id);
+    }
+
+    public synchronized T get(int id) {
+        return rows.get(id);
+    }
+
+    /** Snapshot of the cached rows in the given order. */
+    public synchronized List<T> values(Comparator<? super T> order) {
+        List<T> list = new ArrayList<>(rows.values());
+        list.sort(order);
+        return list;
+    }
+
+    /** This workstation's clock minus the overlap window. */
+    private static long overlapStart() {
+        return Timestamps.now() - OVERLAP_MILLIS;
+    }
+}
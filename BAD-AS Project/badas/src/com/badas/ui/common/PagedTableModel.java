@@ -0,0 +1,261 @@
+package com.badas.ui.common;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-only table model that pulls rows from a keyset-paginated DAO query
+ * on demand. Only the first page is loaded up front; when the table asks
+ * for a row near the end of what has been fetched (i.e. the user scrolled
+ * close to the bottom), the next page is requested. Pages are fetched on a
+ * background thread and appended on the EDT, so scrolling never blocks on
+ * the database.
+ *
+ * Rows are indexed by id, so a single changed row can be swapped in with
+ * {@link #updateRow} (firing a one-row update event) instead of reloading
+ * the table — selection and scroll position are kept. With a row order
+ * set (the same order the loader pages in), {@link #upsert} also places
+ * new rows, which is how live change events are applied.
+ *
+ * Usage:
+ *   PagedTableModel<DispatchRequest> model = new PagedTableModel<>(
+ *       List.of(Column.rowNumber("#"), Column.of("Patient", DispatchRequest::getPatientName)),
+ *       (last, limit) -> last == null ? dao.findPage(null, 0, limit)
+ *                                     : dao.findPage(last.getCreatedAt(), last.getId(), limit),
+ *       DispatchRequest::getId);
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    /** How close to the end of the loaded rows a paint must get before the next page is fetched. */
+    private static final int PREFETCH_MARGIN = 40;
+
+    /** Fetches the page that follows {@code last} (null for the first page). Called off the EDT. */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(T last, int limit);
+    }
+
+    /** Computes a cell value from a row object and its position in the table. */
+    @FunctionalInterface
+    public interface CellValue<T> {
+        Object get(T row, int rowIndex);
+    }
+
+    public record Column<T>(String name, CellValue<T> value) {
+        public static <T> Column<T> of(String name, Function<T, Object> getter) {
+            return new Column<>(name, (row, idx) -> getter.apply(row));
+        }
+
+        /** 1-based running row number, as the "#" column in every dashboard table. */
+        public static <T> Column<T> rowNumber(String name) {
+            return new Column<>(name, (row, idx) -> idx + 1);
+        }
+    }
+
+    private final List<Column<T>>   columns;
+    private final PageLoader<T>     loader;
+    private final ToIntFunction<T>  idOf;
+    private final int               pageSize;
+    private final List<T>           rows = new ArrayList<>();
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+
+    private boolean hasMore = true;
+    private boolean loading;
+    private int     generation;   // bumped by reload() so pages from before it are dropped
+    private Comparator<T> order;
+
+    public PagedTableModel(List<Column<T>> columns, PageLoader<T> loader, ToIntFunction<T> idOf) {
+        this(columns, loader, idOf, DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedTableModel(List<Column<T>> columns, PageLoader<T> loader, ToIntFunction<T> idOf, int pageSize) {
+        this.columns  = List.copyOf(columns);
+        this.loader   = loader;
+        this.idOf     = idOf;
+        this.pageSize = pageSize;
+    }
+
+    // ─── AbstractTableModel ─────────────────────────────────────────────────
+
+    @Override public int getRowCount()              { return rows.size(); }
+    @Override public int getColumnCount()           { return columns.size(); }
+    @Override public String getColumnName(int col)  { return columns.get(col).name(); }
+    @Override public boolean isCellEditable(int r, int c) { return false; }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (rowIndex >= rows.size() - PREFETCH_MARGIN) requestNextPage();
+        return columns.get(columnIndex).value().get(rows.get(rowIndex), rowIndex);
+    }
+
+    // ─── Paging ─────────────────────────────────────────────────────────────
+
+    /** Row object behind a (model) row index. */
+    public T getRow(int rowIndex) {
+        return rows.get(rowIndex);
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    // ─── Row-level updates ──────────────────────────────────────────────────
+
+    /** Model index of the row with this id, or -1 if it has not been loaded. */
+    public int indexOf(int id) {
+        Integer i = indexById.get(id);
+        return i != null ? i : -1;
+    }
+
+    /**
+     * Replaces the loaded row that has the same id and repaints just that
+     * row. Returns false if the row is not loaded (nothing to update).
+     */
+    public boolean updateRow(T row) {
+        int i = indexOf(idOf.applyAsInt(row));
+        if (i < 0) return false;
+        rows.set(i, row);
+        fireTableRowsUpdated(i, i);
+        return true;
+    }
+
+    /**
+     * Sets the order rows are paged in, so {@link #upsert} can place rows.
+     * Must match the loader's ORDER BY.
+     */
+    public void setOrder(Comparator<T> order) {
+        this.order = order;
+    }
+
+    /**
+     * Updates the row if it is loaded, otherwise inserts it at its sorted
+     * position. A row that sorts after the last loaded row is left for the
+     * next page fetch to pick up (unless every page is already loaded), so
+     * the keyset cursor never skips or duplicates it. If the change moved a
+     * loaded row to a different position it is moved there.
+     * Without an order set this behaves like {@link #updateRow}.
+     */
+    public void upsert(T row) {
+        if (order == null) {
+            updateRow(row);
+            return;
+        }
+        int current = indexOf(idOf.applyAsInt(row));
+        if (current >= 0) {
+            boolean inPlace = (current == 0 || order.compare(rows.get(current - 1), row) <= 0)
+                           && (current == rows.size() - 1 || order.compare(row, rows.get(current + 1)) <= 0);
+            if (inPlace) {
+                updateRow(row);
+                return;
+            }
+            removeRow(idOf.applyAsInt(row));
+        }
+        int at = insertionPoint(row);
+        if (at >= rows.size() && hasMore) return;
+        insertAt(at, row);
+    }
+
+    /** First index whose row sorts after {@code row}. */
+    private int insertionPoint(T row) {
+        int lo = 0, hi = rows.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (order.compare(rows.get(mid), row) <= 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private void insertAt(int index, T row) {
+        rows.add(index, row);
+        for (int j = index; j < rows.size(); j++) indexById.put(idOf.applyAsInt(rows.get(j)), j);
+        fireTableRowsInserted(index, index);
+    }
+
+    /**
+     * Applies a DeltaCache refresh: upserts each changed row, or reloads if
+     * too many rows changed to merge one by one.
+     */
+    public void merge(DeltaCache.Delta<T> delta) {
+        if (delta.truncated()) {
+            reload();
+            return;
+        }
+        delta.changed().forEach(this::upsert);
+    }
+
+    /** Removes the loaded row with this id, if present. */
+    public boolean removeRow(int id) {
+        int i = indexOf(id);
+        if (i < 0) return false;
+        rows.remove(i);
+        indexById.remove(id);
+        for (int j = i; j < rows.size(); j++) indexById.put(idOf.applyAsInt(rows.get(j)), j);
+        fireTableRowsDeleted(i, i);
+        return true;
+    }
+
+    /** Drops everything fetched so far and loads the first page again. */
+    public void reload() {
+        generation++;
+        rows.clear();
+        indexById.clear();
+        hasMore = true;
+        loading = false;
+        fireTableDataChanged();
+        requestNextPage();
+    }
+
+    /** Fetches the next page in the background; at most one fetch is in flight. */
+    private void requestNextPage() {
+        if (!hasMore || loading) return;
+        loading = true;
+        int gen = generation;
+        T last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+
+        new SwingWorker<List<T>, Void>() {
+            @Override protected List<T> doInBackground() {
+                return loader.load(last, pageSize);
+            }
+
+            @Override protected void done() {
+                if (gen != generation) return;
+                loading = false;
+                try {
+                    appendPage(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    hasMore = false;
+                    System.err.println("PagedTableModel.requestNextPage: " + e.getCause());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Appends a fetched page, skipping rows whose id is already loaded. A
+     * loader that assembles a page from more than one source (the dispatch
+     * queue and the history query) can briefly return the same row twice.
+     */
+    private void appendPage(List<T> page) {
+        hasMore = page.size() == pageSize;
+        int first = rows.size();
+        for (T row : page) {
+            int id = idOf.applyAsInt(row);
+            if (indexById.containsKey(id)) continue;
+            indexById.put(id, rows.size());
+            rows.add(row);
+        }
+        if (rows.size() > first) fireTableRowsInserted(first, rows.size() - 1);
+    }
+}
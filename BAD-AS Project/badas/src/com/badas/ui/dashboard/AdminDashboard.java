@@ -2,7 +2,11 @@ package com.badas.ui.dashboard;
 
 import com.badas.dao.HospitalDAO;
 import com.badas.model.Hospital;
+import com.badas.service.Geocoder;
+import com.badas.service.RetriageJob;
+import com.badas.service.SymptomDictionaryService;
 import com.badas.ui.common.BaseFrame;
+import com.badas.ui.common.DeltaCache;
 import com.badas.ui.common.UIConstants;
 
 import javax.swing.*;
@@ -12,7 +16,9 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.*;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class AdminDashboard extends BaseFrame {
 
@@ -20,12 +26,28 @@ public class AdminDashboard extends BaseFrame {
     private static final String NAV_STATS     = "Statistics";
 
     private final HospitalDAO hospitalDAO = new HospitalDAO();
+    private final Geocoder    geocoder    = Geocoder.getInstance();
+
+    /** Hospital rows kept between refreshes; Refresh pulls only the rows changed since. */
+    private final DeltaCache<Hospital> hospitalCache = new DeltaCache<>(
+        hospitalDAO::findChangedSince, hospitalDAO::latestUpdatedAt,
+        Hospital::getId, Hospital::getUpdatedAt);
+
+    /** Same order as HospitalDAO.findAll. */
+    private static final Comparator<Hospital> BY_NAME =
+        Comparator.comparing(Hospital::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
 
     // Hospital table state
     private DefaultTableModel hospitalModel;
     private JTable            hospitalTable;
     private List<Hospital>    hospitals;
 
+    // Re-triage job state (survives navigating away from the stats panel)
+    private RetriageJob   retriageJob;
+    private JButton       retriageBtn;
+    private JProgressBar  retriageBar;
+    private JLabel        retriageStatus;
+
     public AdminDashboard() {
         super("Admin Dashboard");
     }
@@ -39,8 +61,8 @@ public class AdminDashboard extends BaseFrame {
     @Override
     protected void showPanel(String navItem) {
         switch (navItem) {
-            case NAV_HOSPITALS -> setContent(buildHospitalPanel());
-            case NAV_STATS     -> setContent(buildStatsPanel());
+            case NAV_HOSPITALS -> loadContent(this::loadAllHospitals, this::buildHospitalPanel);
+            case NAV_STATS     -> loadContent(hospitalDAO::findAll, this::buildStatsPanel);
         }
     }
 
@@ -48,7 +70,7 @@ public class AdminDashboard extends BaseFrame {
     //  Hospital management panel
     // ─────────────────────────────────────────────────────────────────────────
 
-    private JPanel buildHospitalPanel() {
+    private JPanel buildHospitalPanel(List<Hospital> initial) {
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         // Title row
@@ -69,7 +91,7 @@ public class AdminDashboard extends BaseFrame {
         hospitalTable.getColumnModel().getColumn(0).setPreferredWidth(40);
         hospitalTable.getColumnModel().getColumn(1).setPreferredWidth(280);
         hospitalTable.getColumnModel().getColumn(2).setPreferredWidth(160);
-        loadHospitals();
+        showHospitals(initial);
 
         JScrollPane scroll = new JScrollPane(hospitalTable);
         scroll.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
@@ -137,10 +159,15 @@ public class AdminDashboard extends BaseFrame {
                 JOptionPane.showMessageDialog(this, "Ambulance count must be a non-negative integer.", "Validation", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            hospitalDAO.save(new Hospital(name, loc, amb));
-            nameF.setText(""); locF.setText(""); ambF.setText("");
-            refreshHospitalTable();
-            JOptionPane.showMessageDialog(this, "Hospital added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            loadAsync(() -> {
+                Hospital h = new Hospital(name, loc, amb);
+                h.setPosition(geocoder.locate(loc));
+                return hospitalDAO.save(h);
+            }, id -> {
+                nameF.setText(""); locF.setText(""); ambF.setText("");
+                refreshHospitalTable();
+                JOptionPane.showMessageDialog(this, "Hospital added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
         });
         btns.add(addBtn);
 
@@ -160,9 +187,11 @@ public class AdminDashboard extends BaseFrame {
             int confirm = JOptionPane.showConfirmDialog(this,
                 "Delete \"" + h.getName() + "\"?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                hospitalDAO.delete(h.getId());
-                refreshHospitalTable();
-                JOptionPane.showMessageDialog(this, "Hospital deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAsync(() -> hospitalDAO.delete(h.getId()), ok -> {
+                    if (ok) hospitalCache.remove(h.getId());
+                    refreshHospitalTable();
+                    JOptionPane.showMessageDialog(this, "Hospital deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             }
         });
         btns.add(delBtn);
@@ -193,21 +222,44 @@ public class AdminDashboard extends BaseFrame {
         int result = JOptionPane.showConfirmDialog(this, form, "Edit Hospital", JOptionPane.OK_CANCEL_OPTION);
         if (result == JOptionPane.OK_OPTION) {
             try {
+                String oldLocation = h.getLocation();
+                int countRead     = h.getAmbulanceCount();
+                int availableRead = h.getAvailableAmbulances();
                 h.setName(nameF.getText().trim());
                 h.setLocation(locF.getText().trim());
                 h.setAmbulanceCount(Integer.parseInt(ambF.getText().trim()));
                 h.setAvailableAmbulances(Integer.parseInt(avaF.getText().trim()));
-                hospitalDAO.update(h);
-                refreshHospitalTable();
-                JOptionPane.showMessageDialog(this, "Hospital updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                boolean moved = !h.getLocation().equalsIgnoreCase(oldLocation);
+                loadAsync(() -> {
+                    // A new location gets a new position (or none, if it cannot be placed)
+                    if (moved) h.setPosition(geocoder.locate(h.getLocation()));
+                    return hospitalDAO.update(h, countRead, availableRead);
+                }, ok -> {
+                    refreshHospitalTable();
+                    JOptionPane.showMessageDialog(this, "Hospital updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Ambulance counts must be integers.", "Error", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
 
-    private void loadHospitals() {
-        hospitals = hospitalDAO.findAll();
+    /** Full load: resets the cache's cursor, then reads every hospital. Off the EDT. */
+    private List<Hospital> loadAllHospitals() {
+        hospitalCache.mark();
+        List<Hospital> all = hospitalDAO.findAll();
+        hospitalCache.seed(all);
+        return all;
+    }
+
+    /** Merges the hospitals changed since the last load/refresh. Off the EDT. */
+    private List<Hospital> refreshHospitals() {
+        if (hospitalCache.refresh().truncated()) return loadAllHospitals();
+        return hospitalCache.values(BY_NAME);
+    }
+
+    private void showHospitals(List<Hospital> list) {
+        hospitals = list;
         hospitalModel.setRowCount(0);
         int i = 1;
         for (Hospital h : hospitals) {
@@ -217,31 +269,103 @@ public class AdminDashboard extends BaseFrame {
         }
     }
 
-    private void refreshHospitalTable() { loadHospitals(); }
+    private void refreshHospitalTable() {
+        loadAsync(this::refreshHospitals, this::showHospitals);
+    }
 
     // ─────────────────────────────────────────────────────────────────────────
     //  Stats panel
     // ─────────────────────────────────────────────────────────────────────────
 
-    private JPanel buildStatsPanel() {
+    private JPanel buildStatsPanel(List<Hospital> hs) {
         JPanel root = new JPanel(new BorderLayout());
         root.add(pageTitle("System Statistics"), BorderLayout.NORTH);
 
         JPanel cards = new JPanel(new GridLayout(2, 3, UIConstants.GAP_LG, UIConstants.GAP_LG));
         cards.setBorder(new EmptyBorder(UIConstants.GAP_LG, 0, 0, 0));
 
-        List<Hospital> hs = hospitalDAO.findAll();
         int totalAmbulances = hs.stream().mapToInt(Hospital::getAmbulanceCount).sum();
         int available       = hs.stream().mapToInt(Hospital::getAvailableAmbulances).sum();
 
         cards.add(statCard("Total Hospitals",    String.valueOf(hs.size()),           UIConstants.PRIMARY));
         cards.add(statCard("Total Ambulances",   String.valueOf(totalAmbulances),     UIConstants.SUCCESS));
         cards.add(statCard("Available Ambulances", String.valueOf(available),         UIConstants.SECONDARY));
+        cards.add(statCard("Deployed Ambulances", String.valueOf(totalAmbulances - available), UIConstants.WARNING));
 
         root.add(cards, BorderLayout.CENTER);
+        root.add(buildRetriagePanel(), BorderLayout.SOUTH);
         return root;
     }
 
+    /** Re-scores stored dispatches and patients after the symptom dictionary has changed. */
+    private JPanel buildRetriagePanel() {
+        JPanel panel = new JPanel(new BorderLayout(UIConstants.GAP_MD, UIConstants.GAP_SM));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            new EmptyBorder(UIConstants.GAP_LG, 0, 0, 0),
+            BorderFactory.createTitledBorder("Re-triage Records")));
+
+        String version = SymptomDictionaryService.getInstance().current().getVersion();
+        retriageStatus = new JLabel(retriageJob == null
+            ? "Symptom dictionary version " + version + ". Re-score all dispatches and patients with it."
+            : "Re-triage in progress…");
+        panel.add(retriageStatus, BorderLayout.NORTH);
+
+        retriageBar = new JProgressBar(0, 1000);
+        retriageBar.setStringPainted(true);
+        retriageBar.setString("");
+        panel.add(retriageBar, BorderLayout.CENTER);
+
+        retriageBtn = primaryButton(retriageJob == null ? "Run Re-triage" : "Cancel");
+        retriageBtn.addActionListener(e -> {
+            if (retriageJob == null) startRetriage();
+            else {
+                retriageJob.cancel();
+                retriageBtn.setEnabled(false);
+                retriageStatus.setText("Cancelling after the current batch…");
+            }
+        });
+        panel.add(retriageBtn, BorderLayout.EAST);
+        return panel;
+    }
+
+    private void startRetriage() {
+        RetriageJob job = new RetriageJob(p -> SwingUtilities.invokeLater(() -> {
+            retriageBar.setValue((int) (p.processed() * 1000 / Math.max(1, p.total())));
+            retriageBar.setString(p.target().table() + "  " + p.processed() + " / " + p.total());
+            retriageStatus.setText(String.format("%,d changed · %,.0f rows/s", p.changed(), p.rowsPerSecond()));
+        }));
+        retriageJob = job;
+        retriageBtn.setText("Cancel");
+        retriageStatus.setText("Re-triage in progress…");
+
+        new SwingWorker<RetriageJob.Result, Void>() {
+            @Override protected RetriageJob.Result doInBackground() throws Exception {
+                return job.run();
+            }
+
+            @Override protected void done() {
+                retriageJob = null;
+                retriageBtn.setText("Run Re-triage");
+                retriageBtn.setEnabled(true);
+                try {
+                    RetriageJob.Result result = get();
+                    long rows = 0, changed = 0, millis = 0;
+                    for (RetriageJob.TableResult t : result.tables()) {
+                        rows += t.processed(); changed += t.changed(); millis += t.elapsedMillis();
+                    }
+                    if (!result.cancelled()) retriageBar.setValue(retriageBar.getMaximum());
+                    retriageStatus.setText(String.format("%s (dictionary %s): %,d rows scored, %,d changed in %.1f s",
+                        result.cancelled() ? "Cancelled — will resume from checkpoint" : "Done",
+                        result.dictionaryVersion(), rows, changed, millis / 1000.0));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    retriageStatus.setText("Re-triage failed: " + ex.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+
     private JPanel statCard(String label, String value, Color color) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(color);
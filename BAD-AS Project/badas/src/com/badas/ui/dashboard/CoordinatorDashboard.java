@@ -1,15 +1,23 @@
 package com.badas.ui.dashboard;
 
 import com.badas.dao.EmergencyDAO;
+import com.badas.event.CaseChanged;
+import com.badas.event.ChangeOp;
+import com.badas.event.FeedResync;
 import com.badas.model.EmergencyCase;
+import com.badas.model.EmergencyLevel;
 import com.badas.ui.common.BaseFrame;
+import com.badas.ui.common.DeltaCache;
+import com.badas.ui.common.PagedTableModel;
+import com.badas.ui.common.PagedTableModel.Column;
 import com.badas.ui.common.UIConstants;
+import com.badas.util.Timestamps;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.Comparator;
 import java.util.List;
 
 public class CoordinatorDashboard extends BaseFrame {
@@ -18,12 +26,28 @@ public class CoordinatorDashboard extends BaseFrame {
     private static final String NAV_ADD     = "Add New Case";
 
     private final EmergencyDAO emergencyDAO = new EmergencyDAO();
-
-    private DefaultTableModel tableModel;
-    private JTable            caseTable;
-    private List<EmergencyCase> cases;
-
-    public CoordinatorDashboard() { super("Emergency Coordinator Dashboard"); }
+    private final DeltaCache<EmergencyCase> caseDeltas = new DeltaCache<>(
+        emergencyDAO::findChangedSince, emergencyDAO::latestUpdatedAt,
+        EmergencyCase::getId, EmergencyCase::getUpdatedAt);
+
+    private PagedTableModel<EmergencyCase> tableModel;
+    private JTable                         caseTable;
+
+    /** Same order as EmergencyDAO.findPage: newest first. */
+    private static final Comparator<EmergencyCase> NEWEST_FIRST =
+        Comparator.comparingLong(EmergencyCase::getCreatedAt)
+                  .thenComparingInt(EmergencyCase::getId)
+                  .reversed();
+
+    public CoordinatorDashboard() {
+        super("Emergency Coordinator Dashboard");
+        subscribe(CaseChanged.class, e -> {
+            if (tableModel == null) return;
+            if (e.op() == ChangeOp.DELETE) tableModel.removeRow(e.id());
+            else tableModel.upsert(e.row());
+        });
+        subscribe(FeedResync.class, e -> { if (tableModel != null) tableModel.reload(); });
+    }
 
     @Override protected String[] getSidebarItems() {
         return new String[]{ NAV_CASES, NAV_ADD };
@@ -43,22 +67,33 @@ public class CoordinatorDashboard extends BaseFrame {
     // ─────────────────────────────────────────────────────────────────────────
 
     private JPanel buildCasesPanel() {
-        cases = emergencyDAO.findAll();
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         // Title + refresh
         JPanel titleRow = new JPanel(new BorderLayout());
         titleRow.add(pageTitle("Active Emergency Cases"), BorderLayout.WEST);
         JButton refreshBtn = primaryButton("Refresh");
-        refreshBtn.addActionListener(e -> setContent(buildCasesPanel()));
+        refreshBtn.addActionListener(e -> loadAsync(caseDeltas::refresh, tableModel::merge));
         titleRow.add(refreshBtn, BorderLayout.EAST);
         root.add(titleRow, BorderLayout.NORTH);
 
-        // Table
-        String[] cols = {"#", "Patient Name", "Location", "Symptoms", "Level", "Status", "Resources", "Time"};
-        tableModel = new DefaultTableModel(cols, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        // Table — rows are fetched page by page as the user scrolls
+        tableModel = new PagedTableModel<>(List.of(
+            Column.rowNumber("#"),
+            Column.of("Patient Name", EmergencyCase::getPatientName),
+            Column.of("Location",     EmergencyCase::getLocation),
+            Column.of("Symptoms",     EmergencyCase::getSymptoms),
+            Column.of("Level",        EmergencyCase::getEmergencyLevel),
+            Column.of("Status",       EmergencyCase::getStatus),
+            Column.of("Resources",    EmergencyCase::getAssignedResources),
+            Column.of("Time",         ec -> Timestamps.format(ec.getCreatedAt()))
+        ), (last, limit) -> {
+                if (last != null) return emergencyDAO.findPage(last.getCreatedAt(), last.getId(), limit);
+                caseDeltas.mark();   // Refresh fetches only what changes after this point
+                return emergencyDAO.findPage(null, 0, limit);
+            },
+            EmergencyCase::getId);
+        tableModel.setOrder(NEWEST_FIRST);
         caseTable = new JTable(tableModel);
         styleTable(caseTable);
         caseTable.getColumnModel().getColumn(0).setPreferredWidth(40);
@@ -80,7 +115,7 @@ public class CoordinatorDashboard extends BaseFrame {
             }
         });
 
-        loadTable();
+        tableModel.reload();
         JScrollPane scroll = new JScrollPane(caseTable);
         scroll.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
         root.add(scroll, BorderLayout.CENTER);
@@ -90,20 +125,6 @@ public class CoordinatorDashboard extends BaseFrame {
         return root;
     }
 
-    private void loadTable() {
-        tableModel.setRowCount(0);
-        int i = 1;
-        for (EmergencyCase ec : cases) {
-            String time = ec.getCreatedAt() != null
-                    ? ec.getCreatedAt().substring(0, Math.min(16, ec.getCreatedAt().length()))
-                    : "";
-            tableModel.addRow(new Object[]{
-                i++, ec.getPatientName(), ec.getLocation(), ec.getSymptoms(),
-                ec.getEmergencyLevel(), ec.getStatus(), ec.getAssignedResources(), time
-            });
-        }
-    }
-
     private JPanel buildActionBar() {
         JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, UIConstants.GAP_MD, UIConstants.GAP_SM));
         bar.setBorder(new EmptyBorder(UIConstants.GAP_SM, 0, 0, 0));
@@ -116,9 +137,11 @@ public class CoordinatorDashboard extends BaseFrame {
                 "Enter resources to assign (e.g., 'Ambulance A, Paramedic Team 2'):",
                 "Assign Resources", JOptionPane.QUESTION_MESSAGE);
             if (input != null && !input.trim().isEmpty()) {
-                emergencyDAO.assignResources(cases.get(row).getId(), input.trim());
-                setContent(buildCasesPanel());
-                JOptionPane.showMessageDialog(this, "Resources assigned.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                int id = tableModel.getRow(row).getId();
+                loadAsync(() -> emergencyDAO.assignResources(id, input.trim()), updated -> {
+                    if (!applyUpdate(updated)) return;
+                    JOptionPane.showMessageDialog(this, "Resources assigned.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             }
         });
         bar.add(assignBtn);
@@ -127,14 +150,15 @@ public class CoordinatorDashboard extends BaseFrame {
         closeBtn.addActionListener(e -> {
             int row = caseTable.getSelectedRow();
             if (row < 0) { JOptionPane.showMessageDialog(this, "Select a case first.", "Info", JOptionPane.INFORMATION_MESSAGE); return; }
-            EmergencyCase ec = cases.get(row);
+            EmergencyCase ec = tableModel.getRow(row);
             int confirm = JOptionPane.showConfirmDialog(this,
                 "Close emergency case for \"" + ec.getPatientName() + "\"?",
                 "Confirm Close", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                emergencyDAO.updateStatus(ec.getId(), "Closed");
-                setContent(buildCasesPanel());
-                JOptionPane.showMessageDialog(this, "Case closed.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAsync(() -> emergencyDAO.updateStatus(ec.getId(), "Closed"), updated -> {
+                    if (!applyUpdate(updated)) return;
+                    JOptionPane.showMessageDialog(this, "Case closed.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             }
         });
         bar.add(closeBtn);
@@ -143,14 +167,24 @@ public class CoordinatorDashboard extends BaseFrame {
         reopenBtn.addActionListener(e -> {
             int row = caseTable.getSelectedRow();
             if (row < 0) { JOptionPane.showMessageDialog(this, "Select a case first.", "Info", JOptionPane.INFORMATION_MESSAGE); return; }
-            emergencyDAO.updateStatus(cases.get(row).getId(), "Active");
-            setContent(buildCasesPanel());
+            int id = tableModel.getRow(row).getId();
+            loadAsync(() -> emergencyDAO.updateStatus(id, "Active"), this::applyUpdate);
         });
         bar.add(reopenBtn);
 
         return bar;
     }
 
+    /** Swaps the updated case into its table row; reports a failed write. */
+    private boolean applyUpdate(EmergencyCase updated) {
+        if (updated == null) {
+            JOptionPane.showMessageDialog(this, "Could not update the case.", "Error", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        tableModel.updateRow(updated);
+        return true;
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     //  Add new case panel
     // ─────────────────────────────────────────────────────────────────────────
@@ -173,8 +207,7 @@ public class CoordinatorDashboard extends BaseFrame {
         symptomsA.setFont(UIConstants.FONT_BODY);
         symptomsA.setLineWrap(true);
         symptomsA.setWrapStyleWord(true);
-        String[] levels = {"Critical", "Severe", "Moderate", "Minor"};
-        JComboBox<String> levelBox = new JComboBox<>(levels);
+        JComboBox<EmergencyLevel> levelBox = new JComboBox<>(EmergencyLevel.values());
         levelBox.setFont(UIConstants.FONT_BODY);
 
         addRow(form, gbc, 0, "Patient Name *", nameF);
@@ -197,11 +230,12 @@ public class CoordinatorDashboard extends BaseFrame {
             }
             String coordinator = currentUser != null ? currentUser.getUsername() : "coordinator";
             EmergencyCase ec = new EmergencyCase(name, loc, symptomsA.getText().trim(),
-                    (String) levelBox.getSelectedItem(), coordinator);
-            emergencyDAO.save(ec);
-            nameF.setText(""); locationF.setText(""); symptomsA.setText("");
-            JOptionPane.showMessageDialog(this, "Emergency case created.", "Success", JOptionPane.INFORMATION_MESSAGE);
-            showPanel(NAV_CASES);
+                    (EmergencyLevel) levelBox.getSelectedItem(), coordinator);
+            loadAsync(() -> emergencyDAO.save(ec), id -> {
+                nameF.setText(""); locationF.setText(""); symptomsA.setText("");
+                JOptionPane.showMessageDialog(this, "Emergency case created.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                showPanel(NAV_CASES);
+            });
         });
         btns.add(saveBtn);
         root.add(btns, BorderLayout.SOUTH);
@@ -2,11 +2,16 @@ package com.badas.ui.dashboard;
 
 import com.badas.dao.PatientDAO;
 import com.badas.model.Patient;
+import com.badas.model.PatientSearchHit;
 import com.badas.ui.common.BaseFrame;
+import com.badas.ui.common.PagedTableModel;
+import com.badas.ui.common.PagedTableModel.Column;
 import com.badas.ui.common.UIConstants;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
@@ -16,11 +21,13 @@ public class DoctorDashboard extends BaseFrame {
     private static final String NAV_RECORDS = "Patient Records";
     private static final String NAV_SEARCH  = "Search Patient";
 
+    private static final int SEARCH_DEBOUNCE_MS = 150;
+
     private final PatientDAO patientDAO = new PatientDAO();
 
-    private DefaultTableModel tableModel;
-    private JTable            patientTable;
-    private List<Patient>     patients;
+    private PagedTableModel<Patient> tableModel;
+    private JTable                   patientTable;
+    private int                      searchSeq;   // latest search issued; older results are dropped
 
     public DoctorDashboard() { super("Doctor Dashboard"); }
 
@@ -32,36 +39,43 @@ public class DoctorDashboard extends BaseFrame {
     @Override
     protected void showPanel(String navItem) {
         switch (navItem) {
-            case NAV_RECORDS -> setContent(buildRecordsPanel(patientDAO.findAll()));
+            case NAV_RECORDS -> setContent(buildRecordsPanel());
             case NAV_SEARCH  -> setContent(buildSearchPanel());
         }
     }
 
     // ─────────────────────────────────────────────────────────────────────────
 
-    private JPanel buildRecordsPanel(List<Patient> data) {
-        this.patients = data;
+    private JPanel buildRecordsPanel() {
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         // Title + refresh
         JPanel titleRow = new JPanel(new BorderLayout());
         titleRow.add(pageTitle("Patient Records"), BorderLayout.WEST);
         JButton refreshBtn = primaryButton("Refresh");
-        refreshBtn.addActionListener(e -> setContent(buildRecordsPanel(patientDAO.findAll())));
+        refreshBtn.addActionListener(e -> tableModel.reload());
         titleRow.add(refreshBtn, BorderLayout.EAST);
         root.add(titleRow, BorderLayout.NORTH);
 
-        // Table
-        String[] cols = {"#", "Name", "Age", "Symptoms", "Diagnosis", "Prescription", "Status"};
-        tableModel = new DefaultTableModel(cols, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        // Table — rows are fetched page by page as the user scrolls
+        tableModel = new PagedTableModel<>(List.of(
+            Column.rowNumber("#"),
+            Column.of("Name",         Patient::getName),
+            Column.of("Age",          Patient::getAge),
+            Column.of("Symptoms",     Patient::getSymptoms),
+            Column.of("Diagnosis",    Patient::getDiagnosis),
+            Column.of("Prescription", Patient::getPrescription),
+            Column.of("Status",       Patient::getStatus)
+        ), (last, limit) -> last == null
+                ? patientDAO.findPage(null, 0, limit)
+                : patientDAO.findPage(last.getName(), last.getId(), limit),
+            Patient::getId);
         patientTable = new JTable(tableModel);
         styleTable(patientTable);
         patientTable.getColumnModel().getColumn(0).setPreferredWidth(40);
         patientTable.getColumnModel().getColumn(1).setPreferredWidth(140);
         patientTable.getColumnModel().getColumn(3).setPreferredWidth(200);
-        populateTable(this.patients);
+        tableModel.reload();
 
         JScrollPane scroll = new JScrollPane(patientTable);
         scroll.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
@@ -72,17 +86,6 @@ public class DoctorDashboard extends BaseFrame {
         return root;
     }
 
-    private void populateTable(List<Patient> list) {
-        tableModel.setRowCount(0);
-        int i = 1;
-        for (Patient p : list) {
-            tableModel.addRow(new Object[]{
-                i++, p.getName(), p.getAge(), p.getSymptoms(),
-                p.getDiagnosis(), p.getPrescription(), p.getStatus()
-            });
-        }
-    }
-
     private JPanel buildUpdateForm() {
         JPanel wrapper = new JPanel(new BorderLayout(UIConstants.GAP_MD, 0));
         wrapper.setBorder(new EmptyBorder(UIConstants.GAP_MD, 0, 0, 0));
@@ -96,6 +99,22 @@ public class DoctorDashboard extends BaseFrame {
         fields.add(prescF);
         wrapper.add(fields, BorderLayout.CENTER);
 
+        // List rows only carry text previews — load the full record for the selected patient
+        patientTable.getSelectionModel().addListSelectionListener(e -> {
+            if (e.getValueIsAdjusting()) return;
+            diagF.setText(""); prescF.setText("");
+            int row = patientTable.getSelectedRow();
+            if (row < 0) return;
+            Patient selected = tableModel.getRow(row);
+            loadAsync(() -> selected.isSummary() ? patientDAO.findById(selected.getId()) : selected, full -> {
+                int now = patientTable.getSelectedRow();
+                if (full == null || now < 0 || tableModel.getRow(now).getId() != full.getId()) return;
+                if (full != selected) tableModel.updateRow(full);
+                diagF.setText(full.getDiagnosis());
+                prescF.setText(full.getPrescription());
+            });
+        });
+
         JButton updateBtn = primaryButton("Update Record");
         updateBtn.addActionListener(e -> {
             int row = patientTable.getSelectedRow();
@@ -103,11 +122,16 @@ public class DoctorDashboard extends BaseFrame {
             String diag  = diagF.getText().trim();
             String presc = prescF.getText().trim();
             if (diag.isEmpty()) { JOptionPane.showMessageDialog(this, "Diagnosis cannot be empty.", "Validation", JOptionPane.WARNING_MESSAGE); return; }
-            Patient p = patients.get(row);
-            patientDAO.updateDiagnosis(p.getId(), diag, presc);
-            diagF.setText(""); prescF.setText("");
-            setContent(buildRecordsPanel(patientDAO.findAll()));
-            JOptionPane.showMessageDialog(this, "Record updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            Patient p = tableModel.getRow(row);
+            loadAsync(() -> patientDAO.updateDiagnosis(p.getId(), diag, presc), updated -> {
+                if (updated == null) {
+                    JOptionPane.showMessageDialog(this, "Could not update the record.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                diagF.setText(""); prescF.setText("");
+                tableModel.updateRow(updated);
+                JOptionPane.showMessageDialog(this, "Record updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
         });
 
         JPanel btns = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -134,37 +158,64 @@ public class DoctorDashboard extends BaseFrame {
 
         JPanel resultsPanel = new JPanel(new BorderLayout());
         // Build an empty table initially
-        String[] cols = {"#", "Name", "Age", "Symptoms", "Diagnosis", "Prescription", "Status"};
+        String[] cols = {"#", "Name", "Age", "Symptoms", "Diagnosis", "Status", "Match"};
         DefaultTableModel model = new DefaultTableModel(cols, 0) {
             @Override public boolean isCellEditable(int r, int c) { return false; }
         };
         JTable t = new JTable(model);
         styleTable(t);
+        t.getColumnModel().getColumn(0).setPreferredWidth(40);
+        t.getColumnModel().getColumn(6).setPreferredWidth(260);
         JScrollPane scroll = new JScrollPane(t);
         scroll.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
         resultsPanel.add(scroll, BorderLayout.CENTER);
         root.add(resultsPanel, BorderLayout.CENTER);
 
+        // Search as the user types, once they pause briefly
+        Timer debounce = new Timer(SEARCH_DEBOUNCE_MS, e -> runSearch(queryF.getText().trim(), model, false));
+        debounce.setRepeats(false);
+        queryF.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e)  { debounce.restart(); }
+            @Override public void removeUpdate(DocumentEvent e)  { debounce.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { debounce.restart(); }
+        });
+
         searchBtn.addActionListener(e -> {
-            String q = queryF.getText().trim();
-            if (q.isEmpty()) return;
-            List<Patient> results = patientDAO.search(q);
-            model.setRowCount(0);
-            int i = 1;
-            for (Patient p : results) {
-                model.addRow(new Object[]{
-                    i++, p.getName(), p.getAge(), p.getSymptoms(),
-                    p.getDiagnosis(), p.getPrescription(), p.getStatus()
-                });
-            }
-            if (results.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No matching records found.", "Search", JOptionPane.INFORMATION_MESSAGE);
-            }
+            debounce.stop();
+            runSearch(queryF.getText().trim(), model, true);
         });
 
-        clearBtn.addActionListener(e -> { queryF.setText(""); model.setRowCount(0); });
+        clearBtn.addActionListener(e -> { queryF.setText(""); debounce.stop(); searchSeq++; model.setRowCount(0); });
         queryF.addActionListener(e -> searchBtn.doClick());
 
         return root;
     }
+
+    /**
+     * Runs the query in the background. Results are applied only if no newer
+     * search has been started meanwhile, so a slow query can never overwrite
+     * the results for what the user has typed since.
+     */
+    private void runSearch(String q, DefaultTableModel model, boolean reportEmpty) {
+        int seq = ++searchSeq;
+        if (q.isEmpty()) { model.setRowCount(0); return; }
+        loadAsync(() -> patientDAO.searchRanked(q, PatientDAO.DEFAULT_SEARCH_LIMIT), results -> {
+            if (seq == searchSeq) showSearchResults(results, model, reportEmpty);
+        });
+    }
+
+    private void showSearchResults(List<PatientSearchHit> results, DefaultTableModel model, boolean reportEmpty) {
+        model.setRowCount(0);
+        int i = 1;
+        for (PatientSearchHit hit : results) {
+            Patient p = hit.getPatient();
+            model.addRow(new Object[]{
+                i++, p.getName(), p.getAge(), p.getSymptoms(),
+                p.getDiagnosis(), p.getStatus(), hit.getSnippetHtml()
+            });
+        }
+        if (results.isEmpty() && reportEmpty) {
+            JOptionPane.showMessageDialog(this, "No matching records found.", "Search", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
 }
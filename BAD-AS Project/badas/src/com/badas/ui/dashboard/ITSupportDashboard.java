@@ -4,6 +4,7 @@ import com.badas.dao.UserDAO;
 import com.badas.model.User;
 import com.badas.ui.common.BaseFrame;
 import com.badas.ui.common.UIConstants;
+import com.badas.util.Timestamps;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -36,7 +37,7 @@ public class ITSupportDashboard extends BaseFrame {
     @Override
     protected void showPanel(String navItem) {
         switch (navItem) {
-            case NAV_ACCOUNTS -> setContent(buildAccountsPanel());
+            case NAV_ACCOUNTS -> loadContent(userDAO::findAll, this::buildAccountsPanel);
             case NAV_ADD      -> setContent(buildAddUserPanel());
         }
     }
@@ -45,14 +46,14 @@ public class ITSupportDashboard extends BaseFrame {
     //  User accounts panel
     // ─────────────────────────────────────────────────────────────────────────
 
-    private JPanel buildAccountsPanel() {
-        users = userDAO.findAll();
+    private JPanel buildAccountsPanel(List<User> initial) {
+        users = initial;
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         JPanel titleRow = new JPanel(new BorderLayout());
         titleRow.add(pageTitle("User Account Management"), BorderLayout.WEST);
         JButton refreshBtn = primaryButton("Refresh");
-        refreshBtn.addActionListener(e -> setContent(buildAccountsPanel()));
+        refreshBtn.addActionListener(e -> showPanel(NAV_ACCOUNTS));
         titleRow.add(refreshBtn, BorderLayout.EAST);
         root.add(titleRow, BorderLayout.NORTH);
 
@@ -94,8 +95,8 @@ public class ITSupportDashboard extends BaseFrame {
         for (User u : users) {
             tableModel.addRow(new Object[]{
                 i++, u.getUsername(), u.getRole(),
-                u.getCreatedAt() != null ? u.getCreatedAt().substring(0, Math.min(10, u.getCreatedAt().length())) : "",
-                u.getLastLogin() != null ? u.getLastLogin().substring(0, Math.min(16, u.getLastLogin().length())) : "Never"
+                Timestamps.formatDate(u.getCreatedAt()),
+                u.getLastLogin() != null ? Timestamps.format(u.getLastLogin()) : "Never"
             });
         }
     }
@@ -115,9 +116,10 @@ public class ITSupportDashboard extends BaseFrame {
                 "Select new role for \"" + u.getUsername() + "\":",
                 "Edit Role", JOptionPane.QUESTION_MESSAGE, null, roles, u.getRole());
             if (newRole != null && !newRole.equals(u.getRole())) {
-                userDAO.update(u.getId(), u.getUsername(), generateTempPassword(), newRole);
-                setContent(buildAccountsPanel());
-                JOptionPane.showMessageDialog(this, "Role updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAsync(() -> userDAO.update(u.getId(), u.getUsername(), generateTempPassword(), newRole), ok -> {
+                    showPanel(NAV_ACCOUNTS);
+                    JOptionPane.showMessageDialog(this, "Role updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             }
         });
         bar.add(editBtn);
@@ -146,8 +148,8 @@ public class ITSupportDashboard extends BaseFrame {
                     JOptionPane.showMessageDialog(this, "Password too short (min 2 characters).", "Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                userDAO.resetPassword(u.getId(), pw1);
-                JOptionPane.showMessageDialog(this, "Password reset successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAsync(() -> userDAO.resetPassword(u.getId(), pw1), ok ->
+                    JOptionPane.showMessageDialog(this, "Password reset successfully.", "Success", JOptionPane.INFORMATION_MESSAGE));
             }
         });
         bar.add(resetPwdBtn);
@@ -165,9 +167,10 @@ public class ITSupportDashboard extends BaseFrame {
                 "Delete user \"" + u.getUsername() + "\"? This cannot be undone.",
                 "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
             if (confirm == JOptionPane.YES_OPTION) {
-                userDAO.delete(u.getId());
-                setContent(buildAccountsPanel());
-                JOptionPane.showMessageDialog(this, "User deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAsync(() -> userDAO.delete(u.getId()), ok -> {
+                    showPanel(NAV_ACCOUNTS);
+                    JOptionPane.showMessageDialog(this, "User deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             }
         });
         bar.add(deleteBtn);
@@ -229,14 +232,15 @@ public class ITSupportDashboard extends BaseFrame {
                 JOptionPane.showMessageDialog(this, "Password must be at least 2 characters.", "Validation", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            boolean success = userDAO.save(uname, pw1, role);
-            if (success) {
-                usernameF.setText(""); passwordF.setText(""); confirmF.setText("");
-                JOptionPane.showMessageDialog(this, "User \"" + uname + "\" created successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                showPanel(NAV_ACCOUNTS);
-            } else {
-                JOptionPane.showMessageDialog(this, "Username already exists or save failed.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            loadAsync(() -> userDAO.save(uname, pw1, role), success -> {
+                if (success) {
+                    usernameF.setText(""); passwordF.setText(""); confirmF.setText("");
+                    JOptionPane.showMessageDialog(this, "User \"" + uname + "\" created successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    showPanel(NAV_ACCOUNTS);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Username already exists or save failed.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
         });
         btns.add(saveBtn);
         root.add(btns, BorderLayout.SOUTH);
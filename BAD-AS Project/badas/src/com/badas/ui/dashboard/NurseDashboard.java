@@ -1,14 +1,20 @@
 package com.badas.ui.dashboard;
 
 import com.badas.dao.PatientDAO;
+import com.badas.event.ChangeOp;
+import com.badas.event.FeedResync;
+import com.badas.event.PatientChanged;
 import com.badas.model.Patient;
 import com.badas.ui.common.BaseFrame;
+import com.badas.ui.common.DeltaCache;
+import com.badas.ui.common.PagedTableModel;
+import com.badas.ui.common.PagedTableModel.Column;
 import com.badas.ui.common.UIConstants;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.Comparator;
 import java.util.List;
 
 public class NurseDashboard extends BaseFrame {
@@ -16,12 +22,27 @@ public class NurseDashboard extends BaseFrame {
     private static final String NAV_STATUS = "Patient Status";
 
     private final PatientDAO patientDAO = new PatientDAO();
-
-    private DefaultTableModel tableModel;
-    private JTable            patientTable;
-    private List<Patient>     patients;
-
-    public NurseDashboard() { super("Nurse Dashboard"); }
+    private final DeltaCache<Patient> patientDeltas = new DeltaCache<>(
+        patientDAO::findChangedSince, patientDAO::latestUpdatedAt,
+        Patient::getId, Patient::getUpdatedAt);
+
+    private PagedTableModel<Patient> tableModel;
+    private JTable                   patientTable;
+
+    /** Same order as PatientDAO.findPage: by name. */
+    private static final Comparator<Patient> BY_NAME =
+        Comparator.comparing(Patient::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                  .thenComparingInt(Patient::getId);
+
+    public NurseDashboard() {
+        super("Nurse Dashboard");
+        subscribe(PatientChanged.class, e -> {
+            if (tableModel == null) return;
+            if (e.op() == ChangeOp.DELETE) tableModel.removeRow(e.id());
+            else tableModel.upsert(e.row());
+        });
+        subscribe(FeedResync.class, e -> { if (tableModel != null) tableModel.reload(); });
+    }
 
     @Override protected String[] getSidebarItems() {
         return new String[]{ NAV_STATUS };
@@ -36,28 +57,38 @@ public class NurseDashboard extends BaseFrame {
     // ─────────────────────────────────────────────────────────────────────────
 
     private JPanel buildStatusPanel() {
-        patients = patientDAO.findAll();
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         // Title + refresh
         JPanel titleRow = new JPanel(new BorderLayout());
         titleRow.add(pageTitle("Patient Status Management"), BorderLayout.WEST);
         JButton refreshBtn = primaryButton("Refresh");
-        refreshBtn.addActionListener(e -> setContent(buildStatusPanel()));
+        refreshBtn.addActionListener(e -> loadAsync(patientDeltas::refresh, tableModel::merge));
         titleRow.add(refreshBtn, BorderLayout.EAST);
         root.add(titleRow, BorderLayout.NORTH);
 
-        // Table
-        String[] cols = {"#", "Name", "Age", "Symptoms", "Diagnosis", "Prescription", "Status"};
-        tableModel = new DefaultTableModel(cols, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        // Table — rows are fetched page by page as the user scrolls
+        tableModel = new PagedTableModel<>(List.of(
+            Column.rowNumber("#"),
+            Column.of("Name",         Patient::getName),
+            Column.of("Age",          Patient::getAge),
+            Column.of("Symptoms",     Patient::getSymptoms),
+            Column.of("Diagnosis",    Patient::getDiagnosis),
+            Column.of("Prescription", Patient::getPrescription),
+            Column.of("Status",       Patient::getStatus)
+        ), (last, limit) -> {
+                if (last != null) return patientDAO.findPage(last.getName(), last.getId(), limit);
+                patientDeltas.mark();   // Refresh fetches only what changes after this point
+                return patientDAO.findPage(null, 0, limit);
+            },
+            Patient::getId);
+        tableModel.setOrder(BY_NAME);
         patientTable = new JTable(tableModel);
         styleTable(patientTable);
         patientTable.getColumnModel().getColumn(0).setPreferredWidth(40);
         patientTable.getColumnModel().getColumn(1).setPreferredWidth(140);
         patientTable.getColumnModel().getColumn(3).setPreferredWidth(200);
-        loadTable();
+        tableModel.reload();
 
         JScrollPane scroll = new JScrollPane(patientTable);
         scroll.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
@@ -68,17 +99,6 @@ public class NurseDashboard extends BaseFrame {
         return root;
     }
 
-    private void loadTable() {
-        tableModel.setRowCount(0);
-        int i = 1;
-        for (Patient p : patients) {
-            tableModel.addRow(new Object[]{
-                i++, p.getName(), p.getAge(), p.getSymptoms(),
-                p.getDiagnosis(), p.getPrescription(), p.getStatus()
-            });
-        }
-    }
-
     private JPanel buildUpdateBar() {
         JPanel wrapper = new JPanel(new BorderLayout(UIConstants.GAP_MD, 0));
         wrapper.setBorder(new EmptyBorder(UIConstants.GAP_MD, 0, 0, 0));
@@ -109,11 +129,16 @@ public class NurseDashboard extends BaseFrame {
             String newStatus = customStatus.getText().trim().isEmpty()
                     ? (String) statusBox.getSelectedItem()
                     : customStatus.getText().trim();
-            Patient p = patients.get(row);
-            patientDAO.updateStatus(p.getId(), newStatus);
-            customStatus.setText("");
-            setContent(buildStatusPanel());
-            JOptionPane.showMessageDialog(this, "Status updated to: " + newStatus, "Success", JOptionPane.INFORMATION_MESSAGE);
+            Patient p = tableModel.getRow(row);
+            loadAsync(() -> patientDAO.updateStatus(p.getId(), newStatus), updated -> {
+                if (updated == null) {
+                    JOptionPane.showMessageDialog(this, "Could not update the patient status.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                customStatus.setText("");
+                tableModel.updateRow(updated);
+                JOptionPane.showMessageDialog(this, "Status updated to: " + newStatus, "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
         });
 
         JPanel btns = new JPanel(new FlowLayout(FlowLayout.RIGHT));
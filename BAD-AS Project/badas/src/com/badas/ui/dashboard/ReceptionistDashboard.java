@@ -3,8 +3,10 @@ package com.badas.ui.dashboard;
 import com.badas.dao.PatientDAO;
 import com.badas.model.Patient;
 import com.badas.service.AuthService;
+import com.badas.service.SymptomAnalyzer;
 import com.badas.ui.common.BaseFrame;
 import com.badas.ui.common.UIConstants;
+import com.badas.util.Timestamps;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -18,6 +20,7 @@ public class ReceptionistDashboard extends BaseFrame {
     private static final String NAV_LIST     = "Patient List";
 
     private final PatientDAO patientDAO = new PatientDAO();
+    private final SymptomAnalyzer analyzer = new SymptomAnalyzer();
 
     private DefaultTableModel tableModel;
     private JTable            patientTable;
@@ -34,7 +37,7 @@ public class ReceptionistDashboard extends BaseFrame {
     protected void showPanel(String navItem) {
         switch (navItem) {
             case NAV_REGISTER -> setContent(buildRegisterPanel());
-            case NAV_LIST     -> setContent(buildListPanel());
+            case NAV_LIST     -> loadContent(patientDAO::findAllSummaries, this::buildListPanel);
         }
     }
 
@@ -94,13 +97,15 @@ public class ReceptionistDashboard extends BaseFrame {
             Patient p = new Patient(name, age, contact, symp);
             String registeredBy = currentUser != null ? currentUser.getUsername() : "receptionist";
             p.setRegisteredBy(registeredBy);
-            int id = patientDAO.save(p);
-            if (id > 0) {
-                nameF.setText(""); ageF.setText(""); contactF.setText(""); symptomsA.setText("");
-                JOptionPane.showMessageDialog(this, "Patient registered (ID: " + id + ").", "Success", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to register patient. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            p.setTriageSeverity(analyzer.analyze(symp));
+            loadAsync(() -> patientDAO.save(p), id -> {
+                if (id > 0) {
+                    nameF.setText(""); ageF.setText(""); contactF.setText(""); symptomsA.setText("");
+                    JOptionPane.showMessageDialog(this, "Patient registered (ID: " + id + ").", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to register patient. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
         });
         btns.add(saveBtn);
 
@@ -134,15 +139,15 @@ public class ReceptionistDashboard extends BaseFrame {
     //  Patient list panel
     // ─────────────────────────────────────────────────────────────────────────
 
-    private JPanel buildListPanel() {
-        patients = patientDAO.findAll();
+    private JPanel buildListPanel(List<Patient> initial) {
+        patients = initial;
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         // Title + refresh
         JPanel titleRow = new JPanel(new BorderLayout());
         titleRow.add(pageTitle("Registered Patients"), BorderLayout.WEST);
         JButton refreshBtn = primaryButton("Refresh");
-        refreshBtn.addActionListener(e -> setContent(buildListPanel()));
+        refreshBtn.addActionListener(e -> showPanel(NAV_LIST));
         titleRow.add(refreshBtn, BorderLayout.EAST);
         root.add(titleRow, BorderLayout.NORTH);
 
@@ -161,7 +166,7 @@ public class ReceptionistDashboard extends BaseFrame {
             tableModel.addRow(new Object[]{
                 i++, p.getName(), p.getAge(), p.getContact(),
                 p.getSymptoms(), p.getStatus(),
-                p.getRegisteredAt() != null ? p.getRegisteredAt().substring(0, 10) : ""
+                Timestamps.formatDate(p.getRegisteredAt())
             });
         }
 
@@ -179,9 +184,10 @@ public class ReceptionistDashboard extends BaseFrame {
             int confirm = JOptionPane.showConfirmDialog(this,
                 "Delete patient \"" + p.getName() + "\"?", "Confirm", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                patientDAO.delete(p.getId());
-                setContent(buildListPanel());
-                JOptionPane.showMessageDialog(this, "Patient record deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAsync(() -> patientDAO.delete(p.getId()), ok -> {
+                    showPanel(NAV_LIST);
+                    JOptionPane.showMessageDialog(this, "Patient record deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                });
             }
         });
         btns.add(deleteBtn);
@@ -1,34 +1,58 @@
 package com.badas.ui.dispatcher;
 
+import com.badas.dao.AmbulanceLedger;
 import com.badas.dao.DispatchDAO;
+import com.badas.dao.HospitalDAO;
+import com.badas.event.ChangeOp;
+import com.badas.event.DispatchChanged;
+import com.badas.event.FeedResync;
+import com.badas.model.AmbulanceType;
 import com.badas.model.DispatchRequest;
+import com.badas.model.DispatchStatus;
+import com.badas.model.GeoPoint;
+import com.badas.model.Hospital;
+import com.badas.model.Severity;
+import com.badas.service.DispatchScheduler;
+import com.badas.service.Geocoder;
+import com.badas.service.HospitalAssignmentEngine;
 import com.badas.service.ReportService;
 import com.badas.service.SymptomAnalyzer;
-import com.badas.service.SymptomAnalyzer.Severity;
 import com.badas.ui.common.BaseFrame;
+import com.badas.ui.common.DeltaCache;
+import com.badas.ui.common.PagedTableModel;
+import com.badas.ui.common.PagedTableModel.Column;
 import com.badas.ui.common.UIConstants;
+import com.badas.util.Timestamps;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Dispatcher dashboard with two modes:
  *
  *  1. "Active Dispatches" — table view of all dispatch_requests with
- *     Dispatch / Cancel / Delete actions.
+ *     Dispatch / Complete / Cancel / Delete actions. Pending calls come
+ *     first, most urgent first (DispatchScheduler), then the rest newest
+ *     first.
  *
  *  2. "New Emergency"     — 3-step wizard:
  *       Step 1: Patient Intake  (name, age, contact, location)
  *       Step 2: Symptom Analysis (description + analyse)
- *       Step 3: Recommendation  (result + confirm dispatch)
+ *       Step 3: Recommendation  (result + suggested hospital + confirm)
  *
- * After a dispatch is confirmed, a report is saved and the user is
- * returned to the Active Dispatches view.
+ * Confirming takes one of the chosen hospital's ambulances (see
+ * AmbulanceLedger); if another dispatcher took the last one first, the
+ * dispatch is not saved and the wizard stays on step 3. After a dispatch
+ * is confirmed, a report is saved and the user is
+ * returned to the Active Dispatches view. The table is kept current by
+ * DispatchChanged events, so dispatches entered on other workstations
+ * appear without a refresh.
  */
 public class DispatcherDashboard extends BaseFrame {
 
@@ -36,22 +60,52 @@ public class DispatcherDashboard extends BaseFrame {
     private static final String NAV_NEW        = "New Emergency";
 
     private final DispatchDAO    dispatchDAO = new DispatchDAO();
+    private final HospitalDAO    hospitalDAO = new HospitalDAO();
+    private final AmbulanceLedger ledger     = AmbulanceLedger.getInstance();
+    private final HospitalAssignmentEngine assigner = HospitalAssignmentEngine.getInstance();
+    private final Geocoder       geocoder    = Geocoder.getInstance();
+    private final DispatchScheduler scheduler = DispatchScheduler.getInstance();
     private final SymptomAnalyzer analyzer   = new SymptomAnalyzer();
     private final ReportService  reporter    = new ReportService();
+    private final DeltaCache<DispatchRequest> dispatchDeltas = new DeltaCache<>(
+        dispatchDAO::findChangedSince, dispatchDAO::latestUpdatedAt,
+        DispatchRequest::getId, DispatchRequest::getUpdatedAt);
 
     // Wizard state — carried across panels
-    private String   wizName, wizContact, wizLocation;
-    private int      wizAge;
-    private String   wizSymptoms;
-    private Severity wizSeverity;
-    private String   wizAmbulanceType;
+    private String        wizName, wizContact, wizLocation;
+    private int           wizAge;
+    private String        wizSymptoms;
+    private Severity      wizSeverity;
+    private AmbulanceType wizAmbulanceType;
+    private Hospital      wizHospital;
+    private JComboBox<Hospital> hospitalBox;
 
     // Dispatch table state
-    private DefaultTableModel dispatchModel;
-    private JTable            dispatchTable;
-    private List<DispatchRequest> dispatches;
-
-    public DispatcherDashboard() { super("Dispatcher Dashboard"); }
+    private PagedTableModel<DispatchRequest> dispatchModel;
+    private JTable                           dispatchTable;
+
+    /** Same order as DispatchDAO.findHistoryPage: newest first. */
+    private static final Comparator<DispatchRequest> NEWEST_FIRST =
+        Comparator.comparingLong(DispatchRequest::getCreatedAt)
+                  .thenComparingInt(DispatchRequest::getId)
+                  .reversed();
+
+    /** Table order: the pending queue, most urgent first, then every other dispatch newest first. */
+    private static final Comparator<DispatchRequest> QUEUE_THEN_NEWEST = (a, b) -> {
+        boolean pa = a.getStatus() == DispatchStatus.PENDING, pb = b.getStatus() == DispatchStatus.PENDING;
+        if (pa != pb) return pa ? -1 : 1;
+        return pa ? DispatchScheduler.MOST_URGENT_FIRST.compare(a, b) : NEWEST_FIRST.compare(a, b);
+    };
+
+    public DispatcherDashboard() {
+        super("Dispatcher Dashboard");
+        subscribe(DispatchChanged.class, e -> {
+            if (dispatchModel == null) return;
+            if (e.op() == ChangeOp.DELETE) dispatchModel.removeRow(e.id());
+            else dispatchModel.upsert(e.row());
+        });
+        subscribe(FeedResync.class, e -> { if (dispatchModel != null) dispatchModel.reload(); });
+    }
 
     @Override protected String[] getSidebarItems() {
         return new String[]{ NAV_DISPATCHES, NAV_NEW };
@@ -71,7 +125,6 @@ public class DispatcherDashboard extends BaseFrame {
     // ─────────────────────────────────────────────────────────────────────────
 
     private JPanel buildDispatchesPanel() {
-        dispatches = dispatchDAO.findAll();
         JPanel root = new JPanel(new BorderLayout(0, UIConstants.GAP_MD));
 
         JPanel titleRow = new JPanel(new BorderLayout());
@@ -81,18 +134,25 @@ public class DispatcherDashboard extends BaseFrame {
         JButton newBtn = dangerButton("+ New Emergency");
         newBtn.addActionListener(e -> showPanel(NAV_NEW));
         JButton refreshBtn = primaryButton("Refresh");
-        refreshBtn.addActionListener(e -> setContent(buildDispatchesPanel()));
+        refreshBtn.addActionListener(e -> loadAsync(dispatchDeltas::refresh, dispatchModel::merge));
         buttons.add(newBtn);
         buttons.add(refreshBtn);
         titleRow.add(buttons, BorderLayout.EAST);
         root.add(titleRow, BorderLayout.NORTH);
 
-        // Table
-        String[] cols = {"#", "Patient Name", "Location", "Symptoms", "Severity",
-                         "Ambulance Type", "Status", "Dispatched By", "Time"};
-        dispatchModel = new DefaultTableModel(cols, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        // Table — rows are fetched page by page as the user scrolls
+        dispatchModel = new PagedTableModel<>(List.of(
+            Column.rowNumber("#"),
+            Column.of("Patient Name",   DispatchRequest::getPatientName),
+            Column.of("Location",       DispatchRequest::getLocation),
+            Column.of("Symptoms",       DispatchRequest::getSymptoms),
+            Column.of("Severity",       DispatchRequest::getSeverity),
+            Column.of("Ambulance Type", DispatchRequest::getAmbulanceType),
+            Column.of("Status",         DispatchRequest::getStatus),
+            Column.of("Dispatched By",  DispatchRequest::getDispatchedBy),
+            Column.of("Time",           dr -> Timestamps.format(dr.getCreatedAt()))
+        ), this::loadDispatchPage, DispatchRequest::getId);
+        dispatchModel.setOrder(QUEUE_THEN_NEWEST);
         dispatchTable = new JTable(dispatchModel);
         styleTable(dispatchTable);
         dispatchTable.getColumnModel().getColumn(0).setPreferredWidth(40);
@@ -107,18 +167,17 @@ public class DispatcherDashboard extends BaseFrame {
                 super.getTableCellRendererComponent(t, val, sel, foc, row, col);
                 if (!sel && val != null) {
                     setBackground(row % 2 == 0 ? Color.WHITE : UIConstants.TABLE_ROW_ALT);
-                    setForeground(switch (val.toString()) {
-                        case "Dispatched" -> UIConstants.SUCCESS;
-                        case "Cancelled"  -> UIConstants.ACCENT_RED;
-                        default           -> UIConstants.WARNING;
-                    });
+                    setForeground(val == DispatchStatus.DISPATCHED ? UIConstants.SUCCESS
+                                : val == DispatchStatus.COMPLETED ? UIConstants.PRIMARY
+                                : val == DispatchStatus.CANCELLED ? UIConstants.ACCENT_RED
+                                : UIConstants.WARNING);
                     setFont(UIConstants.FONT_BODY_BOLD);
                 }
                 return this;
             }
         });
 
-        loadDispatchTable();
+        dispatchModel.reload();
         JScrollPane scroll = new JScrollPane(dispatchTable);
         scroll.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
         root.add(scroll, BorderLayout.CENTER);
@@ -126,19 +185,24 @@ public class DispatcherDashboard extends BaseFrame {
         return root;
     }
 
-    private void loadDispatchTable() {
-        dispatchModel.setRowCount(0);
-        int i = 1;
-        for (DispatchRequest dr : dispatches) {
-            String time = dr.getCreatedAt() != null
-                    ? dr.getCreatedAt().substring(0, Math.min(16, dr.getCreatedAt().length()))
-                    : "";
-            dispatchModel.addRow(new Object[]{
-                i++, dr.getPatientName(), dr.getLocation(), dr.getSymptoms(),
-                dr.getSeverity(), dr.getAmbulanceType(), dr.getStatus(),
-                dr.getDispatchedBy(), time
-            });
+    /**
+     * Page loader for the dispatch table: the scheduler's pending queue
+     * (already in memory), continuing into the non-pending history from the
+     * database once the queue is exhausted.
+     */
+    private List<DispatchRequest> loadDispatchPage(DispatchRequest last, int limit) {
+        if (last == null) dispatchDeltas.mark();   // Refresh fetches only what changes after this point
+        if (last != null && last.getStatus() != DispatchStatus.PENDING) {
+            return dispatchDAO.findHistoryPage(last.getCreatedAt(), last.getId(), limit);
         }
+        List<DispatchRequest> page = new ArrayList<>(limit);
+        for (DispatchRequest req : scheduler.pending()) {
+            if (last != null && DispatchScheduler.MOST_URGENT_FIRST.compare(req, last) <= 0) continue;
+            page.add(req);
+            if (page.size() == limit) return page;
+        }
+        page.addAll(dispatchDAO.findHistoryPage(null, 0, limit - page.size()));
+        return page;
     }
 
     private JPanel buildDispatchActionBar() {
@@ -146,11 +210,15 @@ public class DispatcherDashboard extends BaseFrame {
         bar.setBorder(new EmptyBorder(UIConstants.GAP_SM, 0, 0, 0));
 
         JButton dispatchBtn = successButton("Mark Dispatched");
-        dispatchBtn.addActionListener(e -> updateSelectedStatus("Dispatched"));
+        dispatchBtn.addActionListener(e -> updateSelectedStatus(DispatchStatus.DISPATCHED));
         bar.add(dispatchBtn);
 
+        JButton completeBtn = primaryButton("Mark Completed");
+        completeBtn.addActionListener(e -> updateSelectedStatus(DispatchStatus.COMPLETED));
+        bar.add(completeBtn);
+
         JButton cancelBtn = dangerButton("Mark Cancelled");
-        cancelBtn.addActionListener(e -> updateSelectedStatus("Cancelled"));
+        cancelBtn.addActionListener(e -> updateSelectedStatus(DispatchStatus.CANCELLED));
         bar.add(cancelBtn);
 
         JButton deleteBtn = new JButton("Delete Record");
@@ -161,8 +229,8 @@ public class DispatcherDashboard extends BaseFrame {
             int confirm = JOptionPane.showConfirmDialog(this,
                 "Delete this dispatch record?", "Confirm", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                dispatchDAO.delete(dispatches.get(row).getId());
-                setContent(buildDispatchesPanel());
+                int id = dispatchModel.getRow(row).getId();
+                loadAsync(() -> dispatchDAO.delete(id), ok -> { if (ok) dispatchModel.removeRow(id); });
             }
         });
         bar.add(deleteBtn);
@@ -170,12 +238,26 @@ public class DispatcherDashboard extends BaseFrame {
         return bar;
     }
 
-    private void updateSelectedStatus(String status) {
+    private void updateSelectedStatus(DispatchStatus status) {
         int row = dispatchTable.getSelectedRow();
         if (row < 0) { showInfo("Select a dispatch record first."); return; }
-        dispatchDAO.updateStatus(dispatches.get(row).getId(), status);
-        setContent(buildDispatchesPanel());
-        JOptionPane.showMessageDialog(this, "Status updated to: " + status, "Done", JOptionPane.INFORMATION_MESSAGE);
+        DispatchRequest selected = dispatchModel.getRow(row);
+        int id = selected.getId();
+        loadAsync(() -> dispatchDAO.updateStatus(id, status), updated -> {
+            if (updated == null) {
+                // Re-opening a closed dispatch needs a free ambulance at its hospital again
+                Integer hospitalId = selected.getHospitalId();
+                boolean noUnit = hospitalId != null && AmbulanceLedger.holdsUnit(status)
+                              && !AmbulanceLedger.holdsUnit(selected.getStatus()) && ledger.available(hospitalId) <= 0;
+                JOptionPane.showMessageDialog(this,
+                    noUnit ? "No ambulance is available at " + selected.getHospitalAssigned() + "."
+                           : "Could not update the dispatch record.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            dispatchModel.upsert(updated);
+            JOptionPane.showMessageDialog(this, "Status updated to: " + status, "Done", JOptionPane.INFORMATION_MESSAGE);
+        });
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -338,7 +420,7 @@ public class DispatcherDashboard extends BaseFrame {
             }
             Severity sev = analyzer.analyze(symp);
             String label = analyzer.severityLabel(sev);
-            String ambulance = analyzer.recommendAmbulance(sev, wizAge);
+            AmbulanceType ambulance = analyzer.recommendAmbulance(sev, wizAge);
             Color sColor = UIConstants.severityColor(label);
 
             resultLabel.setText("<html>"
@@ -415,7 +497,17 @@ public class DispatcherDashboard extends BaseFrame {
         sevVal.setForeground(severityColor);
         summary.add(sevKey); summary.add(sevVal);
 
-        addSummaryRow(summary, "Ambulance Recommended", wizAmbulanceType != null ? wizAmbulanceType : "—");
+        addSummaryRow(summary, "Ambulance Recommended", wizAmbulanceType != null ? wizAmbulanceType.label() : "—");
+
+        JLabel hospKey = new JLabel("Destination Hospital");
+        hospKey.setFont(UIConstants.FONT_BODY_BOLD);
+        summary.add(hospKey);
+        summary.add(buildHospitalPicker());
+
+        JLabel coverKey = new JLabel("Free Ambulances Within " + COVERAGE_KM + " km");
+        coverKey.setFont(UIConstants.FONT_BODY_BOLD);
+        summary.add(coverKey);
+        summary.add(buildCoverageLabel());
 
         card.add(summary, BorderLayout.CENTER);
 
@@ -446,32 +538,151 @@ public class DispatcherDashboard extends BaseFrame {
         return root;
     }
 
+    /** Radius of the step 3 coverage count. */
+    private static final int COVERAGE_KM = 15;
+
+    /** Free units near the pickup, or a note when the location cannot be placed. */
+    private JLabel buildCoverageLabel() {
+        String location = wizLocation;
+        JLabel label = new JLabel("\u2026");
+        label.setFont(UIConstants.FONT_BODY);
+        loadAsync(() -> {
+            GeoPoint at = geocoder.locate(location);
+            return at == null ? -1 : assigner.freeUnitsWithin(at, COVERAGE_KM);
+        }, free -> {
+            if (free < 0) {
+                label.setText("Location not recognised");
+                label.setForeground(new Color(120, 120, 120));
+            } else {
+                label.setText(String.valueOf(free));
+                if (free == 0) label.setForeground(UIConstants.ACCENT_RED);
+            }
+        });
+        return label;
+    }
+
+    /** Hospitals for the step 3 picker and the engine's suggestion, if any. */
+    private record HospitalChoices(List<Hospital> hospitals, HospitalAssignmentEngine.Candidate suggested) {}
+
+    /**
+     * Hospital chooser for step 3, labelled with each hospital's free
+     * ambulances as the ledger last saw them. The HospitalAssignmentEngine's
+     * suggestion is marked and preselected unless the dispatcher has already
+     * picked one; "Assign automatically" asks the engine again on confirm.
+     */
+    private JComboBox<Hospital> buildHospitalPicker() {
+        String location = wizLocation;
+        Severity severity = wizSeverity;
+        int[] suggested = { -1 };
+        String[] eta = { "" };
+        hospitalBox = new JComboBox<>();
+        hospitalBox.setFont(UIConstants.FONT_BODY);
+        hospitalBox.setRenderer(new DefaultListCellRenderer() {
+            @Override public Component getListCellRendererComponent(JList<?> list, Object val,
+                    int index, boolean sel, boolean foc) {
+                super.getListCellRendererComponent(list, val, index, sel, foc);
+                if (val instanceof Hospital h) {
+                    int free = ledger.available(h.getId());
+                    boolean best = h.getId() == suggested[0];
+                    setText((best ? "\u2605 " : "")
+                            + h.getName() + " \u2014 " + h.getLocation() + "  (" + free + " available"
+                            + (best ? eta[0] : "") + ")");
+                    if (!sel && free <= 0) setForeground(UIConstants.ACCENT_RED);
+                } else {
+                    setText("\u2014 Assign automatically \u2014");
+                }
+                return this;
+            }
+        });
+        hospitalBox.addItem(null);
+        hospitalBox.addActionListener(e -> wizHospital = (Hospital) hospitalBox.getSelectedItem());
+        JComboBox<Hospital> box = hospitalBox;
+        loadAsync(() -> {
+            return new HospitalChoices(hospitalDAO.findAll(), assigner.suggest(location, severity));
+        }, choices -> {
+            HospitalAssignmentEngine.Candidate best = choices.suggested();
+            if (best != null) {
+                suggested[0] = best.hospital().getId();
+                eta[0] = etaText(best);
+            }
+            int keep = wizHospital != null ? wizHospital.getId() : suggested[0];
+            for (Hospital h : choices.hospitals()) {
+                box.addItem(h);
+                if (h.getId() == keep) box.setSelectedItem(h);
+            }
+        });
+        return hospitalBox;
+    }
+
+    /** ", ~12 min drive" (or "est." without a road route) for a candidate ranked by travel time. */
+    private static String etaText(HospitalAssignmentEngine.Candidate c) {
+        if (!c.hasDistance()) return "";
+        return String.format(", ~%d min %s", Math.round(c.travelTime().minutes()),
+                             c.travelTime().routed() ? "drive" : "est.");
+    }
+
     // ─── Confirm and save ────────────────────────────────────────────────────
 
+    /** Saved dispatch id, its hospital and report file, produced off the EDT by confirmDispatch(). */
+    private record Confirmation(int id, Hospital hospital, String reportPath) {}
+
     private void confirmDispatch() {
         String dispatchedBy = currentUser != null ? currentUser.getUsername() : "dispatcher";
-        String severityStr  = wizSeverity != null ? analyzer.severityLabel(wizSeverity) : "Undetermined";
+        Severity severity   = wizSeverity != null ? wizSeverity : Severity.UNKNOWN;
 
-        DispatchRequest req = new DispatchRequest(
-            wizName, wizLocation, wizSymptoms,
-            wizAmbulanceType, severityStr, dispatchedBy
-        );
-        int id = dispatchDAO.save(req);
+        // Snapshot the wizard state — the save and report run in the background
+        String name = wizName, contact = wizContact, location = wizLocation;
+        String symptoms = wizSymptoms;
+        AmbulanceType ambulanceType = wizAmbulanceType;
+        Hospital chosen = wizHospital;
+        int    age = wizAge;
 
-        // Generate report file
-        String reportPath = reporter.generateDispatchReport(
-            wizName, wizAge, wizContact, wizLocation,
-            wizSymptoms, severityStr, wizAmbulanceType, dispatchedBy
+        DispatchRequest req = new DispatchRequest(
+            name, location, symptoms,
+            ambulanceType, severity, dispatchedBy
         );
+        loadAsync(() -> {
+            Hospital hospital = chosen;
+            if (hospital == null) {
+                HospitalAssignmentEngine.Candidate best = assigner.suggest(location, severity);
+                if (best != null) hospital = best.hospital();
+            }
+            if (hospital != null) {
+                req.setHospitalId(hospital.getId());
+                req.setHospitalAssigned(hospital.getName());
+            }
+            req.setPosition(geocoder.locate(location));
+            int id = dispatchDAO.save(req);
+            if (id < 0) return new Confirmation(id, hospital, null);
+            // Generate report file
+            String reportPath = reporter.generateDispatchReport(
+                name, age, contact, location,
+                symptoms, severity.label(), ambulanceType != null ? ambulanceType.label() : "—", dispatchedBy
+            );
+            return new Confirmation(id, hospital, reportPath);
+        }, done -> {
+            Hospital hospital = done.hospital();
+            if (done.id() < 0) {
+                boolean noUnit = hospital != null && ledger.available(hospital.getId()) <= 0;
+                JOptionPane.showMessageDialog(this,
+                    noUnit ? "No ambulance is available at " + hospital.getName() + " any more.\n"
+                             + "Choose another hospital and confirm again."
+                           : "Could not save the dispatch request.",
+                    "Dispatch Not Saved", JOptionPane.ERROR_MESSAGE);
+                if (hospitalBox != null) hospitalBox.repaint();
+                return;
+            }
+            String msg = "Dispatch confirmed and saved (ID: " + done.id() + ").";
+            msg += hospital != null ? "\nDestination: " + hospital.getName() + " (" + hospital.getLocation() + ")"
+                                    : "\nNo hospital has a free ambulance; the dispatch is unassigned.";
+            if (done.reportPath() != null) {
+                msg += "\n\nReport saved to:\n" + done.reportPath();
+            }
+            JOptionPane.showMessageDialog(this, msg, "Dispatch Confirmed", JOptionPane.INFORMATION_MESSAGE);
 
-        String msg = "Dispatch confirmed and saved (ID: " + id + ").";
-        if (reportPath != null) {
-            msg += "\n\nReport saved to:\n" + reportPath;
-        }
-        JOptionPane.showMessageDialog(this, msg, "Dispatch Confirmed", JOptionPane.INFORMATION_MESSAGE);
-
-        resetWizard();
-        showPanel(NAV_DISPATCHES);
+            resetWizard();
+            showPanel(NAV_DISPATCHES);
+        });
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -482,6 +693,7 @@ public class DispatcherDashboard extends BaseFrame {
         wizName = null; wizContact = null; wizLocation = null;
         wizAge  = 0;    wizSymptoms = null;
         wizSeverity = null; wizAmbulanceType = null;
+        wizHospital = null;
     }
 
     private JPanel buildStepCard(String title, String subtitle) {
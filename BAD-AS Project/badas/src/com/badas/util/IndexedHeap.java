@@ -0,0 +1,154 @@
+package com.badas.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary min-heap of values addressed by an int id (a row id), ordered by a
+ * long key and then by id.
+ *
+ * The heap keeps each id's slot in a side index, so besides add and poll
+ * it can re-key or remove any entry by id in O(log n) — a plain
+ * PriorityQueue needs a linear search for that. {@link #put} inserts a new
+ * id or moves an existing one to its new key.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public final class IndexedHeap<T> {
+
+    private long[]   keys   = new long[16];
+    private int[]    ids    = new int[16];
+    private Object[] values = new Object[16];
+    private int      size;
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+
+    public int size()              { return size; }
+    public boolean isEmpty()       { return size == 0; }
+    public boolean contains(int id) { return slotOf.containsKey(id); }
+
+    /** The value stored under {@code id}, or null. */
+    public T get(int id) {
+        Integer slot = slotOf.get(id);
+        return slot == null ? null : value(slot);
+    }
+
+    /** Inserts {@code id}, or replaces its value and key and restores heap order. O(log n). */
+    public void put(int id, long key, T value) {
+        Integer slot = slotOf.get(id);
+        if (slot == null) {
+            grow();
+            keys[size] = key;
+            ids[size] = id;
+            values[size] = value;
+            slotOf.put(id, size);
+            siftUp(size++);
+            return;
+        }
+        long old = keys[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if (key < old) siftUp(slot);
+        else siftDown(slot);
+    }
+
+    /** Removes {@code id}; returns its value, or null if it was not present. O(log n). */
+    public T remove(int id) {
+        Integer slot = slotOf.get(id);
+        return slot == null ? null : removeAt(slot);
+    }
+
+    /** Value with the smallest key, or null if empty. */
+    public T peek() {
+        return size == 0 ? null : value(0);
+    }
+
+    public T poll() {
+        return size == 0 ? null : removeAt(0);
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        slotOf.clear();
+    }
+
+    /** Every value in key order, without disturbing the heap. O(n log n). */
+    public List<T> sorted() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> less(a, b) ? -1 : less(b, a) ? 1 : 0);
+        List<T> list = new ArrayList<>(size);
+        for (int slot : order) list.add(value(slot));
+        return list;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private T removeAt(int slot) {
+        T removed = value(slot);
+        slotOf.remove(ids[slot]);
+        int last = --size;
+        if (slot != last) {
+            move(last, slot);
+            siftDown(slot);
+            siftUp(slot);
+        }
+        values[last] = null;
+        return removed;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!less(slot, parent)) break;
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) break;
+            if (child + 1 < size && less(child + 1, child)) child++;
+            if (!less(child, slot)) break;
+            swap(slot, child);
+            slot = child;
+        }
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && ids[a] < ids[b]);
+    }
+
+    private void swap(int a, int b) {
+        long k = keys[a]; keys[a] = keys[b]; keys[b] = k;
+        int  i = ids[a];  ids[a]  = ids[b];  ids[b]  = i;
+        Object v = values[a]; values[a] = values[b]; values[b] = v;
+        slotOf.put(ids[a], a);
+        slotOf.put(ids[b], b);
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        ids[to] = ids[from];
+        values[to] = values[from];
+        slotOf.put(ids[to], to);
+    }
+
+    private void grow() {
+        if (size < keys.length) return;
+        int capacity = keys.length * 2;
+        keys   = Arrays.copyOf(keys, capacity);
+        ids    = Arrays.copyOf(ids, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int slot) {
+        return (T) values[slot];
+    }
+}
@@ -0,0 +1,247 @@
+package com.badas.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Aho-Corasick automaton for case-insensitive multi-keyword search.
+ *
+ * All keywords are found in a single left-to-right pass over the text,
+ * regardless of how many keywords there are. Matching is plain substring
+ * matching (like String.contains), with characters folded to lower case one
+ * at a time so the input is never copied.
+ *
+ * Each keyword carries an integer tag chosen by the caller (e.g. a severity
+ * ordinal). Lower tags are treated as higher priority by {@link #bestTag}.
+ *
+ * Instances are thread-safe once built.
+ */
+public final class KeywordMatcher {
+
+    /** A keyword occurrence: [start, end) in the scanned text. */
+    public record Match(String keyword, int tag, int start, int end) {}
+
+    /** Receives matches from {@link #scan} without any allocation. */
+    @FunctionalInterface
+    public interface MatchVisitor {
+        void onMatch(int keywordId, int start, int end);
+    }
+
+    private static final int ROOT = 0;
+
+    private final String[] keywords;
+    private final int[]    tags;
+
+    // Alphabet: every distinct (lower-cased) character that appears in a keyword.
+    // Class 0 is "any other character", which always leads back to the root.
+    private final int[]  asciiClass;      // char < 128 -> class
+    private final char[] otherChars;      // sorted non-ASCII alphabet chars
+    private final int[]  otherClass;
+    private final int    alphabetSize;
+
+    // Full DFA: next state for (state, class), failure links already folded in
+    private final int[] delta;
+
+    // Keyword ids ending at each state (including those reached via suffix links)
+    private final int[] outStart;
+    private final int[] outIds;
+
+    private KeywordMatcher(Builder b) {
+        int n = b.entries.size();
+        keywords = new String[n];
+        tags = new int[n];
+        int k = 0;
+        for (Map.Entry<String, Integer> e : b.entries.entrySet()) {
+            keywords[k] = e.getKey();
+            tags[k] = e.getValue();
+            k++;
+        }
+
+        // ── Alphabet ─────────────────────────────────────────────────────────
+        asciiClass = new int[128];
+        List<Character> nonAscii = new ArrayList<>();
+        int classes = 1;
+        for (String kw : keywords) {
+            for (int i = 0; i < kw.length(); i++) {
+                char c = kw.charAt(i);
+                if (c < 128) {
+                    if (asciiClass[c] == 0) asciiClass[c] = classes++;
+                } else if (!nonAscii.contains(c)) {
+                    nonAscii.add(c);
+                }
+            }
+        }
+        nonAscii.sort(null);
+        otherChars = new char[nonAscii.size()];
+        otherClass = new int[nonAscii.size()];
+        for (int i = 0; i < otherChars.length; i++) {
+            otherChars[i] = nonAscii.get(i);
+            otherClass[i] = classes++;
+        }
+        alphabetSize = classes;
+
+        // ── Trie ─────────────────────────────────────────────────────────────
+        int maxStates = 1;
+        for (String kw : keywords) maxStates += kw.length();
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> out = new ArrayList<>();
+        out.add(new ArrayList<>());
+        int states = 1;
+        for (int id = 0; id < n; id++) {
+            int s = ROOT;
+            String kw = keywords[id];
+            for (int i = 0; i < kw.length(); i++) {
+                int c = classOf(kw.charAt(i));
+                int slot = s * alphabetSize + c;
+                if (trie[slot] < 0) {
+                    trie[slot] = states++;
+                    out.add(new ArrayList<>());
+                }
+                s = trie[slot];
+            }
+            out.get(s).add(id);
+        }
+
+        // ── Failure links (BFS), turning the trie into a DFA ─────────────────
+        int[] fail = new int[states];
+        delta = Arrays.copyOf(trie, states * alphabetSize);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = delta[c];
+            if (next < 0) {
+                delta[c] = ROOT;
+            } else {
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            out.get(s).addAll(out.get(fail[s]));
+            for (int c = 0; c < alphabetSize; c++) {
+                int slot = s * alphabetSize + c;
+                int next = delta[slot];
+                if (next < 0) {
+                    delta[slot] = delta[fail[s] * alphabetSize + c];
+                } else {
+                    fail[next] = delta[fail[s] * alphabetSize + c];
+                    queue.add(next);
+                }
+            }
+        }
+        // "Other" characters never continue a keyword
+        for (int s = 0; s < states; s++) delta[s * alphabetSize] = ROOT;
+
+        // ── Flatten outputs ──────────────────────────────────────────────────
+        outStart = new int[states + 1];
+        int total = 0;
+        for (int s = 0; s < states; s++) {
+            outStart[s] = total;
+            total += out.get(s).size();
+        }
+        outStart[states] = total;
+        outIds = new int[total];
+        for (int s = 0, p = 0; s < states; s++) {
+            for (int id : out.get(s)) outIds[p++] = id;
+        }
+    }
+
+    /**
+     * Lower-cases one char at a time, exactly as scan() folds the text, so
+     * the result never depends on the default locale and never changes
+     * length (match offsets stay valid). Use it for any key that is
+     * compared with keywords.
+     */
+    public static String fold(CharSequence text) {
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) folded[i] = Character.toLowerCase(text.charAt(i));
+        return new String(folded);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size()                { return keywords.length; }
+    public String keyword(int id)    { return keywords[id]; }
+    public int tag(int id)           { return tags[id]; }
+
+    /** Reports every occurrence of every keyword, in order of end position. */
+    public void scan(CharSequence text, MatchVisitor visitor) {
+        int s = ROOT;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            s = delta[s * alphabetSize + classOf(Character.toLowerCase(text.charAt(i)))];
+            for (int p = outStart[s], end = outStart[s + 1]; p < end; p++) {
+                int id = outIds[p];
+                visitor.onMatch(id, i + 1 - keywords[id].length(), i + 1);
+            }
+        }
+    }
+
+    /** All matches, with keyword, tag and position. */
+    public List<Match> findAll(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        scan(text, (id, start, end) -> matches.add(new Match(keywords[id], tags[id], start, end)));
+        return matches;
+    }
+
+    /**
+     * Lowest tag among all keywords present in the text, or -1 if none match.
+     * Stops early once {@code floor} (the best possible tag) is seen.
+     * Allocation-free.
+     */
+    public int bestTag(CharSequence text, int floor) {
+        int best = -1;
+        int s = ROOT;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            s = delta[s * alphabetSize + classOf(Character.toLowerCase(text.charAt(i)))];
+            for (int p = outStart[s], end = outStart[s + 1]; p < end; p++) {
+                int tag = tags[outIds[p]];
+                if (best < 0 || tag < best) {
+                    best = tag;
+                    if (best <= floor) return best;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int classOf(char c) {
+        if (c < 128) return asciiClass[c];
+        int i = Arrays.binarySearch(otherChars, c);
+        return i >= 0 ? otherClass[i] : 0;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    public static final class Builder {
+        // Insertion order is kept so keyword ids are stable and predictable
+        private final Map<String, Integer> entries = new LinkedHashMap<>();
+
+        private Builder() {}
+
+        /**
+         * Adds a keyword (folded with {@link #fold}). If the same keyword is
+         * added twice, the lower tag wins.
+         */
+        public Builder add(String keyword, int tag) {
+            if (keyword == null || keyword.isBlank()) return this;
+            entries.merge(fold(keyword.trim()), tag, Math::min);
+            return this;
+        }
+
+        public Builder addAll(Iterable<String> keywords, int tag) {
+            for (String kw : keywords) add(kw, tag);
+            return this;
+        }
+
+        public KeywordMatcher build() {
+            return new KeywordMatcher(this);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.badas.util;
+
+import com.badas.model.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform latitude/longitude grid over points addressed by an int id, for
+ * nearest-neighbour and radius queries without scanning every point.
+ *
+ * Each point lives in one square cell of {@code cellDegrees}. A k-nearest
+ * query visits rings of cells around the query point, nearest ring first,
+ * and stops once the k-th best distance is closer than anything the next
+ * ring could hold; only points in the visited cells are measured. Once a
+ * ring would cover more cells than are occupied, the rest is scanned cell
+ * by cell instead, so sparse outliers (a hospital on another continent)
+ * never make a query walk empty ocean.
+ *
+ * Distances are great-circle kilometres. The grid does not wrap at the
+ * antimeridian. Not thread-safe; callers synchronize.
+ */
+public final class SpatialGrid {
+
+    /** A point found by a query and its distance from the query point. */
+    public record Hit(int id, double km) {}
+
+    /** Receives points found by {@link #forEachWithin}. */
+    @FunctionalInterface
+    public interface HitVisitor {
+        void visit(int id, double km);
+    }
+
+    private record Point(int id, double lat, double lon) {}
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final double cellDegrees;
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final Map<Integer, Long> cellOf = new HashMap<>();
+    private final Map<Integer, Point> points = new HashMap<>();
+
+    public SpatialGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public int size()               { return points.size(); }
+    public int occupiedCells()      { return cells.size(); }
+    public boolean contains(int id) { return points.containsKey(id); }
+
+    /** Where {@code id} was put, or null. */
+    public GeoPoint position(int id) {
+        Point p = points.get(id);
+        return p == null ? null : new GeoPoint(p.lat(), p.lon());
+    }
+
+    /** Adds {@code id} at the position, or moves it there. */
+    public void put(int id, double lat, double lon) {
+        remove(id);
+        Point p = new Point(id, lat, lon);
+        long cell = key(row(lat), col(lon));
+        cells.computeIfAbsent(cell, k -> new ArrayList<>(4)).add(p);
+        cellOf.put(id, cell);
+        points.put(id, p);
+    }
+
+    public void remove(int id) {
+        Long cell = cellOf.remove(id);
+        if (cell == null) return;
+        points.remove(id);
+        List<Point> list = cells.get(cell);
+        list.removeIf(p -> p.id() == id);
+        if (list.isEmpty()) cells.remove(cell);
+    }
+
+    public void clear() {
+        cells.clear();
+        cellOf.clear();
+        points.clear();
+    }
+
+    /** The {@code k} nearest points that {@code accept} lets through, nearest first. */
+    public List<Hit> nearest(GeoPoint at, int k, IntPredicate accept) {
+        return nearest(at, k, Double.POSITIVE_INFINITY, accept);
+    }
+
+    /**
+     * As nearest(at, k, accept), counting only points within {@code maxKm};
+     * the ring search stops as soon as every unvisited cell is farther away
+     * than that.
+     */
+    public List<Hit> nearest(GeoPoint at, int k, double maxKm, IntPredicate accept) {
+        PriorityQueue<Hit> best = new PriorityQueue<>((a, b) -> Double.compare(b.km(), a.km()));
+        if (k <= 0 || points.isEmpty()) return List.of();
+        int r0 = row(at.lat()), c0 = col(at.lon());
+        int seen = 0;
+        for (int ring = 0; ; ring++) {
+            if (ring > 0 && 8L * ring > cells.size()) {
+                // Fewer occupied cells than the ring would visit: scan what lies beyond
+                for (Map.Entry<Long, List<Point>> e : cells.entrySet()) {
+                    long cell = e.getKey();
+                    int dist = Math.max(Math.abs(cellRow(cell) - r0), Math.abs(cellCol(cell) - c0));
+                    if (dist >= ring) offerAll(e.getValue(), at, k, maxKm, accept, best);
+                }
+                break;
+            }
+            for (long cell : ringCells(r0, c0, ring)) {
+                List<Point> list = cells.get(cell);
+                if (list == null) continue;
+                seen += list.size();
+                offerAll(list, at, k, maxKm, accept, best);
+            }
+            if (seen == points.size()) break;
+            // Every point beyond this ring is at least ring whole cells away
+            double beyondKm = ring * minCellKm(at.lat(), ring + 1);
+            if (beyondKm > maxKm) break;
+            if (best.size() == k && best.peek().km() <= beyondKm) break;
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort((a, b) -> Double.compare(a.km(), b.km()));
+        return hits;
+    }
+
+    /** Calls {@code visitor} for every point within {@code km} of {@code at}, in no particular order. */
+    public void forEachWithin(GeoPoint at, double km, HitVisitor visitor) {
+        int dRow = (int) Math.ceil(km / (KM_PER_DEGREE * cellDegrees));
+        double lonKm = KM_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89, Math.abs(at.lat()) + km / KM_PER_DEGREE)));
+        int dCol = (int) Math.ceil(km / (lonKm * cellDegrees));
+        int r0 = row(at.lat()), c0 = col(at.lon());
+        if ((2L * dRow + 1) * (2L * dCol + 1) > cells.size()) {
+            for (Map.Entry<Long, List<Point>> e : cells.entrySet()) {
+                long cell = e.getKey();
+                if (Math.abs(cellRow(cell) - r0) <= dRow && Math.abs(cellCol(cell) - c0) <= dCol) {
+                    visitWithin(e.getValue(), at, km, visitor);
+                }
+            }
+            return;
+        }
+        for (int r = r0 - dRow; r <= r0 + dRow; r++) {
+            for (int c = c0 - dCol; c <= c0 + dCol; c++) {
+                List<Point> list = cells.get(key(r, c));
+                if (list != null) visitWithin(list, at, km, visitor);
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    private static void offerAll(List<Point> list, GeoPoint at, int k, double maxKm, IntPredicate accept,
+                                 PriorityQueue<Hit> best) {
+        for (Point p : list) {
+            if (!accept.test(p.id())) continue;
+            double km = GeoPoint.distanceKm(at.lat(), at.lon(), p.lat(), p.lon());
+            if (km > maxKm) continue;
+            if (best.size() < k) {
+                best.add(new Hit(p.id(), km));
+            } else if (km < best.peek().km()) {
+                best.poll();
+                best.add(new Hit(p.id(), km));
+            }
+        }
+    }
+
+    private static void visitWithin(List<Point> list, GeoPoint at, double km, HitVisitor visitor) {
+        for (Point p : list) {
+            double d = GeoPoint.distanceKm(at.lat(), at.lon(), p.lat(), p.lon());
+            if (d <= km) visitor.visit(p.id(), d);
+        }
+    }
+
+    /** Cells at Chebyshev distance exactly {@code ring} from (r0, c0). */
+    private static List<Long> ringCells(int r0, int c0, int ring) {
+        if (ring == 0) return List.of(key(r0, c0));
+        List<Long> list = new ArrayList<>(8 * ring);
+        for (int c = c0 - ring; c <= c0 + ring; c++) {
+            list.add(key(r0 - ring, c));
+            list.add(key(r0 + ring, c));
+        }
+        for (int r = r0 - ring + 1; r <= r0 + ring - 1; r++) {
+            list.add(key(r, c0 - ring));
+            list.add(key(r, c0 + ring));
+        }
+        return list;
+    }
+
+    /** Smallest width of a cell, in km, within {@code rings} cells of the latitude (cells narrow toward the poles). */
+    private double minCellKm(double lat, int rings) {
+        double worstLat = Math.min(89, Math.abs(lat) + rings * cellDegrees);
+        return cellDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(worstLat));
+    }
+
+    private int row(double lat) { return (int) Math.floor(lat / cellDegrees); }
+    private int col(double lon) { return (int) Math.floor(lon / cellDegrees); }
+
+    private static long key(int row, int col)  { return ((long) row << 32) | (col & 0xffffffffL); }
+    private static int cellRow(long key)       { return (int) (key >> 32); }
+    private static int cellCol(long key)       { return (int) key; }
+}
@@ -0,0 +1,42 @@
+package com.badas.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Timestamps are stored as INTEGER milliseconds since the Unix epoch (UTC)
+ * and carried as {@code long} in the models. They are only turned into
+ * local wall-clock text here, at display time.
+ */
+public final class Timestamps {
+
+    private Timestamps() {}
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter FULL      = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE      = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    public static long now() {
+        return System.currentTimeMillis();
+    }
+
+    public static Instant toInstant(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis);
+    }
+
+    /** "2026-03-14 09:26" in the workstation's time zone; table cells use this. */
+    public static String format(long epochMillis) {
+        return DATE_TIME.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()));
+    }
+
+    /** "2026-03-14 09:26:53" in the workstation's time zone. */
+    public static String formatFull(long epochMillis) {
+        return FULL.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()));
+    }
+
+    /** "2026-03-14" in the workstation's time zone. */
+    public static String formatDate(long epochMillis) {
+        return DATE.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()));
+    }
+}